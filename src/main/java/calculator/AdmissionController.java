@@ -0,0 +1,137 @@
+package calculator;
+
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Guards a delegate {@link Evaluator} against requests whose {@link CostEstimator} cost is
+ * over a budget of loop iterations.
+ * <p>
+ * Requests within budget go straight to the delegate. An over-budget request with an exact
+ * closed form is answered from {@link ClosedForms} under every policy. Any other
+ * over-budget request is handled by the policy:
+ * <ul>
+ * <li>REJECT throws {@link AdmissionException}.</li>
+ * <li>QUEUE runs it on the delegate once one of a few expensive slots is free. It waits at
+ * most the queue timeout, then rejects.</li>
+ * <li>DOWNGRADE answers with {@link ClosedForms#approximate} where an estimate exists,
+ * otherwise it rejects.</li>
+ * </ul>
+ */
+public class AdmissionController implements Evaluator {
+
+    public enum Policy { REJECT, QUEUE, DOWNGRADE }
+
+    /** Roughly a tenth of a second of loop work. */
+    public static final long DEFAULT_BUDGET = 100_000_000L;
+    public static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 30_000;
+
+    private final Evaluator delegate;
+    private final long budget;
+    private final Policy policy;
+    private final Semaphore expensiveSlots;
+    private final long queueTimeoutMillis;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong closedForm = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong downgraded = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdmissionController(Evaluator delegate, long budget, Policy policy) {
+        this(delegate, budget, policy, 1, DEFAULT_QUEUE_TIMEOUT_MILLIS);
+    }
+
+    public AdmissionController(Evaluator delegate, long budget, Policy policy, int expensiveSlots, long queueTimeoutMillis) {
+        this.delegate = delegate;
+        this.budget = budget;
+        this.policy = policy;
+        this.expensiveSlots = new Semaphore(Math.max(1, expensiveSlots), true);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+    }
+
+    /**
+     * Wraps delegate using the calculator.admission.policy (reject, queue or downgrade; default
+     * queue) and calculator.admission.budget system properties.
+     */
+    public static AdmissionController fromSystemProperties(Evaluator delegate) {
+        Policy policy = Policy.valueOf(System.getProperty("calculator.admission.policy", "queue").toUpperCase(Locale.ROOT));
+        long budget = Long.getLong("calculator.admission.budget", DEFAULT_BUDGET);
+        return new AdmissionController(delegate, budget, policy);
+    }
+
+    @Override
+    public double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue,
+                           ProgressMonitor monitor) {
+        CostEstimator.Cost cost = CostEstimator.estimate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue);
+        if (cost.iterations() <= budget) {
+            admitted.incrementAndGet();
+            return delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+        }
+        if (cost.closedForm()) {
+            closedForm.incrementAndGet();
+            return ClosedForms.exact(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue);
+        }
+        switch (policy) {
+            case QUEUE:
+                if (acquire()) {
+                    queued.incrementAndGet();
+                    try {
+                        return delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+                    } finally {
+                        expensiveSlots.release();
+                    }
+                }
+                break;
+            case DOWNGRADE:
+                if (ClosedForms.approximable(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue)) {
+                    downgraded.incrementAndGet();
+                    return ClosedForms.approximate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue);
+                }
+                break;
+            default:
+                break;
+        }
+        rejected.incrementAndGet();
+        throw new AdmissionException(cost, budget);
+    }
+
+    private boolean acquire() {
+        try {
+            return expensiveSlots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public long budget() {
+        return budget;
+    }
+
+    public Policy policy() {
+        return policy;
+    }
+
+    public long admittedCount() {
+        return admitted.get();
+    }
+
+    public long closedFormCount() {
+        return closedForm.get();
+    }
+
+    public long queuedCount() {
+        return queued.get();
+    }
+
+    public long downgradedCount() {
+        return downgraded.get();
+    }
+
+    public long rejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,20 @@
+package calculator;
+
+/**
+ * Thrown by {@link AdmissionController} when a request costs more than its budget and the
+ * policy cannot serve it some other way.
+ */
+public class AdmissionException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final CostEstimator.Cost cost;
+
+    public AdmissionException(CostEstimator.Cost cost, long budget) {
+        super("Estimated " + cost.iterations() + " iterations exceeds the budget of " + budget);
+        this.cost = cost;
+    }
+
+    public CostEstimator.Cost cost() {
+        return cost;
+    }
+}
@@ -0,0 +1,152 @@
+package calculator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Evaluates one operator over every tuple of a {@link BatchInputReader} file.
+ * <p>
+ * Usage: {@code BatchEvaluator <input> <output> <operator> [equation] [--binary] [--threads N]}
+ * <br>
+ * Text mode writes "id result" lines using {@link Functions#formatString}; binary mode writes
+ * a {@link BatchResultWriter} column file and runs the input segments in parallel.
+ * For ∑∑ and ΠΠ the first field of each line is N, the rest are the range bounds.
+ */
+public class BatchEvaluator {
+
+    private final Evaluator evaluator;
+    private final String operator;
+    private final String equation;
+    private final int arity;
+
+    public BatchEvaluator(Evaluator evaluator, String operator, String equation) {
+        this.evaluator = evaluator;
+        this.operator = operator;
+        this.equation = equation;
+        this.arity = Functions.operandCount(operator);
+    }
+
+    /** Evaluates one tuple; returns a status code and stores the value in result[0]. */
+    byte evaluate(double[] values, int count, double[] result) {
+        if (count < arity) {
+            result[0] = 0;
+            return BatchResultWriter.STATUS_SYNTAX_ERROR;
+        }
+        try {
+            double answer;
+            if (arity == 5) {
+                answer = evaluator.evaluate(operator, equation, (int) values[0], values[1], values[2], values[3], values[4]);
+            } else {
+                answer = evaluator.evaluate(operator, equation, 0, values[0], arity > 1 ? values[1] : 0, arity > 2 ? values[2] : 0, 0);
+            }
+            result[0] = answer;
+            return (Double.isNaN(answer) || Double.isInfinite(answer)) ? BatchResultWriter.STATUS_MATH_ERROR : BatchResultWriter.STATUS_OK;
+        } catch (AdmissionException e) {
+            result[0] = 0;
+            return BatchResultWriter.STATUS_REJECTED;
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            result[0] = 0;
+            return BatchResultWriter.STATUS_MATH_ERROR;
+        }
+    }
+
+    public long evaluate(BatchInputReader input, BatchResultWriter output, int threads) throws IOException {
+        try {
+            return input.readParallel(threads, () -> new BatchInputReader.TupleConsumer() {
+                private final BatchResultWriter.Appender appender = output.appender();
+                private final double[] result = new double[1];
+
+                @Override
+                public void accept(long id, double[] values, int count) {
+                    byte status = evaluate(values, count, result);
+                    append(id, result[0], status);
+                }
+
+                @Override
+                public void malformed(long id) {
+                    append(id, 0, BatchResultWriter.STATUS_SYNTAX_ERROR);
+                }
+
+                private void append(long id, double value, byte status) {
+                    try {
+                        appender.append(id, value, status);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long evaluate(BatchInputReader input, BufferedWriter output) throws IOException {
+        double[] result = new double[1];
+        long records = 0;
+        for (BatchInputReader.Segment segment : input.split(1)) {
+            records += input.read(segment, new BatchInputReader.TupleConsumer() {
+                @Override
+                public void accept(long id, double[] values, int count) {
+                    byte status = evaluate(values, count, result);
+                    write(id, status == BatchResultWriter.STATUS_OK ? Functions.formatString(result[0])
+                            : status == BatchResultWriter.STATUS_MATH_ERROR ? "Math Error" : "Syntax Error");
+                }
+
+                @Override
+                public void malformed(long id) {
+                    write(id, "Syntax Error");
+                }
+
+                private void write(long id, String text) {
+                    try {
+                        output.write(id + " " + text);
+                        output.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+        return records;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: BatchEvaluator <input> <output> <operator> [equation] [--binary] [--threads N]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        String operator = args[2];
+        String equation = "--";
+        boolean binary = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--binary")) binary = true;
+            else if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else equation = args[i];
+        }
+
+        BatchEvaluator evaluator = new BatchEvaluator(Evaluator.configured(false), operator, equation);
+        long start = System.nanoTime();
+        long records;
+        try (BatchInputReader reader = new BatchInputReader(input)) {
+            if (binary) {
+                BatchResultWriter.ResultType type = (operator.contains("∑") || operator.contains("Π") || operator.contains("!"))
+                        ? BatchResultWriter.ResultType.LONG : BatchResultWriter.ResultType.DOUBLE;
+                try (BatchResultWriter writer = new BatchResultWriter(output, type)) {
+                    records = evaluator.evaluate(reader, writer, threads);
+                }
+            } else {
+                try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+                    records = evaluator.evaluate(reader, writer);
+                }
+            }
+        }
+        System.out.println(records + " records in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,200 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Reads operand tuples for batch evaluation from a memory-mapped text file.
+ * <p>
+ * Each line holds up to {@link #MAX_FIELDS} numbers separated by spaces, tabs or commas.
+ * Blank lines and lines starting with '#' are skipped. The file is mapped in segments
+ * that always end on a newline, so segments can be handed to separate workers.
+ * Numbers are parsed straight from the mapped bytes; no String is built per field.
+ */
+public class BatchInputReader implements Closeable {
+
+    public static final int MAX_FIELDS = 8;
+    public static final int DEFAULT_SEGMENT_BYTES = 256 * 1024 * 1024;
+    private static final int MAX_LINE_BYTES = 4096;
+
+    /**
+     * Receives one parsed line. {@code id} is the byte offset of the line in the file,
+     * which stays unique and stable however the file is split. The values array is
+     * reused between calls and must not be kept.
+     */
+    public interface TupleConsumer {
+        void accept(long id, double[] values, int count);
+
+        default void malformed(long id) {
+            throw new NumberFormatException("Malformed record at byte " + id);
+        }
+    }
+
+    /** A newline-aligned byte range [start, end) of the input file. */
+    public record Segment(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final int maxSegmentBytes;
+
+    public BatchInputReader(Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public BatchInputReader(Path path, int maxSegmentBytes) throws IOException {
+        if (maxSegmentBytes < MAX_LINE_BYTES) {
+            throw new IllegalArgumentException("Segment size must be at least " + MAX_LINE_BYTES + " bytes.");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Splits the file into at least {@code parts} segments (more if a part would exceed
+     * the segment size limit), each ending just after a newline or at end of file.
+     */
+    public List<Segment> split(int parts) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        long target = Math.max(1, Math.min(maxSegmentBytes - MAX_LINE_BYTES, (size + parts - 1) / Math.max(1, parts)));
+        long start = 0;
+        while (start < size) {
+            long end = (size - start <= target) ? size : nextLineStart(start + target);
+            segments.add(new Segment(start, end));
+            start = end;
+        }
+        return segments;
+    }
+
+    private long nextLineStart(long position) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(MAX_LINE_BYTES);
+        channel.read(window, position);
+        window.flip();
+        for (int i = 0; i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                return position + i + 1;
+            }
+        }
+        if (position + window.limit() >= size) {
+            return size;
+        }
+        throw new IOException("Line longer than " + MAX_LINE_BYTES + " bytes near byte " + position);
+    }
+
+    /** Maps one segment and feeds every record in it to the consumer. Returns the record count. */
+    public long read(Segment segment, TupleConsumer consumer) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, segment.start(), segment.length());
+        byte[] line = new byte[MAX_LINE_BYTES];
+        double[] values = new double[MAX_FIELDS];
+        int limit = buffer.limit();
+        long records = 0;
+        int lineStart = 0;
+
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int length = lineEnd - lineStart;
+            long id = segment.start() + lineStart;
+            if (length > MAX_LINE_BYTES) {
+                throw new IOException("Line longer than " + MAX_LINE_BYTES + " bytes at byte " + id);
+            }
+            buffer.get(lineStart, line, 0, length);
+            int count = parseLine(line, length, values);
+            if (count > 0) {
+                consumer.accept(id, values, count);
+                records++;
+            } else if (count < 0) {
+                consumer.malformed(id);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return records;
+    }
+
+    /** Reads every segment on its own worker thread; each worker gets a fresh consumer. */
+    public long readParallel(int workers, Supplier<? extends TupleConsumer> consumers) throws IOException {
+        List<Segment> segments = split(workers);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, segments.size())));
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Segment segment : segments) {
+                TupleConsumer consumer = consumers.get();
+                results.add(executor.submit(() -> read(segment, consumer)));
+            }
+            long records = 0;
+            for (Future<Long> result : results) {
+                records += result.get();
+            }
+            return records;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + segments.size() + " segments", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits one line into fields and parses them. Returns the field count,
+     * 0 for a blank or comment line and -1 for a malformed one.
+     */
+    static int parseLine(byte[] line, int length, double[] values) {
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            byte c = line[i];
+            if (c == ' ' || c == '\t' || c == ',' || c == '\r') {
+                i++;
+                continue;
+            }
+            if (c == '#' && count == 0) {
+                return 0;
+            }
+            int end = i;
+            while (end < length && line[end] != ' ' && line[end] != '\t' && line[end] != ',' && line[end] != '\r') {
+                end++;
+            }
+            if (count == values.length) {
+                return -1;
+            }
+            try {
+                values[count++] = NumberParser.parseDouble(line, i, end);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+            i = end;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
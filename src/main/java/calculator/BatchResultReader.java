@@ -0,0 +1,163 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory-maps a file written by {@link BatchResultWriter} and walks its blocks
+ * without copying the columns onto the heap.
+ * <p>
+ * A MappedByteBuffer is int-indexed, so the file is mapped in windows of at most
+ * {@link #DEFAULT_WINDOW_BYTES}, each starting on a block boundary and holding whole
+ * blocks. File positions are longs throughout, so outputs past 2 GiB read like small ones.
+ */
+public class BatchResultReader implements Closeable {
+
+    /** Bytes mapped at a time, unless a single block is bigger. */
+    static final long DEFAULT_WINDOW_BYTES = 1L << 30;
+
+    public interface RowConsumer {
+        void accept(long id, double result, byte status);
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final long windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int mappings;
+    private final BatchResultWriter.ResultType resultType;
+    private final List<String> columns = new ArrayList<>();
+    private final long dataStart;
+
+    public BatchResultReader(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_BYTES);
+    }
+
+    BatchResultReader(Path path, long windowBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+
+        BatchResultWriter.ResultType type = null;
+        long position = 16;
+        try {
+            byte[] magic = new byte[BatchResultWriter.MAGIC.length];
+            if (size < 16) {
+                throw new IOException("Not a batch result file: " + path);
+            }
+            window(0, 16).get(0, magic);
+            if (!Arrays.equals(magic, BatchResultWriter.MAGIC)) {
+                throw new IOException("Not a batch result file: " + path);
+            }
+            int version = window.getInt(8);
+            if (version != BatchResultWriter.VERSION) {
+                throw new IOException("Unsupported batch result version " + version);
+            }
+            int columnCount = window.getInt(12);
+            for (int i = 0; i < columnCount; i++) {
+                int at = offset(position, 4);
+                byte columnType = window.get(at);
+                int nameLength = window.getShort(at + 2);
+                byte[] name = new byte[nameLength];
+                int nameAt = offset(position + 4, nameLength);
+                window.get(nameAt, name);
+                String columnName = new String(name, StandardCharsets.US_ASCII);
+                if (columnName.equals("result")) {
+                    type = BatchResultWriter.ResultType.of(columnType);
+                }
+                columns.add(columnName);
+                position += 4 + nameLength;
+            }
+            if (type == null || !columns.equals(List.of("id", "result", "status"))) {
+                throw new IOException("Unexpected batch result schema " + columns);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.resultType = type;
+        this.dataStart = BatchResultWriter.align8((int) position);
+    }
+
+    public BatchResultWriter.ResultType resultType() {
+        return resultType;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    /** Total rows in the file, read from the block headers only. */
+    public long rowCount() throws IOException {
+        long rows = 0;
+        for (long block = dataStart; block < size; ) {
+            int at = offset(block, BatchResultWriter.BLOCK_HEADER_BYTES);
+            rows += window.getInt(at);
+            block += BatchResultWriter.blockBytes(window.getInt(at + 4));
+        }
+        return rows;
+    }
+
+    public void forEach(RowConsumer consumer) throws IOException {
+        for (long block = dataStart; block < size; ) {
+            int header = offset(block, BatchResultWriter.BLOCK_HEADER_BYTES);
+            int capacity = window.getInt(header + 4);
+            int blockBytes = BatchResultWriter.blockBytes(capacity);
+            int at = offset(block, blockBytes);
+            int rows = window.getInt(at);
+            int idOffset = at + BatchResultWriter.BLOCK_HEADER_BYTES;
+            int resultOffset = idOffset + capacity * 8;
+            int statusOffset = resultOffset + capacity * 8;
+            for (int i = 0; i < rows; i++) {
+                double result = (resultType == BatchResultWriter.ResultType.LONG)
+                        ? window.getLong(resultOffset + i * 8)
+                        : window.getDouble(resultOffset + i * 8);
+                consumer.accept(window.getLong(idOffset + i * 8), result, window.get(statusOffset + i));
+            }
+            block += blockBytes;
+        }
+    }
+
+    /** Windows mapped so far. */
+    int mappings() {
+        return mappings;
+    }
+
+    /**
+     * Where the bytes [position, position + length) sit in {@link #window}, mapping a new
+     * window starting at position when they are not all in the current one. Call it before
+     * reading {@code window}, never inside the read's argument list.
+     */
+    private int offset(long position, int length) throws IOException {
+        if (window == null || position < windowStart || position + length > windowStart + window.limit()) {
+            window(position, length);
+        }
+        return (int) (position - windowStart);
+    }
+
+    private MappedByteBuffer window(long position, int length) throws IOException {
+        if (position + length > size) {
+            throw new IOException("Batch result file is truncated at byte " + position);
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, Math.max(windowBytes, length)));
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = position;
+        mappings++;
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
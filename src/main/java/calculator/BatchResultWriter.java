@@ -0,0 +1,178 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes batch results as fixed-width primitive columns.
+ * <p>
+ * File layout (little-endian):
+ * <pre>
+ * header: "CALCCOL1" | int version | int columnCount | per column: byte type, byte width, short nameLength, name
+ *         | zero padding to a multiple of 8
+ * block:  int rowCount | int capacity | long id[capacity] | result[capacity] | byte status[capacity]
+ *         | zero padding to a multiple of 8
+ * </pre>
+ * Columns are id (int64), result (int64 or float64, see {@link ResultType}) and status (int8).
+ * Every column starts 8-byte aligned, so readers can map the file and index it directly.
+ * Each {@link Appender} fills its own direct buffer, so workers only synchronise when a block is flushed.
+ */
+public class BatchResultWriter implements Closeable {
+
+    static final byte[] MAGIC = "CALCCOL1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int BLOCK_HEADER_BYTES = 8;
+    public static final int DEFAULT_BLOCK_ROWS = 8192;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_MATH_ERROR = 1;
+    public static final byte STATUS_SYNTAX_ERROR = 2;
+    public static final byte STATUS_TIMEOUT = 3;
+    public static final byte STATUS_REJECTED = 4;
+
+    static final byte TYPE_INT8 = 1;
+    static final byte TYPE_INT64 = 2;
+    static final byte TYPE_FLOAT64 = 3;
+
+    public enum ResultType {
+        LONG(TYPE_INT64),
+        DOUBLE(TYPE_FLOAT64);
+
+        final byte code;
+
+        ResultType(byte code) {
+            this.code = code;
+        }
+
+        static ResultType of(byte code) {
+            for (ResultType type : values()) {
+                if (type.code == code) return type;
+            }
+            throw new IllegalArgumentException("Unknown result column type: " + code);
+        }
+    }
+
+    private final FileChannel channel;
+    private final ResultType resultType;
+    private final int blockRows;
+    private final List<Appender> appenders = new ArrayList<>();
+    private Appender defaultAppender;
+
+    public BatchResultWriter(Path path, ResultType resultType) throws IOException {
+        this(path, resultType, DEFAULT_BLOCK_ROWS);
+    }
+
+    public BatchResultWriter(Path path, ResultType resultType, int blockRows) throws IOException {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Block size must be positive.");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.resultType = resultType;
+        this.blockRows = blockRows;
+        writeFully(header(resultType));
+    }
+
+    private static ByteBuffer header(ResultType resultType) {
+        String[] names = {"id", "result", "status"};
+        byte[] types = {TYPE_INT64, resultType.code, TYPE_INT8};
+        byte[] widths = {8, 8, 1};
+        ByteBuffer header = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = names[i].getBytes(StandardCharsets.US_ASCII);
+            header.put(types[i]).put(widths[i]).putShort((short) name.length).put(name);
+        }
+        while (header.position() % 8 != 0) {
+            header.put((byte) 0);
+        }
+        return header.flip();
+    }
+
+    static int blockBytes(int capacity) {
+        return BLOCK_HEADER_BYTES + capacity * 16 + align8(capacity);
+    }
+
+    static int align8(int value) {
+        return (value + 7) & ~7;
+    }
+
+    public ResultType resultType() {
+        return resultType;
+    }
+
+    /** Creates a buffer for one worker thread. Appenders are flushed by {@link #close()}. */
+    public synchronized Appender appender() {
+        Appender appender = new Appender();
+        appenders.add(appender);
+        return appender;
+    }
+
+    /** Single-threaded convenience for {@code appender().append(...)}. */
+    public synchronized void append(long id, double result, byte status) throws IOException {
+        if (defaultAppender == null) {
+            defaultAppender = appender();
+        }
+        defaultAppender.append(id, result, status);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        synchronized (channel) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    public class Appender {
+        private final ByteBuffer block = ByteBuffer.allocateDirect(blockBytes(blockRows)).order(ByteOrder.LITTLE_ENDIAN);
+        private int rows;
+
+        public void append(long id, double result, byte status) throws IOException {
+            int idOffset = BLOCK_HEADER_BYTES;
+            int resultOffset = idOffset + blockRows * 8;
+            int statusOffset = resultOffset + blockRows * 8;
+            block.putLong(idOffset + rows * 8, id);
+            if (resultType == ResultType.LONG) {
+                block.putLong(resultOffset + rows * 8, (long) result);
+            } else {
+                block.putDouble(resultOffset + rows * 8, result);
+            }
+            block.put(statusOffset + rows, status);
+            if (++rows == blockRows) {
+                flush();
+            }
+        }
+
+        public void flush() throws IOException {
+            if (rows == 0) {
+                return;
+            }
+            block.putInt(0, rows).putInt(4, blockRows);
+            block.clear();
+            writeFully(block);
+            block.clear();
+            rows = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                for (Appender appender : appenders) {
+                    appender.flush();
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
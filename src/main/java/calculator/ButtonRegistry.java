@@ -0,0 +1,141 @@
+package calculator;
+
+import java.awt.Font;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import javax.swing.JPanel;
+
+/**
+ * Every button on the calculator: what it shows, where it sits and what pressing it does.
+ * {@link Main} builds its keypad from this table, so all buttons share one listener shape
+ * instead of one listener class each.
+ */
+public final class ButtonRegistry {
+
+    /**
+     * One button. A button with recall >= 0 loads that answer-history slot; any other button
+     * presses its identifier. A null font keeps {@link RoundedButton}'s default.
+     */
+    public record Spec(String identifier, String text, String name, Font font, String icon, int radius, int recall,
+                       int x, int y, int width, int height) {
+    }
+
+    /** In the order the buttons are added to the panel, which is also their paint order. */
+    static final List<Spec> SPECS = List.of(
+            key("DL", "DEL", "DeleteButton", 28, 192, 94, 54),
+            key("AC", "AC", "AllClearButton", 132, 192, 94, 54),
+            key("PM", "+/-", "PlusMinusButton", 236, 192, 94, 54),
+            operator("PLUS", "+", "PlusButton", 340, 192, 94, 54),
+            key("FLR", "FLR", "FloorButton", 444, 192, 94, 54),
+            key("CEL", "CEIL", "CeilButton", 548, 192, 94, 54),
+            key("IT", "INT", "IntButton", 652, 192, 94, 54),
+
+            key("SVN", "7", "SevenButton", 28, 256, 94, 54),
+            key("EHT", "8", "EightButton", 132, 256, 94, 54),
+            key("NN", "9", "NineButton", 236, 256, 94, 54),
+            operator("MN", "-", "MinusButton", 340, 256, 94, 54),
+            key("INTD", "//", "IntegerDivisionButton", 444, 256, 94, 54),
+            key("MOD", "%", "ModulusButton", 548, 256, 94, 54),
+            key("FAC", "N!", "FactorialButton", 652, 256, 94, 54),
+
+            key("FR", "4", "FourButton", 28, 320, 94, 54),
+            key("FV", "5", "FiveButton", 132, 320, 94, 54),
+            key("SX", "6", "SixButton", 236, 320, 94, 54),
+            operator("MUL", "*", "MultiplyButton", 340, 320, 94, 54),
+            key("SQRT", "√", "SqrtButton", 444, 320, 94, 54),
+            picture("CBRT", "/Picture/cuberoot.png", "CbrtButton", 548, 320, 94, 54),
+            picture("NMROOT", "/Picture/numroot.png", "NumRootButton", 0, 0, 0, 0),
+            picture("SUM", "/Picture/summation.png", "SummationButton", 652, 320, 94, 54),
+
+            key("ON", "1", "OneButton", 28, 384, 94, 54),
+            key("TWO", "2", "TwoButton", 132, 384, 94, 54),
+            key("THR", "3", "ThreeButton", 236, 384, 94, 54),
+            operator("DIV", "÷", "DivideButton", 340, 384, 94, 54),
+            picture("XY", "/Picture/X.png", "XPowerYButton", 444, 384, 94, 54),
+            picture("XYZ", "/Picture/xyz.png", "XPowerYPowerZButton", 548, 384, 94, 54),
+            picture("PRN", "/Picture/prodnot.png", "ProductNotationButton", 652, 384, 94, 54),
+
+            key("ZRO", "0", "ZeroButton", 28, 448, 94, 54),
+            key("PRD", ".", "PeriodButton", 132, 448, 94, 54),
+            operator("EQU", "=", "EqualsButton", 236, 448, 198, 54),
+            picture("DSUM", "/Picture/doublesum.png", "DoubleSummationButton", 444, 448, 147, 54),
+            picture("DNOT", "/Picture/doubleprodnot.png", "DoubleProductNotationButton", 601, 448, 145, 54),
+
+            key("ST", "SET", "SetButton", 28, 510, 406, 54),
+            picture("LG2", "/Picture/log2x.png", "Log2Button", 444, 512, 147, 54),
+            picture("LGN", "/Picture/lognumx.png", "LogNButton", 0, 0, 0, 0),
+            picture("LG", "/Picture/logx.png", "LogButton", 601, 512, 145, 54),
+
+            key("A", "A", "AButton", 28, 574, 94, 54),
+            key("B", "B", "BButton", 132, 574, 94, 54),
+            key("C", "C", "CButton", 236, 574, 94, 54),
+            key("D", "D", "DButton", 340, 574, 94, 54),
+            key("a+b", "a! + b!", "SumFactorialButton", 444, 574, 147, 54),
+            key("a/b", "a! / b!", "DivideFactorialButton", 601, 576, 145, 54),
+
+            key("XEY", "xy", "XYEquationButton", 28, 638, 94, 54),
+            key("x+y", "x+y", "XPlusYButton", 132, 638, 94, 54),
+            picture("x^y", "/Picture/xy-white.png", "XPowerY_Button", 236, 638, 94, 54),
+            key("CEX", "Cx", "CxButton", 340, 638, 94, 54),
+            key("x+c", "x + C", "XPlusCButton", 444, 638, 94, 54),
+            picture("x^c", "/Picture/xc.png", "XPowerC_Button", 548, 638, 94, 54),
+            key("ANS", "ANS", "ANSButton", 652, 640, 94, 54),
+
+            control("FRM", "FormatButton", -1, 756, 706, 20, 21),
+            control("ah1", "AnswerHolder1", 0, 334, 0, 20, 21),
+            control("ah2", "AnswerHolder2", 1, 374, 0, 20, 21),
+            control("ah3", "AnswerHolder3", 2, 414, 0, 20, 21));
+
+    private ButtonRegistry() {
+    }
+
+    private static Spec key(String identifier, String text, String name, int x, int y, int width, int height) {
+        return new Spec(identifier, text, name, Theme.BUTTON_FONT, null, 30, -1, x, y, width, height);
+    }
+
+    private static Spec operator(String identifier, String text, String name, int x, int y, int width, int height) {
+        return new Spec(identifier, text, name, Theme.OPERATOR_FONT, null, 30, -1, x, y, width, height);
+    }
+
+    private static Spec picture(String identifier, String icon, String name, int x, int y, int width, int height) {
+        return new Spec(identifier, "", name, null, icon, 30, -1, x, y, width, height);
+    }
+
+    private static Spec control(String identifier, String name, int recall, int x, int y, int width, int height) {
+        return new Spec(identifier, "", name, null, null, 0, recall, x, y, width, height);
+    }
+
+    /**
+     * Creates every button in {@link #SPECS}, adds it to panel and wires it to press or, for
+     * the answer-history slots, to recall. Returns the buttons by identifier.
+     */
+    public static Map<String, RoundedButton> build(JPanel panel, Consumer<String> press, IntConsumer recall) {
+        Map<String, RoundedButton> buttons = new LinkedHashMap<>();
+        for (Spec spec : SPECS) {
+            RoundedButton button = new RoundedButton(spec.text(), spec.radius(), spec.identifier());
+            button.setName(spec.name());
+            if (spec.font() != null) button.setFont(spec.font());
+            if (spec.icon() != null && spec.width() == 0) {
+                button.setIconLater(spec.icon());
+            } else if (spec.icon() != null) {
+                // ImageCache reports a missing picture; the button then just shows its text.
+                button.setIcon(ImageCache.shared().icon(spec.icon()));
+            }
+            button.setBounds(spec.x(), spec.y(), spec.width(), spec.height());
+            if (spec.recall() >= 0) {
+                int slot = spec.recall();
+                button.addActionListener(e -> recall.accept(slot));
+            } else {
+                String identifier = spec.identifier();
+                button.addActionListener(e -> press.accept(identifier));
+            }
+            panel.add(button);
+            buttons.put(spec.identifier(), button);
+        }
+        return buttons;
+    }
+}
@@ -0,0 +1,258 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Every answer the calculator has produced, kept in an append-only memory-mapped log.
+ * <pre>
+ * header (32 bytes): "CALCHST1" | int version | int reserved | long end | long count
+ * record: int length | long timestamp | double result | byte opcode | UTF-8 expression | int length
+ * </pre>
+ * A record is written in full before the header's end and count move past it. A crash
+ * mid-append therefore loses at most that record. Opening a log reads only the header, and
+ * the ring of the most recent entries is filled on first use by walking back from the end
+ * along the trailing lengths. Startup cost does not depend on how long the history is.
+ * After that, {@link #recent} and {@link #recall} are O(1).
+ * <p>
+ * Record offsets double as stable entry ids; {@link HistoryIndex} builds on them.
+ */
+public class CalculationHistory implements Closeable {
+
+    public static final int DEFAULT_RING_SIZE = 64;
+
+    static final byte[] MAGIC = "CALCHST1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int END_OFFSET = 16;
+    private static final int COUNT_OFFSET = 24;
+    private static final int INITIAL_MAP_BYTES = 64 * 1024;
+    /** MappedByteBuffer is int-indexed. */
+    private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+    /** One history record. offset identifies it within the log. */
+    public record Entry(long offset, long timestamp, String operator, String expression, double result) {
+    }
+
+    /** Receives entries from {@link #scan} without materialising them. */
+    public interface EntryVisitor {
+        void visit(long offset, long timestamp, byte opcode, double result);
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long end;
+    private long count;
+
+    private final Entry[] ring;
+    private int ringHead;
+    private int ringFilled;
+    private boolean ringLoaded;
+
+    /** A history kept in memory only: nothing is written, and only the ring is remembered. */
+    public CalculationHistory(int ringSize) {
+        this.channel = null;
+        this.ring = new Entry[Math.max(1, ringSize)];
+        this.ringLoaded = true;
+    }
+
+    public CalculationHistory(Path path, int ringSize) throws IOException {
+        this.ring = new Entry[Math.max(1, ringSize)];
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            map(INITIAL_MAP_BYTES);
+            buffer.put(0, MAGIC).putInt(MAGIC.length, VERSION);
+            end = HEADER_BYTES;
+            writeHeader();
+        } else {
+            map(size);
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(0, magic);
+            if (!Arrays.equals(magic, MAGIC) || buffer.getInt(MAGIC.length) != VERSION) {
+                channel.close();
+                throw new IOException("Not a calculation history file: " + path);
+            }
+            end = buffer.getLong(END_OFFSET);
+            count = buffer.getLong(COUNT_OFFSET);
+            if (end < HEADER_BYTES || end > size) {
+                channel.close();
+                throw new IOException("Corrupt calculation history header: " + path);
+            }
+        }
+    }
+
+    /**
+     * Opens the history named by the calculator.history system property, or
+     * ~/.calculator/history.log by default. Setting the property to an empty string, or
+     * failing to open the file, gives an in-memory history.
+     */
+    public static CalculationHistory openDefault() {
+        String property = System.getProperty("calculator.history",
+                Path.of(System.getProperty("user.home"), ".calculator", "history.log").toString());
+        if (property.isEmpty()) {
+            return new CalculationHistory(DEFAULT_RING_SIZE);
+        }
+        try {
+            return new CalculationHistory(Path.of(property), DEFAULT_RING_SIZE);
+        } catch (IOException e) {
+            System.err.println("History disabled: " + e.getMessage());
+            return new CalculationHistory(DEFAULT_RING_SIZE);
+        }
+    }
+
+    private void map(long bytes) throws IOException {
+        if (bytes > MAX_BYTES) {
+            throw new IOException("Calculation history is full");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeHeader() {
+        buffer.putLong(END_OFFSET, end);
+        buffer.putLong(COUNT_OFFSET, count);
+    }
+
+    /** Records one answer; returns its offset, or -1 for an in-memory history. */
+    public synchronized long append(String operator, String expression, double result) throws IOException {
+        long timestamp = System.currentTimeMillis();
+        byte[] text = expression == null ? new byte[0] : expression.getBytes(StandardCharsets.UTF_8);
+        long offset = -1;
+        if (channel != null) {
+            offset = end;
+            int length = 8 + 8 + 1 + text.length;
+            long recordEnd = end + length + 8;
+            if (recordEnd > buffer.capacity()) {
+                map(Math.min(MAX_BYTES, Math.max(recordEnd, (long) buffer.capacity() * 2)));
+            }
+            int at = (int) end;
+            buffer.putInt(at, length);
+            buffer.putLong(at + 4, timestamp);
+            buffer.putDouble(at + 12, result);
+            buffer.put(at + 20, RpcProtocol.opcodeOrZero(operator));
+            buffer.put(at + 21, text);
+            buffer.putInt(at + 21 + text.length, length);
+            end = recordEnd;
+            count++;
+            writeHeader();
+        } else {
+            count++;
+        }
+        if (ringLoaded) {
+            push(new Entry(offset, timestamp, operator, expression == null ? "" : expression, result));
+        }
+        return offset;
+    }
+
+    private void push(Entry entry) {
+        ringHead = (ringHead + 1) % ring.length;
+        ring[ringHead] = entry;
+        ringFilled = Math.min(ringFilled + 1, ring.length);
+    }
+
+    private void loadRing() {
+        long at = end;
+        int loaded = 0;
+        Entry[] newestFirst = new Entry[ring.length];
+        while (at > HEADER_BYTES && loaded < ring.length) {
+            int length = buffer.getInt((int) at - 4);
+            at -= length + 8;
+            newestFirst[loaded++] = read(at);
+        }
+        for (int i = loaded - 1; i >= 0; i--) {
+            push(newestFirst[i]);
+        }
+        ringLoaded = true;
+    }
+
+    /** Number of entries ever recorded. */
+    public synchronized long size() {
+        return count;
+    }
+
+    /** Number of entries {@link #recent} can return without reading the log. */
+    public synchronized int recentCount() {
+        if (!ringLoaded) loadRing();
+        return ringFilled;
+    }
+
+    /** The i-th most recent entry (0 is the latest), or null when there are not that many. */
+    public synchronized Entry recent(int i) {
+        if (!ringLoaded) loadRing();
+        if (i < 0 || i >= ringFilled) return null;
+        return ring[Math.floorMod(ringHead - i, ring.length)];
+    }
+
+    /** Result of the i-th most recent entry, for recall into ANS; NaN when there is none. */
+    public double recall(int i) {
+        Entry entry = recent(i);
+        return entry == null ? Double.NaN : entry.result();
+    }
+
+    /** Reads the record at offset, as returned by {@link #append} or {@link #scan}. */
+    public synchronized Entry read(long offset) {
+        if (channel == null || offset < HEADER_BYTES || offset >= end) {
+            throw new IllegalArgumentException("No history entry at " + offset);
+        }
+        int at = (int) offset;
+        int length = buffer.getInt(at);
+        byte[] text = new byte[length - 17];
+        buffer.get(at + 21, text);
+        byte opcode = buffer.get(at + 20);
+        return new Entry(offset, buffer.getLong(at + 4), opcode == 0 ? null : RpcProtocol.OPERATORS[opcode],
+                new String(text, StandardCharsets.UTF_8), buffer.getDouble(at + 12));
+    }
+
+    /** Expression of the record at offset. */
+    public synchronized String expression(long offset) {
+        return read(offset).expression();
+    }
+
+    /**
+     * Visits every record from offset from (use {@link #start()} for all of them) up to the
+     * current end; returns the offset to continue from next time.
+     */
+    public synchronized long scan(long from, EntryVisitor visitor) {
+        if (channel == null) return from;
+        long at = Math.max(from, HEADER_BYTES);
+        while (at < end) {
+            int i = (int) at;
+            int length = buffer.getInt(i);
+            visitor.visit(at, buffer.getLong(i + 4), buffer.get(i + 20), buffer.getDouble(i + 12));
+            at += length + 8;
+        }
+        return at;
+    }
+
+    /** Offset of the first record. */
+    public static long start() {
+        return HEADER_BYTES;
+    }
+
+    /** Offset just past the last record. */
+    public synchronized long end() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+        }
+    }
+}
@@ -1,16 +1,13 @@
 package calculator;
 
-import java.awt.Color;
+import java.awt.EventQueue;
 import java.awt.Font;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 
-import javax.imageio.ImageIO;
 import javax.swing.AbstractAction;
 import javax.swing.ActionMap;
 import javax.swing.ImageIcon;
@@ -47,6 +44,11 @@ public class CalculatorHelper {
 
     boolean isActive = false;
     boolean isFormatted = false;
+    /** Builds the mode-only components on first use; null once they exist. */
+    private Runnable advancedFactory;
+    private boolean focusBound;
+    /** The picture the image holder was last asked to show; a slower decode of an older one is dropped. */
+    private String shownImage;
 
     private ArrayList<Double> numbers;
     private ArrayList<String> operators;
@@ -77,6 +79,38 @@ public class CalculatorHelper {
         operators = new ArrayList<>();
     }
 
+    /**
+     * Defers the x/y/z fields, the image and variable labels and the equation holder until a
+     * mode first needs them. factory must create them and hand them to {@link #attachAdvanced}.
+     */
+    public void setAdvancedFactory(Runnable factory) {
+        this.advancedFactory = factory;
+    }
+
+    public void attachAdvanced(RoundJTextField zValue, RoundJTextField yValue, RoundJTextField xValue,
+                               JLabel imageHolder, JLabel variableHolder, RoundJTextField equationHolder) {
+        this.zValue = zValue;
+        this.yValue = yValue;
+        this.xValue = xValue;
+        this.imageHolder = imageHolder;
+        this.variableHolder = variableHolder;
+        this.equationHolder = equationHolder;
+    }
+
+    /** True once the mode-only components exist. */
+    public boolean isAdvancedBuilt() {
+        return xValue != null;
+    }
+
+    /** Builds the mode-only components if they are still deferred. */
+    private void materialize() {
+        if (xValue == null && advancedFactory != null) {
+            Runnable factory = advancedFactory;
+            advancedFactory = null;
+            factory.run();
+        }
+    }
+
     public void setZero() {
         calc.setText("");
         holder.setText("");
@@ -106,6 +140,7 @@ public class CalculatorHelper {
     }
 
     public void setXYZ() {
+        if (!isAdvancedBuilt()) return;
         zValue.setText("0");
         yValue.setText("0");
         xValue.setText("0");
@@ -118,7 +153,7 @@ public class CalculatorHelper {
         numwrapper.setBounds(13, 41, 691, 72);
         numbers.clear();
         operators.clear();
-        equationHolder.setText("Equation: --");
+        setEquationNull();
     }
 
     public void setEquals() {
@@ -126,10 +161,15 @@ public class CalculatorHelper {
     }
 
     public void setEquationNull() {
+        if (!isAdvancedBuilt()) return;
         equationHolder.setText("Equation: --");
     }
 
     public void setXYZInactive() {
+        if (!isAdvancedBuilt()) {
+            numwrapper.setBounds(13, 41, 691, 72);
+            return;
+        }
         zValue.setBounds(0, 0, 0, 0);
         yValue.setBounds(0, 0, 0, 0);
         xValue.setBounds(0, 0, 0, 0);
@@ -137,13 +177,14 @@ public class CalculatorHelper {
         variableHolder.setBounds(0, 0, 0, 0);
         equationHolder.setBounds(0, 0, 0, 0);
         numwrapper.setBounds(13, 41, 691, 72);
-        xValue.setFont(new Font("Malgun Gothic", Font.BOLD, 38));
-        variableHolder.setFont(new Font("Microsoft Sans Serif", Font.BOLD, 30));
+        xValue.setFont(Theme.font("Malgun Gothic", Font.BOLD, 38));
+        variableHolder.setFont(Theme.font("Microsoft Sans Serif", Font.BOLD, 30));
         setEquationNull();
     }
 
     public void setXYActive() {
-        setImageHolder("/Picture/xy-black.png");
+        materialize();
+        setImageHolderAsync("/Picture/xy-black.png");
         yValue.setBounds(523, 45, 178, 25);
         xValue.setBounds(523, 63, 161, 41);
         xValue.requestFocusInWindow();
@@ -153,7 +194,8 @@ public class CalculatorHelper {
     }
 
     public void setXYZActive() {
-        setImageHolder("/Picture/xyz-black.png");
+        materialize();
+        setImageHolderAsync("/Picture/xyz-black.png");
         zValue.setBounds(517, 31, 189, 25);
         yValue.setBounds(514, 56, 178, 27);
         xValue.setBounds(514, 77, 161, 41);
@@ -164,6 +206,9 @@ public class CalculatorHelper {
     }
 
     public void setFocusActive() {
+        materialize();
+        if (focusBound) return;
+        focusBound = true;
         xValue.addKeyListener(new KeyAdapter() {
             @Override
             public void keyTyped(KeyEvent e) {
@@ -261,35 +306,60 @@ public class CalculatorHelper {
     }
 
     public void setImageHolder(String text) {
-        Image Holder = loadImage(text);
-        imageHolder.setIcon(new ImageIcon(Holder));
+        materialize();
+        shownImage = text;
+        imageHolder.setIcon(ImageCache.shared().icon(text));
+        setEquationNull();
+    }
+
+    /**
+     * Like {@link #setImageHolder} but never waits on the event thread: a cached picture is
+     * shown at once, otherwise the holder is cleared and the picture swapped in when its
+     * background decode finishes, unless another picture has been asked for by then.
+     */
+    public void setImageHolderAsync(String text) {
+        materialize();
+        shownImage = text;
+        ImageIcon icon = ImageCache.shared().cachedIcon(text);
+        if (icon != null) {
+            imageHolder.setIcon(icon);
+        } else {
+            imageHolder.setIcon(null);
+            ImageCache.shared().iconAsync(text).thenAccept(decoded -> EventQueue.invokeLater(() -> {
+                if (text.equals(shownImage)) imageHolder.setIcon(decoded);
+            }));
+        }
         setEquationNull();
     }
 
     public void setSummationActive() {
+        materialize();
         numwrapper.setBounds(13, 41, 691, 72);
-        setImageHolder("/Picture/summation_hold.png");
+        setImageHolderAsync("/Picture/summation_hold.png");
         imageHolder.setBounds(14, 42, 66, 72);
         equationHolder.setBounds(134, 101, 133, 41);
-        equationHolder.setBackground(new Color(213, 178, 224));
+        equationHolder.setBackground(Theme.FIELD);
     }
 
     public void setNotationActive() {
-        setImageHolder("/Picture/notation_hold.png");
+        materialize();
+        setImageHolderAsync("/Picture/notation_hold.png");
         imageHolder.setBounds(14, 42, 66, 72);
         equationHolder.setBounds(134, 101, 133, 41);
-        equationHolder.setBackground(new Color(213, 178, 224));
+        equationHolder.setBackground(Theme.FIELD);
     }
 
     public void setDSummationActive() {
+        materialize();
         setDsumDnotActive();
-        setImageHolder("/Picture/Dsummation_hold.png");
+        setImageHolderAsync("/Picture/Dsummation_hold.png");
         imageHolder.setBounds(15, 34, 144, 84);
     }
 
     public void setDNotationActive() {
+        materialize();
         setDsumDnotActive();
-        setImageHolder("/Picture/Dnotation_hold.png");
+        setImageHolderAsync("/Picture/Dnotation_hold.png");
         imageHolder.setBounds(15, 34, 144, 84);
     }
 
@@ -299,14 +369,14 @@ public class CalculatorHelper {
             cuberoot_button.setBounds(548, 320, 94, 54);
             lognumx_button.setBounds(0, 0, 0, 0);
             numroot_button.setBounds(0, 0, 0, 0);
-            set_button.setForeground(new Color(255, 255, 255));
-            set_button.setBackground(new Color(133, 110, 167));
+            set_button.setForeground(Theme.WHITE);
+            set_button.setBackground(Theme.color(133, 110, 167));
             isActive = false;
         } else {
             lognumx_button.setBounds(444, 510, 147, 54);
             numroot_button.setBounds(548, 320, 94, 54);
-            set_button.setForeground(new Color(255, 255, 255));
-            set_button.setBackground(new Color(0, 128, 0));
+            set_button.setForeground(Theme.WHITE);
+            set_button.setBackground(Theme.color(0, 128, 0));
             logsubtwoX_button.setBounds(0, 0, 0, 0);
             cuberoot_button.setBounds(0, 0, 0, 0);
             isActive = true;
@@ -314,6 +384,7 @@ public class CalculatorHelper {
     }
 
     public void setLogNumXActive() {
+        materialize();
         setXYZInactive();
         xValue.setHorizontalAlignment(SwingConstants.LEADING);
         xValue.setBounds(80, 10, 200, 50);
@@ -322,37 +393,39 @@ public class CalculatorHelper {
     }
 
     public void setNumRootActive() {
+        materialize();
         setXYZInactive();
         xValue.setHorizontalAlignment(SwingConstants.LEADING);
         xValue.setBounds(80, 6, 200, 50);
         variableHolder.setBounds(20, 5, 60, 50);
         variableHolder.setText("x =");
-        setImageHolder("/Picture/numroot.png");
+        setImageHolderAsync("/Picture/numroot.png");
         imageHolder.setBounds(10, 33, 66, 72);
     }
     public void setDsumDnotActive() {
-        xValue.setFont(new Font("Malgun Gothic", Font.BOLD, 25));
+        materialize();
+        xValue.setFont(Theme.font("Malgun Gothic", Font.BOLD, 25));
         xValue.setHorizontalAlignment(SwingConstants.LEADING);
         xValue.setBounds(333, 101, 200, 41);
-        variableHolder.setFont(new Font("Microsoft Sans Serif", Font.BOLD, 25));
+        variableHolder.setFont(Theme.font("Microsoft Sans Serif", Font.BOLD, 25));
         variableHolder.setBounds(273, 103, 60, 39);
         variableHolder.setText("N =");
         equationHolder.setBounds(134, 101, 133, 41);
-        equationHolder.setBackground(new Color(213, 178, 224));
+        equationHolder.setBackground(Theme.FIELD);
     }
 
     public void setFormat() {
         NumberFormat formatter = new DecimalFormat("#,###");
         try {
             if(isFormatted) {
-                format.setBackground(new Color(255, 255, 255));
+                format.setBackground(Theme.WHITE);
                 String number = numwrapper.getText();
                 Number num = formatter.parse(number);
                 numwrapper.setText(String.valueOf(num));
                 isFormatted = false;
             } else {
-                format.setBackground(new Color(0, 0, 255));
-                double number = Double.parseDouble(numwrapper.getText());
+                format.setBackground(Theme.color(0, 0, 255));
+                double number = NumberParser.parseDouble(numwrapper.getText());
                 numwrapper.setText(formatter.format(number));
                 isFormatted = true;
             }
@@ -367,16 +440,6 @@ public class CalculatorHelper {
     }
 
     public Image loadImage(String path) {
-        try {
-            InputStream imageStream = getClass().getResourceAsStream(path);
-            if (imageStream != null) {
-                return ImageIO.read(imageStream);
-            } else {
-                return null;
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        }
+        return ImageCache.shared().image(path);
     }
 }
\ No newline at end of file
@@ -0,0 +1,212 @@
+package calculator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local HTTP front end for the headless calculator, built on the JDK's HttpServer.
+ * <p>
+ * Every endpoint takes a POST body of JSON lines and answers with one JSON line per
+ * request line, either {"result":n} or {"error":"Math Error"|"Syntax Error"|"Rejected"}:
+ * <pre>
+ * /basic             {"numbers":[2,3,4],"operators":["+","*"]}
+ * /summation         {"equation":"Cx","start":1,"end":3,"constant":2}
+ * /product           same fields as /summation
+ * /double-summation  {"n":1,"equation":"xy","start":1,"end":2,"jStart":1,"jEnd":3}
+ * /double-product    same fields as /double-summation
+ * /factorial         {"value":5}
+ * /log               {"value":8,"base":2}   (base defaults to e)
+ * /stats             GET: request count and p50/p99 latency per endpoint
+ * </pre>
+ * Requests run on virtual threads; responses carry a Content-Length so connections stay alive.
+ * <p>
+ * Each request has a time budget (default {@value #DEFAULT_TIMEOUT_MILLIS} ms) shared by its
+ * lines. A range line still running when it runs out is stopped and answered with
+ * {"error":"Timeout","partial":n,"progress":f}, so one pathological range cannot hold a thread.
+ */
+public class CalculatorServer {
+
+    public static final int DEFAULT_PORT = 8521;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private interface LineHandler {
+        String handle(Map<String, Object> request, CancellationToken token);
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Evaluator evaluator;
+    private final long timeoutMillis;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+
+    public CalculatorServer(int port) throws IOException {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), Evaluator.configured(true));
+    }
+
+    public CalculatorServer(InetSocketAddress address, Evaluator evaluator) throws IOException {
+        this(address, evaluator, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /** timeoutMillis of 0 or less disables the per-request time budget. */
+    public CalculatorServer(InetSocketAddress address, Evaluator evaluator, long timeoutMillis) throws IOException {
+        this.evaluator = evaluator;
+        this.timeoutMillis = timeoutMillis;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        register("/basic", (request, token) -> basic(request));
+        register("/summation", (request, token) -> range("∑", request, token));
+        register("/product", (request, token) -> range("Π", request, token));
+        register("/double-summation", (request, token) -> doubleRange("∑∑", request, token));
+        register("/double-product", (request, token) -> doubleRange("ΠΠ", request, token));
+        register("/factorial", (request, token) -> JsonLines.result(
+                evaluator.evaluate("N!", "--", 0, JsonLines.number(request, "value"), 0, 0, 0)));
+        register("/log", (request, token) -> log(request));
+        server.createContext("/stats", this::stats);
+    }
+
+    private void register(String path, LineHandler handler) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(path, histogram);
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            try (exchange) {
+                if (!"POST".equals(exchange.getRequestMethod())) {
+                    send(exchange, 405, JsonLines.error("Use POST"));
+                    return;
+                }
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                CancellationToken token = timeoutMillis > 0
+                        ? CancellationToken.withDeadline(start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis))
+                        : new CancellationToken();
+                StringBuilder response = new StringBuilder();
+                for (String line : body.split("\n")) {
+                    if (!line.isBlank()) {
+                        response.append(evaluateLine(handler, line, token)).append('\n');
+                    }
+                }
+                send(exchange, 200, response.toString());
+            } finally {
+                histogram.recordSince(start);
+            }
+        });
+    }
+
+    static String evaluateLine(LineHandler handler, String line, CancellationToken token) {
+        try {
+            return handler.handle(JsonLines.parse(line), token);
+        } catch (AdmissionException e) {
+            return JsonLines.error("Rejected");
+        } catch (IllegalStateException | NumberFormatException e) {
+            return JsonLines.error("Syntax Error");
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return JsonLines.error("Math Error");
+        }
+    }
+
+    private String basic(Map<String, Object> request) {
+        List<Double> numbers = JsonLines.list(request, "numbers", Double.class);
+        List<String> operators = JsonLines.list(request, "operators", String.class);
+        if (numbers.isEmpty() || operators.size() < numbers.size() - 1) {
+            return JsonLines.error("Syntax Error");
+        }
+        return checked(Functions.calculateResult(new ArrayList<>(numbers), new ArrayList<>(operators)));
+    }
+
+    private String range(String operator, Map<String, Object> request, CancellationToken token) {
+        return checked(token.evaluate(evaluator, operator, JsonLines.string(request, "equation", "--"), 0,
+                JsonLines.number(request, "start"), JsonLines.number(request, "end"),
+                JsonLines.number(request, "constant", 0), 0));
+    }
+
+    private String doubleRange(String operator, Map<String, Object> request, CancellationToken token) {
+        return checked(token.evaluate(evaluator, operator, JsonLines.string(request, "equation", "--"),
+                (int) JsonLines.number(request, "n", 1),
+                JsonLines.number(request, "start"), JsonLines.number(request, "end"),
+                JsonLines.number(request, "jStart"), JsonLines.number(request, "jEnd")));
+    }
+
+    private String log(Map<String, Object> request) {
+        double value = JsonLines.number(request, "value");
+        if (!request.containsKey("base")) {
+            return checked(evaluator.evaluate("log(", "--", 0, value, 0, 0, 0));
+        }
+        return checked(evaluator.evaluate("log(n)x(", "--", 0, JsonLines.number(request, "base"), value, 0, 0));
+    }
+
+    private static String checked(CancellationToken.Result result) {
+        if (result.isPartial()) {
+            return JsonLines.partial(result.status() == CancellationToken.Status.TIMED_OUT ? "Timeout" : "Cancelled",
+                    result.value(), result.fraction());
+        }
+        return checked(result.value());
+    }
+
+    private static String checked(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return JsonLines.error("Math Error");
+        }
+        return JsonLines.result(value);
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder response = new StringBuilder();
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                LatencyHistogram histogram = entry.getValue();
+                response.append(String.format("{\"endpoint\":\"%s\",\"count\":%d,\"p50Nanos\":%d,\"p99Nanos\":%d}%n",
+                        entry.getKey(), histogram.count(), histogram.percentile(50), histogram.percentile(99)));
+            }
+            send(exchange, 200, response.toString());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    public LatencyHistogram latency(String endpoint) {
+        return latencies.get(endpoint);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CalculatorServer server = new CalculatorServer(port);
+        server.start();
+        System.out.println("Calculator server listening on http://localhost:" + server.port());
+    }
+}
@@ -0,0 +1,725 @@
+package calculator;
+
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * The whole calculator as a value: the engine fields {@link Main} used to keep, plus the
+ * text of every display field and which input layout is showing.
+ * <p>
+ * {@link #reduce} is the calculator's state machine. It takes a state and the identifier
+ * of a pressed {@link RoundedButton} ("FR", "PLUS", "SUM", "EQU", ...) and returns the
+ * next state without touching Swing, so sessions can be replayed headless and in
+ * parallel. {@link Main} only renders the result.
+ * <p>
+ * "=" on a range operator (∑, ∑∑, Π, ΠΠ) does not evaluate it: it returns a state with a
+ * {@link RangeRequest} pending. The caller runs it, in the background or right away with
+ * {@link #settle}, and hands the value to {@link #complete}.
+ */
+public record CalculatorState(String operator, String equation, String A, String B, String C, String D,
+                              String firstValue, String secondValue, String thirdValue, String fourthValue,
+                              double firstDoubleValue, double secondDoubleValue, double thirdDoubleValue, double fourthDoubleValue,
+                              double ans, Integer nValue, int zeroCount, int valueIndex,
+                              boolean reset, boolean isMinus, boolean allowed, boolean isVisible,
+                              List<Double> numbers, List<String> operators,
+                              String calcText, String displayText, String holderText,
+                              String xText, String yText, String zText, String equationText, String variableText,
+                              Layout layout, boolean advanced, boolean formatted,
+                              RangeRequest pending, long answerCount) {
+
+    /** Which set of extra input fields is on screen. */
+    public enum Layout {
+        NONE, SUMMATION, NOTATION, DOUBLE_SUMMATION, DOUBLE_NOTATION, XY, XYZ, LOG_N, NUM_ROOT;
+
+        /** x^y and x^y^z take their operands in the x/y/z fields and hide the main display. */
+        public boolean hidesDisplay() {
+            return this == XY || this == XYZ;
+        }
+    }
+
+    /** A range evaluation waiting to be run. */
+    public record RangeRequest(String operator, String equation, int nValue,
+                               double first, double second, double third, double fourth) {
+
+        public long evaluate(ProgressMonitor monitor) {
+            return switch (operator) {
+                case "∑" -> Functions.summation(equation, first, second, third, monitor);
+                case "∑∑" -> Functions.doubleSummation(nValue, equation, first, second, third, fourth, monitor);
+                case "Π" -> Functions.prodnot(equation, first, second, third, monitor);
+                default -> Functions.doubleProdNot(nValue, equation, first, second, third, fourth, monitor);
+            };
+        }
+    }
+
+    public static final CalculatorState INITIAL = new CalculatorState(null, "--", null, null, null, null,
+            null, null, null, null, 0, 0, 0, 0, 0, null, 0, 0, false, false, false, false,
+            List.of(), List.of(), "", "0", "", "0", "0", "0", "Equation: --", "",
+            Layout.NONE, false, false, null, 0);
+
+    private static final Set<String> ADVANCED_EQUATION = Set.of("∑∑", "ΠΠ");
+    private static final Set<String> ADVANCED_EQUATION_2 = Set.of("∑", "Π");
+    private static final Set<String> BASIC_EQUATION = Set.of("+", "-", "*", "÷");
+
+    public CalculatorState {
+        numbers = List.copyOf(numbers);
+        operators = List.copyOf(operators);
+    }
+
+    /** The same state with the x/y/z fields as the user typed them. */
+    public CalculatorState withFields(String x, String y, String z) {
+        if (x.equals(xText) && y.equals(yText) && z.equals(zText)) return this;
+        Builder next = new Builder(this);
+        next.xText = x;
+        next.yText = y;
+        next.zText = z;
+        return next.build();
+    }
+
+    /** The same state with ANS replaced, as when an earlier answer is recalled. */
+    public CalculatorState withAns(double value) {
+        Builder next = new Builder(this);
+        next.ans = value;
+        return next.build();
+    }
+
+    /** The state after pressing the button with the given identifier. Unknown identifiers change nothing. */
+    public static CalculatorState reduce(CalculatorState state, String key) {
+        Builder next = new Builder(state);
+        try {
+            next.press(key);
+        } catch (RuntimeException e) {
+            // A listener that threw kept whatever it had changed so far; so does the reducer.
+        }
+        return next.build();
+    }
+
+    /**
+     * The state after pressing every key in order; the same as reducing them one at a time,
+     * but the text is built once, so a long run of digits costs linear rather than quadratic time.
+     */
+    public static CalculatorState reduceAll(CalculatorState state, List<String> keys) {
+        Builder next = new Builder(state);
+        for (String key : keys) {
+            try {
+                next.press(key);
+            } catch (RuntimeException e) {
+                // as in reduce: keep what the key changed before it threw
+            }
+        }
+        return next.build();
+    }
+
+    /** Runs a pending range request on the calling thread, if there is one. */
+    public static CalculatorState settle(CalculatorState state) {
+        if (state.pending == null) return state;
+        try {
+            return complete(state, state.pending.evaluate(ProgressMonitor.NONE));
+        } catch (RuntimeException e) {
+            return fail(state);
+        }
+    }
+
+    /** The state once the pending range request has produced value. */
+    public static CalculatorState complete(CalculatorState state, double value) {
+        Builder next = new Builder(state);
+        next.pending = null;
+        next.showAnswer(value);
+        return next.build();
+    }
+
+    /** The state once the pending range request has failed. */
+    public static CalculatorState fail(CalculatorState state) {
+        Builder next = new Builder(state);
+        next.pending = null;
+        next.setSyntaxError();
+        return next.build();
+    }
+
+    /** Mutable working copy; its methods mirror the old listeners and CalculatorHelper's text setters. */
+    private static final class Builder {
+        String operator, equation, A, B, C, D, firstValue, secondValue, thirdValue, fourthValue;
+        double firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue, ans;
+        Integer nValue;
+        int zeroCount, valueIndex;
+        boolean reset, isMinus, allowed, isVisible;
+        private List<Double> numbers;
+        private List<String> operators;
+        private boolean listsShared = true;
+        final TextBuffer calc, display;
+        String holderText, xText, yText, zText, equationText, variableText;
+        Layout layout;
+        boolean advanced, formatted;
+        RangeRequest pending;
+        long answerCount;
+
+        Builder(CalculatorState s) {
+            operator = s.operator; equation = s.equation;
+            A = s.A; B = s.B; C = s.C; D = s.D;
+            firstValue = s.firstValue; secondValue = s.secondValue;
+            thirdValue = s.thirdValue; fourthValue = s.fourthValue;
+            firstDoubleValue = s.firstDoubleValue; secondDoubleValue = s.secondDoubleValue;
+            thirdDoubleValue = s.thirdDoubleValue; fourthDoubleValue = s.fourthDoubleValue;
+            ans = s.ans; nValue = s.nValue;
+            zeroCount = s.zeroCount; valueIndex = s.valueIndex;
+            reset = s.reset; isMinus = s.isMinus; allowed = s.allowed; isVisible = s.isVisible;
+            numbers = s.numbers; operators = s.operators;
+            calc = new TextBuffer(s.calcText); display = new TextBuffer(s.displayText); holderText = s.holderText;
+            xText = s.xText; yText = s.yText; zText = s.zText;
+            equationText = s.equationText; variableText = s.variableText;
+            layout = s.layout; advanced = s.advanced; formatted = s.formatted;
+            pending = s.pending; answerCount = s.answerCount;
+        }
+
+        CalculatorState build() {
+            return new CalculatorState(operator, equation, A, B, C, D, firstValue, secondValue, thirdValue, fourthValue,
+                    firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue, ans, nValue,
+                    zeroCount, valueIndex, reset, isMinus, allowed, isVisible, numbers, operators,
+                    calc.text(), display.text(), holderText, xText, yText, zText, equationText, variableText,
+                    layout, advanced, formatted, pending, answerCount);
+        }
+
+        /** The number chain, copied on first change so unchanged states share it. */
+        private ArrayList<Double> numbers() {
+            unshare();
+            return (ArrayList<Double>) numbers;
+        }
+
+        private ArrayList<String> operators() {
+            unshare();
+            return (ArrayList<String>) operators;
+        }
+
+        private void unshare() {
+            if (listsShared) {
+                numbers = new ArrayList<>(numbers);
+                operators = new ArrayList<>(operators);
+                listsShared = false;
+            }
+        }
+
+        void press(String key) {
+            switch (key) {
+                case "ON" -> digit("1");
+                case "TWO" -> digit("2");
+                case "THR" -> digit("3");
+                case "FR" -> digit("4");
+                case "FV" -> digit("5");
+                case "SX" -> digit("6");
+                case "SVN" -> digit("7");
+                case "EHT" -> digit("8");
+                case "NN" -> digit("9");
+                case "ZRO" -> zero();
+                case "PRD" -> period();
+                case "DL" -> delete();
+                case "AC" -> allClear();
+                case "PM" -> plusMinus();
+                case "PLUS" -> basic("+", "+");
+                case "MN" -> basic("-", "-");
+                case "MUL" -> basic("*", "*");
+                case "DIV" -> basic("÷", "/");
+                case "FLR" -> round(Math::floor);
+                case "CEL" -> round(Math::ceil);
+                case "IT" -> integerPart();
+                case "INTD" -> binary("//", "//");
+                case "MOD" -> binary("%", "%");
+                case "FAC" -> factorial();
+                case "SQRT" -> squareRoot();
+                case "CBRT" -> cubeRoot();
+                case "NMROOT" -> {
+                    setNumRootActive();
+                    operator = "numroot";
+                }
+                case "SUM" -> range("∑", Layout.SUMMATION);
+                case "PRN" -> range("Π", Layout.NOTATION);
+                case "DSUM" -> range("∑∑", Layout.DOUBLE_SUMMATION);
+                case "DNOT" -> range("ΠΠ", Layout.DOUBLE_NOTATION);
+                case "XY" -> power("x^y", Layout.XY);
+                case "XYZ" -> power("x^y^z", Layout.XYZ);
+                case "ST" -> advanced = !advanced;
+                case "LG2" -> log("log(2)(", "log(2)(");
+                case "LGN" -> {
+                    setLogNumXActive();
+                    log("log(n)x(", "log(n)X(");
+                }
+                case "LG" -> log("log(", "log(");
+                case "A" -> variable(1, "A");
+                case "B" -> variable(2, "B");
+                case "C" -> variable(3, "C");
+                case "D" -> variable(4, "D");
+                case "a+b" -> factorials("a! + b!", "!+");
+                case "a/b" -> factorials("a! / b!", "!/");
+                case "XEY" -> equation(ADVANCED_EQUATION, "xy");
+                case "x+y" -> equation(ADVANCED_EQUATION, "x+y");
+                case "x^y" -> equation(ADVANCED_EQUATION, "x^y");
+                case "CEX" -> equation(ADVANCED_EQUATION_2, "Cx");
+                case "x+c" -> equation(ADVANCED_EQUATION_2, "x+C");
+                case "x^c" -> equation(ADVANCED_EQUATION_2, "x^C");
+                case "ANS" -> {
+                    calc.append(String.valueOf(ans));
+                    if (zeroCount == 0) display.set("ANS");
+                    else display.append("ANS");
+                    zeroCount++;
+                }
+                case "FRM" -> format();
+                case "EQU" -> equals();
+                default -> {
+                }
+            }
+        }
+
+        /* ---- text setters, as in CalculatorHelper ---- */
+
+        void setZero() {
+            calc.set("");
+            holderText = "";
+            display.set("0");
+        }
+
+        void setReset() {
+            calc.set("");
+            holderText = "";
+            display.set("");
+        }
+
+        void setMathError() {
+            calc.set("");
+            holderText = "Math Error";
+            display.set("0");
+        }
+
+        void setSyntaxError() {
+            calc.set("");
+            holderText = "Undefined";
+            display.set("0");
+        }
+
+        void setSENone() {
+            if (holderText.equals("Syntax Error") || holderText.equals("Math Error")) holderText = "";
+        }
+
+        void setXYZInactive() {
+            layout = Layout.NONE;
+            equationText = "Equation: --";
+        }
+
+        void activate(Layout active) {
+            layout = active;
+            equationText = "Equation: --";
+            if (active == Layout.DOUBLE_SUMMATION || active == Layout.DOUBLE_NOTATION) variableText = "N =";
+        }
+
+        void setLogNumXActive() {
+            setXYZInactive();
+            layout = Layout.LOG_N;
+            variableText = "n =";
+        }
+
+        void setNumRootActive() {
+            setXYZInactive();
+            layout = Layout.NUM_ROOT;
+            variableText = "x =";
+        }
+
+        /* ---- buttons ---- */
+
+        void digit(String text) {
+            if (reset) {
+                setReset();
+                reset = false;
+            }
+            if (zeroCount == 0) {
+                calc.set(text);
+                display.set(text);
+            } else {
+                calc.append(text);
+                display.append(text);
+            }
+            zeroCount++;
+            setSENone();
+            allowed = true;
+        }
+
+        void zero() {
+            if (zeroCount != 0) {
+                if (reset) {
+                    setReset();
+                    reset = false;
+                }
+                calc.append("0");
+                display.append("0");
+                setSENone();
+                zeroCount++;
+            }
+        }
+
+        void period() {
+            zeroCount++;
+            calc.append(".");
+            display.append(".");
+            setSENone();
+        }
+
+        void delete() {
+            String currentEq = calc.text();
+            String currentText = display.text();
+            String[] values = {zText, yText, xText};
+
+            if (isVisible) {
+                for (int i = 0; i < values.length; i++) {
+                    if (!values[i].isEmpty() && !values[i].equals("0")) {
+                        setField(i, values[i].substring(0, values[i].length() - 1));
+                        return;
+                    } else {
+                        setField(i, "0");
+                    }
+                }
+            } else {
+                valueIndex = (valueIndex == 1) ? 1 : valueIndex - 1;
+                zeroCount = (zeroCount == 0) ? 0 : zeroCount - 1;
+
+                if (currentText.equals("0") || currentEq.equals("0")) {
+                    return;
+                }
+                if (currentText.length() > 1 || currentEq.length() > 1) {
+                    if (zeroCount == 0) setZero();
+                    else display.set(currentText.substring(0, currentText.length() - 1));
+                    calc.set(currentEq.substring(0, currentEq.length() - 1));
+                }
+                if (zeroCount == 0) {
+                    operator = null;
+                    setZero();
+                }
+            }
+            reset = false;
+            isMinus = false;
+        }
+
+        private void setField(int i, String text) {
+            if (i == 0) zText = text;
+            else if (i == 1) yText = text;
+            else xText = text;
+        }
+
+        void allClear() {
+            pending = null;
+            operator = null;
+            zeroCount = 0;
+            firstValue = null; secondValue = null;
+            thirdValue = null; fourthValue = null;
+            firstDoubleValue = 0; secondDoubleValue = 0;
+            thirdDoubleValue = 0; fourthDoubleValue = 0;
+            valueIndex = 0;
+            A = null; B = null;
+            C = null; D = null;
+            reset = false; isMinus = false;
+            allowed = false;
+            isVisible = false;
+            setZero();
+            xText = yText = zText = "0";
+            setXYZInactive();
+            equation = "--";
+        }
+
+        void plusMinus() {
+            if (zeroCount != 0) {
+                if (isMinus) {
+                    calc.set(calc.text().substring(1));
+                    display.set(calc.text());
+                    isMinus = false;
+                } else {
+                    calc.set("-" + calc.text());
+                    display.set(calc.text());
+                    isMinus = true;
+                }
+            }
+        }
+
+        void basic(String op, String shown) {
+            try {
+                if (zeroCount == 0) return;
+                if (reset) holderText = operator == null ? "" : operator;
+                else display.append(shown);
+                reset = false;
+                isMinus = false;
+                holderText = display.text() + holderText;
+                display.set("");
+
+                operator = op;
+                numbers().add(NumberParser.parseDouble(calc.text()));
+                operators().add(op);
+                calc.set("");
+            } catch (RuntimeException error) {
+                holderText = holderText.substring(0, holderText.length() - 1);
+            }
+        }
+
+        void round(DoubleUnaryOperator rounding) {
+            try {
+                setXYZInactive();
+                double currentValue = NumberParser.parseDouble(calc.text().trim());
+                calc.set(Functions.formatString(rounding.applyAsDouble(currentValue)));
+                display.set(calc.text());
+            } catch (RuntimeException error) {
+                setMathError();
+            }
+        }
+
+        void integerPart() {
+            try {
+                setXYZInactive();
+                double currentValue = NumberParser.parseDouble(calc.text().trim());
+                calc.set(String.valueOf((int) currentValue));
+                display.set(calc.text());
+            } catch (RuntimeException error) {
+                setMathError();
+                reset = true;
+            }
+        }
+
+        void binary(String op, String shown) {
+            if (allowed) {
+                if (firstValue == null) {
+                    firstValue = calc.text();
+                } else {
+                    secondValue = calc.text();
+                }
+                calc.set("");
+                display.append(shown);
+                operator = op;
+                allowed = false;
+            }
+        }
+
+        void factorial() {
+            if (allowed) {
+                if (firstValue == null) {
+                    firstValue = calc.text();
+                }
+                calc.set("");
+                display.append("!");
+                operator = "N!";
+                allowed = false;
+            }
+        }
+
+        void squareRoot() {
+            try {
+                double currentValue = NumberParser.parseDouble(calc.text().trim());
+                if (currentValue < 0) {
+                    setMathError();
+                }
+                calc.set(Functions.formatString(Math.sqrt(currentValue)));
+            } catch (RuntimeException error) {
+                setSyntaxError();
+                return;
+            }
+            display.set(calc.text());
+        }
+
+        void cubeRoot() {
+            try {
+                double currentValue = NumberParser.parseDouble(calc.text().trim());
+                calc.set(Functions.formatString(Math.cbrt(currentValue)));
+            } catch (RuntimeException error) {
+                reset = true;
+                setSyntaxError();
+            }
+            display.set(calc.text());
+        }
+
+        void range(String op, Layout active) {
+            setXYZInactive();
+            if (isVisible) {
+                isVisible = false;
+            } else {
+                activate(active);
+                isVisible = true;
+            }
+            calc.set("");
+            operator = op;
+            valueIndex = 1;
+        }
+
+        void power(String op, Layout active) {
+            setXYZInactive();
+            if (isVisible) {
+                isVisible = false;
+            } else {
+                activate(active);
+                isVisible = true;
+            }
+            zeroCount++;
+            operator = op;
+        }
+
+        void log(String op, String shown) {
+            if (zeroCount == 0) display.set(shown);
+            else display.append(shown);
+            zeroCount++;
+            operator = op;
+            valueIndex = 1;
+        }
+
+        void variable(int index, String name) {
+            if (valueIndex != index) return;
+            if (index == 1) {
+                if (calc.text().equals("")) calc.set("0");
+                zeroCount = 1;
+            }
+            switch (index) {
+                case 1 -> A = calc.text();
+                case 2 -> B = calc.text();
+                case 3 -> C = calc.text();
+                default -> D = calc.text();
+            }
+            calc.set("");
+            valueIndex++;
+            if (zeroCount == 0) display.set(name);
+            else display.append(name);
+            zeroCount++;
+        }
+
+        void factorials(String op, String shown) {
+            if (firstValue == null) {
+                firstValue = calc.text();
+            } else {
+                secondValue = calc.text();
+            }
+            calc.set("");
+            display.append(zeroCount <= 2 ? shown : "!");
+            zeroCount++;
+            operator = op;
+        }
+
+        void equation(Set<String> supported, String chosen) {
+            if (supported.contains(operator)) {
+                equation = chosen;
+                equationText = "Equation: " + equation;
+            }
+        }
+
+        void format() {
+            // DecimalFormat is not thread-safe; one per press keeps reduce safe to run in parallel.
+            NumberFormat formatter = new DecimalFormat("#,###");
+            try {
+                if (formatted) {
+                    display.set(String.valueOf(formatter.parse(display.text())));
+                    formatted = false;
+                } else {
+                    display.set(formatter.format(NumberParser.parseDouble(display.text())));
+                    formatted = true;
+                }
+            } catch (Exception e) {
+                // leave the display as it is
+            }
+        }
+
+        void equals() {
+            try {
+                if (operator == null || pending != null) return;
+
+                String currentText = calc.text();
+
+                if ("∑".equals(operator) || "Π".equals(operator)) {
+                    firstValue = A;
+                    secondValue = B;
+                    thirdValue = C;
+                } else if ("∑∑".equals(operator) || "ΠΠ".equals(operator)) {
+                    nValue = Integer.parseInt(xText);
+                    firstValue = A;
+                    secondValue = B;
+                    thirdValue = C;
+                    fourthValue = D;
+                } else if ("log(2)(".equals(operator) || "log(".equals(operator)) {
+                    firstValue = calc.text();
+                } else if ("log(n)x(".equals(operator)) {
+                    firstValue = xText;
+                    secondValue = calc.text();
+                }
+
+                if (firstValue == null && !currentText.isEmpty()) {
+                    firstValue = currentText;
+                }
+
+                if (firstValue != null) firstDoubleValue = NumberParser.parseDouble(firstValue);
+                if (secondValue != null) secondDoubleValue = NumberParser.parseDouble(secondValue);
+                if (thirdValue != null) thirdDoubleValue = NumberParser.parseDouble(thirdValue);
+                if (fourthValue != null) fourthDoubleValue = NumberParser.parseDouble(fourthValue);
+
+                double answer;
+                switch (operator) {
+                    case "∑", "∑∑", "Π", "ΠΠ" -> {
+                        pending = new RangeRequest(operator, equation, nValue == null ? 0 : nValue,
+                                firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue);
+                        return;
+                    }
+                    case "N!" -> {
+                        if (firstDoubleValue < 0) {
+                            setMathError();
+                            holderText = "Undefined";
+                            return;
+                        }
+                        answer = Functions.factorial((int) firstDoubleValue);
+                    }
+                    case "a! + b!" -> answer = Functions.sumFactorial(firstDoubleValue, secondDoubleValue);
+                    case "a! / b!" -> answer = Functions.divideFactorial(firstDoubleValue, secondDoubleValue);
+                    case "log(2)(" -> answer = Math.log(firstDoubleValue) / Math.log(2);
+                    case "log(" -> answer = Math.log(firstDoubleValue);
+                    case "log(n)x(" -> answer = Math.log(secondDoubleValue) / Math.log(firstDoubleValue);
+                    case "x^y^z" -> {
+                        double x = NumberParser.parseDouble(xText);
+                        double y = NumberParser.parseDouble(yText);
+                        double z = NumberParser.parseDouble(zText);
+                        answer = Math.pow(x, Math.pow(y, z));
+                    }
+                    default -> {
+                        if (BASIC_EQUATION.contains(operator)) {
+                            if (!calc.text().isEmpty()) numbers().add(NumberParser.parseDouble(calc.text()));
+                            answer = Functions.calculateResult(numbers(), operators());
+                        } else {
+                            if ("x^y".equals(operator)) {
+                                firstDoubleValue = NumberParser.parseDouble(xText);
+                                secondDoubleValue = NumberParser.parseDouble(yText);
+                            } else if ("numroot".equals(operator)) {
+                                firstDoubleValue = NumberParser.parseDouble(xText);
+                                secondDoubleValue = NumberParser.parseDouble(currentText);
+                            } else {
+                                secondDoubleValue = NumberParser.parseDouble(currentText);
+                            }
+                            answer = Functions.basicCalculation(operator, firstDoubleValue, secondDoubleValue);
+                        }
+                    }
+                }
+
+                showAnswer(answer);
+            } catch (RuntimeException ex) {
+                setSyntaxError();
+            }
+        }
+
+        void showAnswer(double answer) {
+            String formattedAnswer = Functions.formatString(answer);
+            setXYZInactive();
+
+            if (BASIC_EQUATION.contains(operator))
+                holderText = holderText + calc.text();
+            else
+                holderText = display.text();
+
+            ans = answer;
+            calc.set(formattedAnswer);
+            display.set(formattedAnswer);
+
+            reset = true;
+            isVisible = false;
+            numbers().clear();
+            operators().clear();
+            firstValue = secondValue = thirdValue = fourthValue = null;
+            answerCount++;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package calculator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ProgressMonitor} that stops a kernel when it is cancelled, when its deadline
+ * passes or when the running thread is interrupted.
+ * <p>
+ * The kernels only look at the token every {@link Functions#CHECK_INTERVAL} iterations,
+ * so a check costs one volatile read and one {@link System#nanoTime()} call per few
+ * thousand iterations. A stopped kernel returns the value it had accumulated so far;
+ * {@link #evaluate} wraps that in a {@link Result} with the reason it stopped.
+ * A token is meant for one request and is not reset.
+ */
+public final class CancellationToken implements ProgressMonitor {
+
+    public enum Status { COMPLETED, CANCELLED, TIMED_OUT }
+
+    /** Outcome of {@link #evaluate}; value is a partial result unless status is COMPLETED. */
+    public record Result(Status status, double value, double fraction) {
+        public boolean isPartial() {
+            return status != Status.COMPLETED;
+        }
+    }
+
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+    private volatile Status stopped;
+    private volatile double fraction;
+
+    public CancellationToken() {
+        this(0, false);
+    }
+
+    private CancellationToken(long deadline, boolean hasDeadline) {
+        this.deadline = deadline;
+        this.hasDeadline = hasDeadline;
+    }
+
+    /** A token that times out once timeout has elapsed from now. */
+    public static CancellationToken withTimeout(long timeout, TimeUnit unit) {
+        return new CancellationToken(System.nanoTime() + unit.toNanos(timeout), true);
+    }
+
+    /** A token that times out at the given {@link System#nanoTime()} value. */
+    public static CancellationToken withDeadline(long deadlineNanos) {
+        return new CancellationToken(deadlineNanos, true);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** COMPLETED until a checkpoint has stopped a kernel, then the reason it stopped. */
+    public Status status() {
+        Status status = stopped;
+        return status == null ? Status.COMPLETED : status;
+    }
+
+    /** Progress reported at the last checkpoint. */
+    public double fraction() {
+        return fraction;
+    }
+
+    @Override
+    public boolean checkpoint(double fraction) {
+        this.fraction = fraction;
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            stopped = Status.CANCELLED;
+            return false;
+        }
+        if (hasDeadline && System.nanoTime() - deadline >= 0) {
+            stopped = Status.TIMED_OUT;
+            return false;
+        }
+        return true;
+    }
+
+    /** Runs one evaluation under this token. */
+    public Result evaluate(Evaluator evaluator, String operator, String equation, int nValue,
+                           double firstValue, double secondValue, double thirdValue, double fourthValue) {
+        double value = evaluator.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, this);
+        Status status = status();
+        return new Result(status, value, status == Status.COMPLETED ? 1.0 : fraction);
+    }
+}
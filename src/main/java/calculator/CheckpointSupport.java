@@ -0,0 +1,65 @@
+package calculator;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Checkpoint/restore (CRaC) for startup, when the JVM offers it.
+ * <p>
+ * With {@code -Dcalculator.checkpoint=true}, {@link Main} runs {@link Warmup#model()}, then
+ * calls {@link #checkpointRestore()} before it touches AWT. Under
+ * {@code -XX:CRaCCheckpointTo=dir} the JVM saves itself there and exits; starting it again
+ * with {@code -XX:CRaCRestoreFrom=dir} resumes from the same call, with the model classes
+ * warm. Main then decodes the pictures and builds the window from scratch. The toolkit,
+ * display connection, screen-compatible images and button sprites are always made after the
+ * restore, because a display socket cannot be checkpointed and its screen may have changed.
+ * <p>
+ * The CRaC API is looked up by reflection ({@code jdk.crac} on CRaC JDKs, otherwise the
+ * {@code org.crac} facade), so the calculator needs neither at build time. On any other JVM
+ * this does nothing.
+ */
+public final class CheckpointSupport {
+
+    private static final String[] CORES = {"jdk.crac.Core", "org.crac.Core"};
+
+    private CheckpointSupport() {
+    }
+
+    /** True when a CRaC API can be found. That does not mean the JVM was started with CRaC enabled. */
+    public static boolean available() {
+        return core() != null;
+    }
+
+    /**
+     * Takes a checkpoint and returns once this process (or a restored copy of it) carries on.
+     * Returns true after a restore; false when there is no CRaC or the checkpoint failed, in
+     * which case startup simply continues cold.
+     */
+    public static boolean checkpointRestore() {
+        Class<?> core = core();
+        if (core == null) {
+            System.err.println("Checkpoint/restore is not available on this JVM; starting normally.");
+            return false;
+        }
+        try {
+            core.getMethod("checkpointRestore").invoke(null);
+            return true;
+        } catch (InvocationTargetException e) {
+            System.err.println("Could not checkpoint: " + e.getCause());
+            return false;
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Could not checkpoint: " + e);
+            return false;
+        }
+    }
+
+    private static Class<?> core() {
+        for (String name : CORES) {
+            try {
+                return Class.forName(name);
+            } catch (ClassNotFoundException | LinkageError e) {
+                // try the next one
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,207 @@
+package calculator;
+
+import java.math.BigInteger;
+
+/**
+ * Shortcuts for the range operators that give the loop's answer without running the loop.
+ * <p>
+ * {@link #exact} reproduces the kernels bit for bit. The kernels accumulate in a long and
+ * wrap on overflow, so the sums are evaluated with BigInteger and reduced the same way.
+ * Products of 128 or more consecutive integers contain at least 64 factors of two, so the
+ * wrapped product is 0. That covers every product kernel except the ones built on Math.pow.
+ * <p>
+ * {@link #approximate} covers the Math.pow kernels. It uses Euler–Maclaurin for sums and
+ * log space for products. Its results are estimates.
+ */
+final class ClosedForms {
+
+    /** Consecutive factors after which a wrapped long product is always 0. */
+    private static final long ZERO_PRODUCT_RUN = 128;
+    /** Smallest n whose factorial is 0 modulo 2^64. */
+    private static final long ZERO_FACTORIAL = 66;
+    private static final double LOG_2PI = Math.log(2 * Math.PI);
+
+    private ClosedForms() {
+    }
+
+    /** True when {@link #exact} can answer the request. */
+    static boolean applies(String operator, String equation, int nValue, double first, double second, double third, double fourth) {
+        switch (operator) {
+            case "∑":
+                return !"x^C".equals(equation) || count(first, second) == 0;
+            case "∑∑":
+                return !"x^y".equals(equation) || count(first, second) == 0 || count(third, fourth) == 0;
+            case "Π": {
+                long count = count(first, second);
+                if (count == 0) return true;
+                long constant = (long) third;
+                switch (equation) {
+                    case "x^C":
+                        return false;
+                    case "Cx":
+                    case "x+C":
+                        return count >= ZERO_PRODUCT_RUN;
+                    default:
+                        return constant != 0 && constant != 1 || count >= ZERO_PRODUCT_RUN;
+                }
+            }
+            case "ΠΠ": {
+                long rows = count(first, second), columns = count(third, fourth);
+                if (rows == 0 || columns == 0) return true;
+                switch (equation) {
+                    case "x^y":
+                        return false;
+                    case "x+y":
+                        return columns >= ZERO_PRODUCT_RUN || rows >= ZERO_PRODUCT_RUN && (multiplier(nValue) & 1) != 0;
+                    default:
+                        return columns >= ZERO_PRODUCT_RUN || rows >= ZERO_PRODUCT_RUN;
+                }
+            }
+            case "N!":
+            case "a! + b!":
+            case "a! / b!":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /** The value the kernel would return; only valid when {@link #applies} is true. */
+    static long exact(String operator, String equation, int nValue, double first, double second, double third, double fourth) {
+        switch (operator) {
+            case "∑": {
+                if (count(first, second) == 0) return 0;
+                BigInteger sum = rangeSum(first, second);
+                BigInteger count = BigInteger.valueOf(count(first, second));
+                BigInteger constant = BigInteger.valueOf((long) third);
+                switch (equation) {
+                    case "Cx":
+                        return constant.multiply(sum).longValue();
+                    case "x+C":
+                        return sum.add(count.multiply(constant)).longValue();
+                    default:
+                        long c = (long) third;
+                        return (c == 0 || c == 1) ? sum.longValue() : count.multiply(constant).longValue();
+                }
+            }
+            case "∑∑": {
+                if (count(first, second) == 0 || count(third, fourth) == 0) return 0;
+                BigInteger rows = rangeSum(first, second), columns = rangeSum(third, fourth);
+                BigInteger multiplier = BigInteger.valueOf(multiplier(nValue));
+                switch (equation) {
+                    case "xy":
+                        return multiplier.multiply(rows).multiply(columns).longValue();
+                    case "x+y":
+                        return multiplier.multiply(rows).multiply(BigInteger.valueOf(count(third, fourth)))
+                                .add(BigInteger.valueOf(count(first, second)).multiply(columns)).longValue();
+                    default:
+                        return rows.multiply(columns).longValue();
+                }
+            }
+            case "Π": {
+                long count = count(first, second);
+                long constant = (long) third;
+                if (count == 0) return 1;
+                if (!"Cx".equals(equation) && !"x+C".equals(equation) && constant != 0 && constant != 1) {
+                    return power(constant, count);
+                }
+                return 0;
+            }
+            case "ΠΠ":
+                return (count(first, second) == 0 || count(third, fourth) == 0) ? 1 : 0;
+            case "N!":
+                return factorial(first);
+            case "a! + b!":
+                return factorial(first) + factorial(second);
+            case "a! / b!":
+                return factorial(first) / factorial(second);
+            default:
+                throw new IllegalArgumentException("No closed form for " + operator);
+        }
+    }
+
+    /** True when {@link #approximate} can estimate the request. */
+    static boolean approximable(String operator, String equation, int nValue, double first, double second, double third, double fourth) {
+        switch (operator) {
+            case "∑":
+            case "Π":
+                return "x^C".equals(equation) && first >= 1 && third >= 0;
+            case "ΠΠ":
+                return "x^y".equals(equation) && multiplier(nValue) >= 1 && first >= 1 && third >= 0;
+            default:
+                return false;
+        }
+    }
+
+    /** An estimate of the kernel's result, saturated to the long range like the kernel. */
+    static long approximate(String operator, String equation, int nValue, double first, double second, double third, double fourth) {
+        long start = (long) first, end = (long) second;
+        if (end < start) {
+            return "∑".equals(operator) ? 0 : 1;
+        }
+        switch (operator) {
+            case "∑": {
+                double c = (long) third;
+                double integral = (Math.pow(end, c + 1) - Math.pow(start, c + 1)) / (c + 1);
+                return (long) (integral + (Math.pow(start, c) + Math.pow(end, c)) / 2);
+            }
+            case "Π":
+                return (long) Math.exp((long) third * (logFactorial(end) - logFactorial(start - 1)));
+            case "ΠΠ": {
+                long jstart = (long) third, jend = (long) fourth;
+                if (jend < jstart) return 1;
+                double rows = end - start + 1.0, columns = jend - jstart + 1.0;
+                double exponentSum = (jstart + (double) jend) * columns / 2;
+                return (long) Math.exp(rows * columns * Math.log(multiplier(nValue))
+                        + exponentSum * (logFactorial(end) - logFactorial(start - 1)));
+            }
+            default:
+                throw new IllegalArgumentException("No approximation for " + operator);
+        }
+    }
+
+    /** Number of loop iterations over start..end, as the kernels cast them. */
+    static long count(double first, double second) {
+        long start = (long) first, end = (long) second;
+        if (end < start) return 0;
+        long count = end - start + 1;
+        return count <= 0 ? Long.MAX_VALUE : count;
+    }
+
+    private static int multiplier(int nValue) {
+        return nValue == 0 ? 1 : nValue;
+    }
+
+    private static BigInteger rangeSum(double first, double second) {
+        long start = (long) first, end = (long) second;
+        if (end < start) return BigInteger.ZERO;
+        BigInteger low = BigInteger.valueOf(start), high = BigInteger.valueOf(end);
+        return low.add(high).multiply(high.subtract(low).add(BigInteger.ONE)).shiftRight(1);
+    }
+
+    /** base^exponent with the same wrap-around as repeated long multiplication. */
+    private static long power(long base, long exponent) {
+        long result = 1;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) result *= base;
+            base *= base;
+            exponent >>>= 1;
+        }
+        return result;
+    }
+
+    private static long factorial(double value) {
+        return value >= ZERO_FACTORIAL ? 0 : Functions.factorial(value);
+    }
+
+    private static double logFactorial(long n) {
+        if (n < 2) return 0;
+        if (n < 256) {
+            double sum = 0;
+            for (int i = 2; i <= n; i++) sum += Math.log(i);
+            return sum;
+        }
+        // Stirling's series; the next term is below 1e-10 for n >= 256.
+        return n * Math.log(n) - n + 0.5 * (LOG_2PI + Math.log(n)) + 1.0 / (12.0 * n);
+    }
+}
@@ -0,0 +1,49 @@
+package calculator;
+
+/**
+ * Predicts how much work a request is before it runs, from its range bounds and equation.
+ * Iteration counts saturate at Long.MAX_VALUE.
+ */
+public final class CostEstimator {
+
+    /**
+     * @param iterations loop iterations the kernel would run
+     * @param closedForm true when {@link ClosedForms} can give the exact answer without the loop
+     */
+    public record Cost(long iterations, boolean closedForm) {
+    }
+
+    private CostEstimator() {
+    }
+
+    public static Cost estimate(String operator, String equation, int nValue, double first, double second, double third, double fourth) {
+        boolean closedForm = ClosedForms.applies(operator, equation, nValue, first, second, third, fourth);
+        return new Cost(iterations(operator, first, second, third, fourth), closedForm);
+    }
+
+    public static long iterations(String operator, double first, double second, double third, double fourth) {
+        switch (operator) {
+            case "∑":
+            case "Π":
+                return ClosedForms.count(first, second);
+            case "∑∑":
+            case "ΠΠ": {
+                long rows = ClosedForms.count(first, second), columns = ClosedForms.count(third, fourth);
+                if (rows == 0 || columns == 0) return 0;
+                return rows > Long.MAX_VALUE / columns ? Long.MAX_VALUE : rows * columns;
+            }
+            case "N!":
+                return factorialIterations(first);
+            case "a! + b!":
+            case "a! / b!":
+                long sum = factorialIterations(first) + factorialIterations(second);
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            default:
+                return 1;
+        }
+    }
+
+    private static long factorialIterations(double value) {
+        return value < 2 ? 1 : (long) value - 1;
+    }
+}
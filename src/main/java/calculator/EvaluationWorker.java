@@ -0,0 +1,56 @@
+package calculator;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+import java.util.function.ToLongFunction;
+import javax.swing.SwingWorker;
+
+/**
+ * Runs one range kernel on a background thread for {@link Main}.
+ * <p>
+ * The kernel's {@link ProgressMonitor} checkpoints feed {@link #setProgress}, which Swing
+ * coalesces, so the callbacks get at most one update per percent no matter how often the
+ * kernel checks in. All callbacks run on the event thread. A cancelled worker calls none of
+ * them; the kernel stops at its next checkpoint.
+ */
+class EvaluationWorker extends SwingWorker<Long, Void> {
+
+    private final ToLongFunction<ProgressMonitor> kernel;
+    private final LongConsumer onResult;
+    private final Runnable onFailure;
+
+    EvaluationWorker(ToLongFunction<ProgressMonitor> kernel, IntConsumer onProgress,
+                     LongConsumer onResult, Runnable onFailure) {
+        this.kernel = kernel;
+        this.onResult = onResult;
+        this.onFailure = onFailure;
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName()) && !isDone()) {
+                onProgress.accept((Integer) event.getNewValue());
+            }
+        });
+    }
+
+    @Override
+    protected Long doInBackground() {
+        return kernel.applyAsLong(fraction -> {
+            if (isCancelled()) return false;
+            setProgress((int) Math.min(99, fraction * 100));
+            return true;
+        });
+    }
+
+    @Override
+    protected void done() {
+        if (isCancelled()) return;
+        long answer;
+        try {
+            answer = get();
+        } catch (InterruptedException | ExecutionException e) {
+            onFailure.run();
+            return;
+        }
+        onResult.accept(answer);
+    }
+}
@@ -0,0 +1,45 @@
+package calculator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A headless evaluation engine with the same shape as {@link Functions#evaluate}.
+ * Caches, admission control and other wrappers implement it around a delegate.
+ * <p>
+ * The monitor is handed to the range kernels so callers can watch or stop long
+ * evaluations; see {@link CancellationToken}. Wrappers must pass it on to their delegate.
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+    Evaluator FUNCTIONS = Functions::evaluate;
+
+    /** Default size of the file behind calculator.cache.file. */
+    long DEFAULT_PERSISTENT_CACHE_BYTES = 256L << 20;
+
+    /**
+     * The stack the command-line entry points run on, outermost first: a {@link ResultCache};
+     * then, when admission is true, {@link AdmissionController#fromSystemProperties}; a
+     * {@link PersistentResultCache} when calculator.cache.file names a file (sized by
+     * calculator.cache.bytes); then {@link #FUNCTIONS}. The file sits below admission so it
+     * only ever holds exact kernel results, never a DOWNGRADE estimate.
+     */
+    static Evaluator configured(boolean admission) throws IOException {
+        Evaluator evaluator = FUNCTIONS;
+        String cacheFile = System.getProperty("calculator.cache.file");
+        if (cacheFile != null && !cacheFile.isEmpty()) {
+            long bytes = Long.getLong("calculator.cache.bytes", DEFAULT_PERSISTENT_CACHE_BYTES);
+            evaluator = new PersistentResultCache(Path.of(cacheFile), bytes, evaluator);
+        }
+        if (admission) evaluator = AdmissionController.fromSystemProperties(evaluator);
+        return new ResultCache(evaluator, ResultCache.DEFAULT_CAPACITY);
+    }
+
+    double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue,
+                    ProgressMonitor monitor);
+
+    default double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue) {
+        return evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, ProgressMonitor.NONE);
+    }
+}
@@ -12,7 +12,9 @@ public class Functions {
             Answer = 1;
         } else {
             Answer = 1;
-            for (int i = 2; i <= firstValue; i++) {
+            // From 66! on the product has 64 factors of two and stays 0, so stop there
+            // rather than letting i wrap around on huge inputs and loop forever.
+            for (int i = 2; i <= firstValue && Answer != 0; i++) {
                 Answer *= i;
             }
         }
@@ -27,28 +29,44 @@ public class Functions {
         return Functions.factorial(firstValue) / Functions.factorial(secondValue);
     }
 
+    /** Iterations between two {@link ProgressMonitor} checkpoints; must be a power of two. */
+    public static final int CHECK_INTERVAL = 4096;
+    private static final int CHECK_MASK = CHECK_INTERVAL - 1;
+
+    private static double fraction(long done, long start, long end) {
+        return done / ((double) end - (double) start + 1);
+    }
+
     public static long summation(String equation, double firstValue, double secondValue, double thirdValue) {
+        return summation(equation, firstValue, secondValue, thirdValue, ProgressMonitor.NONE);
+    }
+
+    public static long summation(String equation, double firstValue, double secondValue, double thirdValue, ProgressMonitor monitor) {
         long start = (long) firstValue;
         long end = (long) secondValue;
         long constant = (long) thirdValue;
         long sum = 0;
+        long done = 0;
 
         switch(equation) {
             case "Cx":
                 for (long n = start; n <= end; n++) {
                     sum += constant * n;
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
             case "x+C":
                 for (long n = start; n <= end; n++) {
                     sum += n + constant;
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
             case "x^C":
                 for (long n = start; n <= end; n++) {
                     sum += Math.pow(n, constant);
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
@@ -56,10 +74,12 @@ public class Functions {
                 if (constant == 0 || constant == 1) {
                     for (long n = start; n <= end; n++) {
                         sum += n;
+                        if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                     }
                 } else {
                     for (long n = start; n <= end; n++) {
                         sum +=constant;
+                        if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                     }
                 }
         }
@@ -67,11 +87,19 @@ public class Functions {
     }
 
     public static long doubleSummation(int nValue, String equation, double firstValue, double secondValue, double thirdValue, double fourthValue) {
+        return doubleSummation(nValue, equation, firstValue, secondValue, thirdValue, fourthValue, ProgressMonitor.NONE);
+    }
+
+    public static long doubleSummation(int nValue, String equation, double firstValue, double secondValue, double thirdValue, double fourthValue, ProgressMonitor monitor) {
         long start = (long) firstValue;
         long end = (long) secondValue;
         long jstart = (long) thirdValue;
         long jend = (long) fourthValue;
         long sum = 0;
+        long done = 0;
+        double total = ((double) end - start + 1) * ((double) jend - jstart + 1);
+        // Every outer step would do nothing, and the checkpoint lives in the inner loop.
+        if (jstart > jend) return sum;
 
         nValue = (nValue == 0) ? 1 : nValue;
 
@@ -90,33 +118,42 @@ public class Functions {
                     default:
                         sum += n * j;
                 }
+                if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(done / total)) return sum;
             }
         }
         return sum;
     }
 
     public static long prodnot(String equation, double firstValue, double secondValue, double thirdValue) {
+        return prodnot(equation, firstValue, secondValue, thirdValue, ProgressMonitor.NONE);
+    }
+
+    public static long prodnot(String equation, double firstValue, double secondValue, double thirdValue, ProgressMonitor monitor) {
         long start = (long) firstValue;
         long end = (long) secondValue;
         long constant = (long) thirdValue;
         long sum = 1;
+        long done = 0;
 
         switch(equation) {
             case "Cx":
                 for (long n = start; n <= end; n++) {
                     sum *= constant * n;
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
             case "x+C":
                 for (long n = start; n <= end; n++) {
                     sum *= n + constant;
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
             case "x^C":
                 for (long n = start; n <= end; n++) {
                     sum *= Math.pow(n, constant);
+                    if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                 }
                 break;
 
@@ -124,10 +161,12 @@ public class Functions {
                 if (constant == 0 || constant == 1) {
                     for (long n = start; n <= end; n++) {
                         sum *= n;
+                        if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                     }
                 } else {
                     for (long n = start; n <= end; n++) {
                         sum *= constant;
+                        if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(fraction(done, start, end))) return sum;
                     }
                 }
         }
@@ -136,11 +175,19 @@ public class Functions {
     }
 
     public static long doubleProdNot(int nValue, String equation, double firstValue, double secondValue, double thirdValue, double fourthValue) {
+        return doubleProdNot(nValue, equation, firstValue, secondValue, thirdValue, fourthValue, ProgressMonitor.NONE);
+    }
+
+    public static long doubleProdNot(int nValue, String equation, double firstValue, double secondValue, double thirdValue, double fourthValue, ProgressMonitor monitor) {
         long start = (long) firstValue;
         long end = (long) secondValue;
         long jstart = (long) thirdValue;
         long jend = (long) fourthValue;
         long sum = 1;
+        long done = 0;
+        double total = ((double) end - start + 1) * ((double) jend - jstart + 1);
+        // Every outer step would do nothing, and the checkpoint lives in the inner loop.
+        if (jstart > jend) return sum;
 
         nValue = (nValue == 0) ? 1 : nValue;
 
@@ -159,6 +206,7 @@ public class Functions {
                     default:
                         sum *= n * j;
                 }
+                if ((++done & CHECK_MASK) == 0 && !monitor.checkpoint(done / total)) return sum;
             }
         }
         return sum;
@@ -205,6 +253,78 @@ public class Functions {
         }
         return result;
     }
+    /**
+     * Headless counterpart of the "=" button: dispatches one operator with its operands.
+     * For ∑/Π the operands are start, end and constant; ∑∑/ΠΠ also take the end pair
+     * in third/fourth and the multiplier in nValue.
+     */
+    public static double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue) {
+        return evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, ProgressMonitor.NONE);
+    }
+
+    /** Same as above; the range operators report to monitor and stop when it says so. */
+    public static double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue,
+                                  ProgressMonitor monitor) {
+        switch (operator) {
+            case "∑":
+                return summation(equation, firstValue, secondValue, thirdValue, monitor);
+            case "∑∑":
+                return doubleSummation(nValue, equation, firstValue, secondValue, thirdValue, fourthValue, monitor);
+            case "Π":
+                return prodnot(equation, firstValue, secondValue, thirdValue, monitor);
+            case "ΠΠ":
+                return doubleProdNot(nValue, equation, firstValue, secondValue, thirdValue, fourthValue, monitor);
+            case "N!":
+                return factorial((int) firstValue);
+            case "a! + b!":
+                return sumFactorial(firstValue, secondValue);
+            case "a! / b!":
+                return divideFactorial(firstValue, secondValue);
+            case "log(2)(":
+                return Math.log(firstValue) / Math.log(2);
+            case "log(":
+                return Math.log(firstValue);
+            case "log(n)x(":
+                return Math.log(secondValue) / Math.log(firstValue);
+            case "x^y^z":
+                return Math.pow(firstValue, Math.pow(secondValue, thirdValue));
+            case "+":
+                return firstValue + secondValue;
+            case "-":
+                return firstValue - secondValue;
+            case "*":
+                return firstValue * secondValue;
+            case "÷":
+                return firstValue / secondValue;
+            case "//":
+            case "%":
+            case "x^y":
+            case "numroot":
+                return basicCalculation(operator, firstValue, secondValue);
+            default:
+                throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+    }
+
+    /** Number of operands {@link #evaluate} reads for an operator, counting nValue for ∑∑/ΠΠ. */
+    public static int operandCount(String operator) {
+        switch (operator) {
+            case "∑∑":
+            case "ΠΠ":
+                return 5;
+            case "∑":
+            case "Π":
+            case "x^y^z":
+                return 3;
+            case "N!":
+            case "log(2)(":
+            case "log(":
+                return 1;
+            default:
+                return 2;
+        }
+    }
+
     public static String formatString(double Answer) {
         String formattedAnswer;
         if (Answer % 1 == 0) {
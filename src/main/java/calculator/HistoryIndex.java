@@ -0,0 +1,344 @@
+package calculator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Secondary indexes over a {@link CalculationHistory}: by result value, by time, by operator
+ * (then time) and by expression prefix. Every query returns record offsets, which
+ * {@link CalculationHistory#read} turns into entries.
+ * <p>
+ * Each index is a short sorted tail plus a few sorted primitive runs of doubling size. New
+ * entries go into the tail, and once it holds {@value #TAIL_LIMIT} entries it is merged
+ * upwards like a binary counter, so adding n entries costs O(n log n) in all. A query
+ * binary-searches the tail and each run, so it costs O(log² n) plus the size of its answer.
+ * Building the index is deferred to the first query. After that, every query first picks
+ * up whatever was appended since the last one, so the index follows the log without
+ * rescanning it.
+ * <p>
+ * Usage: {@code HistoryIndex [--file path] [--value min max] [--since ms] [--until ms]
+ * [--operator op] [--prefix text]}
+ */
+public class HistoryIndex {
+
+    static final int TAIL_LIMIT = 512;
+    /** Enough runs for TAIL_LIMIT &lt;&lt; RUNS pairs, far past what an int-indexed run can hold. */
+    private static final int RUNS = 24;
+
+    private final CalculationHistory history;
+    private final LongKeyIndex byValue = new LongKeyIndex();
+    private final LongKeyIndex byTime = new LongKeyIndex();
+    private final LongKeyIndex[] byOperator = new LongKeyIndex[RpcProtocol.OPERATORS.length];
+    private final StringKeyIndex byExpression = new StringKeyIndex();
+    private long next = CalculationHistory.start();
+    private int size;
+
+    public HistoryIndex(CalculationHistory history) {
+        this.history = history;
+        for (int i = 0; i < byOperator.length; i++) {
+            byOperator[i] = new LongKeyIndex();
+        }
+    }
+
+    /** Indexes records appended since the last call. */
+    public synchronized void refresh() {
+        next = history.scan(next, (offset, timestamp, opcode, result) -> {
+            byValue.add(sortableBits(result), offset);
+            byTime.add(timestamp, offset);
+            byOperator[opcode].add(timestamp, offset);
+            byExpression.add(history.expression(offset), offset);
+            size++;
+        });
+    }
+
+    public synchronized int size() {
+        refresh();
+        return size;
+    }
+
+    /** Records with min &lt;= result &lt;= max, in ascending result order. */
+    public synchronized long[] byValue(double min, double max) {
+        refresh();
+        return byValue.range(sortableBits(min), sortableBits(max));
+    }
+
+    /** Records with from &lt;= timestamp &lt;= to (epoch milliseconds), oldest first. */
+    public synchronized long[] byTime(long from, long to) {
+        refresh();
+        return byTime.range(from, to);
+    }
+
+    /** Records for operator, oldest first. */
+    public long[] byOperator(String operator) {
+        return byOperator(operator, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /** Records for operator within a time window, oldest first. */
+    public synchronized long[] byOperator(String operator, long from, long to) {
+        refresh();
+        return byOperator[RpcProtocol.opcodeOrZero(operator)].range(from, to);
+    }
+
+    /** Records whose expression starts with prefix, in expression order. */
+    public synchronized long[] byExpressionPrefix(String prefix) {
+        refresh();
+        return byExpression.prefix(prefix);
+    }
+
+    /** Maps a double to a long with the same ordering, NaN last. -0.0 and 0.0 are one key. */
+    static long sortableBits(double value) {
+        long bits = Double.doubleToLongBits(value == 0 ? 0.0 : value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Sorted (key, offset) pairs: a tail of at most TAIL_LIMIT plus runs sized like the
+     * digits of a binary counter. Run i is empty or holds TAIL_LIMIT &lt;&lt; i pairs. A full
+     * tail is carried up, merging with each occupied run on the way, so every pair is copied
+     * O(log n) times in all. Higher runs are older; among equal keys the older pair comes first.
+     */
+    private static final class LongKeyIndex {
+        private final long[][] runKeys = new long[RUNS][];
+        private final long[][] runOffsets = new long[RUNS][];
+        private final long[] tailKeys = new long[TAIL_LIMIT];
+        private final long[] tailOffsets = new long[TAIL_LIMIT];
+        private int tailSize;
+
+        void add(long key, long offset) {
+            // Keys mostly arrive in order (timestamps), so the insertion point is usually the end.
+            int at = tailSize;
+            while (at > 0 && tailKeys[at - 1] > key) {
+                tailKeys[at] = tailKeys[at - 1];
+                tailOffsets[at] = tailOffsets[at - 1];
+                at--;
+            }
+            tailKeys[at] = key;
+            tailOffsets[at] = offset;
+            if (++tailSize == TAIL_LIMIT) {
+                carry();
+            }
+        }
+
+        private void carry() {
+            long[] keys = tailKeys.clone();
+            long[] offsets = tailOffsets.clone();
+            tailSize = 0;
+            int run = 0;
+            for (; runKeys[run] != null; run++) {
+                long[] olderKeys = runKeys[run], olderOffsets = runOffsets[run];
+                long[] mergedKeys = new long[olderKeys.length + keys.length];
+                long[] mergedOffsets = new long[mergedKeys.length];
+                int i = 0, j = 0, k = 0;
+                while (i < olderKeys.length || j < keys.length) {
+                    if (j == keys.length || i < olderKeys.length && olderKeys[i] <= keys[j]) {
+                        mergedKeys[k] = olderKeys[i];
+                        mergedOffsets[k++] = olderOffsets[i++];
+                    } else {
+                        mergedKeys[k] = keys[j];
+                        mergedOffsets[k++] = offsets[j++];
+                    }
+                }
+                runKeys[run] = null;
+                runOffsets[run] = null;
+                keys = mergedKeys;
+                offsets = mergedOffsets;
+            }
+            runKeys[run] = keys;
+            runOffsets[run] = offsets;
+        }
+
+        long[] range(long min, long max) {
+            if (min > max) return new long[0];
+            // One [from, to) slice per run, oldest first, then the tail (run -1).
+            long[][] keys = new long[RUNS + 1][];
+            long[][] offsets = new long[RUNS + 1][];
+            int[] from = new int[RUNS + 1], to = new int[RUNS + 1];
+            int sources = 0, total = 0;
+            for (int run = RUNS - 1; run >= -1; run--) {
+                long[] k = run < 0 ? tailKeys : runKeys[run];
+                if (k == null) continue;
+                int length = run < 0 ? tailSize : k.length;
+                keys[sources] = k;
+                offsets[sources] = run < 0 ? tailOffsets : runOffsets[run];
+                from[sources] = lowerBound(k, length, min);
+                to[sources] = upperBound(k, length, max);
+                total += to[sources] - from[sources];
+                sources++;
+            }
+
+            long[] result = new long[total];
+            for (int n = 0; n < total; n++) {
+                int best = -1;
+                for (int s = 0; s < sources; s++) {
+                    if (from[s] < to[s] && (best < 0 || keys[s][from[s]] < keys[best][from[best]])) best = s;
+                }
+                result[n] = offsets[best][from[best]++];
+            }
+            return result;
+        }
+
+        /** First index whose key is &gt;= key. */
+        private static int lowerBound(long[] keys, int length, long key) {
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        /** First index whose key is &gt; key. */
+        private static int upperBound(long[] keys, int length, long key) {
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    /** Sorted (expression, offset) pairs with the same tail-plus-runs layout. */
+    private static final class StringKeyIndex {
+        private final String[][] runKeys = new String[RUNS][];
+        private final long[][] runOffsets = new long[RUNS][];
+        private final String[] tailKeys = new String[TAIL_LIMIT];
+        private final long[] tailOffsets = new long[TAIL_LIMIT];
+        private int tailSize;
+
+        void add(String key, long offset) {
+            int at = upperBound(tailKeys, tailSize, key);
+            System.arraycopy(tailKeys, at, tailKeys, at + 1, tailSize - at);
+            System.arraycopy(tailOffsets, at, tailOffsets, at + 1, tailSize - at);
+            tailKeys[at] = key;
+            tailOffsets[at] = offset;
+            if (++tailSize == TAIL_LIMIT) {
+                carry();
+            }
+        }
+
+        private void carry() {
+            String[] keys = tailKeys.clone();
+            long[] offsets = tailOffsets.clone();
+            Arrays.fill(tailKeys, null);
+            tailSize = 0;
+            int run = 0;
+            for (; runKeys[run] != null; run++) {
+                String[] olderKeys = runKeys[run];
+                long[] olderOffsets = runOffsets[run];
+                String[] mergedKeys = new String[olderKeys.length + keys.length];
+                long[] mergedOffsets = new long[mergedKeys.length];
+                int i = 0, j = 0, k = 0;
+                while (i < olderKeys.length || j < keys.length) {
+                    if (j == keys.length || i < olderKeys.length && olderKeys[i].compareTo(keys[j]) <= 0) {
+                        mergedKeys[k] = olderKeys[i];
+                        mergedOffsets[k++] = olderOffsets[i++];
+                    } else {
+                        mergedKeys[k] = keys[j];
+                        mergedOffsets[k++] = offsets[j++];
+                    }
+                }
+                runKeys[run] = null;
+                runOffsets[run] = null;
+                keys = mergedKeys;
+                offsets = mergedOffsets;
+            }
+            runKeys[run] = keys;
+            runOffsets[run] = offsets;
+        }
+
+        long[] prefix(String prefix) {
+            String[][] keys = new String[RUNS + 1][];
+            long[][] offsets = new long[RUNS + 1][];
+            int[] from = new int[RUNS + 1], to = new int[RUNS + 1];
+            int sources = 0, total = 0;
+            for (int run = RUNS - 1; run >= -1; run--) {
+                String[] k = run < 0 ? tailKeys : runKeys[run];
+                if (k == null) continue;
+                int length = run < 0 ? tailSize : k.length;
+                int start = lowerBound(k, length, prefix), end = start;
+                while (end < length && k[end].startsWith(prefix)) end++;
+                keys[sources] = k;
+                offsets[sources] = run < 0 ? tailOffsets : runOffsets[run];
+                from[sources] = start;
+                to[sources] = end;
+                total += end - start;
+                sources++;
+            }
+
+            long[] result = new long[total];
+            for (int n = 0; n < total; n++) {
+                int best = -1;
+                for (int s = 0; s < sources; s++) {
+                    if (from[s] < to[s] && (best < 0 || keys[s][from[s]].compareTo(keys[best][from[best]]) < 0)) best = s;
+                }
+                result[n] = offsets[best][from[best]++];
+            }
+            return result;
+        }
+
+        private static int lowerBound(String[] keys, int length, String key) {
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+
+        private static int upperBound(String[] keys, int length, String key) {
+            int low = 0, high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) <= 0) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = System.getProperty("calculator.history",
+                Path.of(System.getProperty("user.home"), ".calculator", "history.log").toString());
+        double min = Double.NEGATIVE_INFINITY, max = Double.POSITIVE_INFINITY;
+        long since = Long.MIN_VALUE, until = Long.MAX_VALUE;
+        String operator = null, prefix = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--file" -> file = args[++i];
+                case "--value" -> {
+                    min = Double.parseDouble(args[++i]);
+                    max = Double.parseDouble(args[++i]);
+                }
+                case "--since" -> since = Long.parseLong(args[++i]);
+                case "--until" -> until = Long.parseLong(args[++i]);
+                case "--operator" -> operator = args[++i];
+                case "--prefix" -> prefix = args[++i];
+                default -> {
+                    System.err.println("Usage: HistoryIndex [--file path] [--value min max] [--since ms] [--until ms] [--operator op] [--prefix text]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        try (CalculationHistory history = new CalculationHistory(Path.of(file), 1)) {
+            HistoryIndex index = new HistoryIndex(history);
+            long[] offsets;
+            if (prefix != null) offsets = index.byExpressionPrefix(prefix);
+            else if (operator != null) offsets = index.byOperator(operator, since, until);
+            else if (min != Double.NEGATIVE_INFINITY || max != Double.POSITIVE_INFINITY) offsets = index.byValue(min, max);
+            else offsets = index.byTime(since, until);
+
+            for (long offset : offsets) {
+                CalculationHistory.Entry entry = history.read(offset);
+                if (entry.result() < min || entry.result() > max || entry.timestamp() < since || entry.timestamp() > until) continue;
+                if (operator != null && !operator.equals(entry.operator())) continue;
+                System.out.println(entry.timestamp() + "\t" + entry.operator() + "\t" + entry.expression() + "\t" + Functions.formatString(entry.result()));
+            }
+        }
+    }
+}
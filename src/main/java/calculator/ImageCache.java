@@ -0,0 +1,195 @@
+package calculator;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Decoded picture resources, loaded once and shared.
+ * <p>
+ * {@link #preloadAll()} starts decoding every picture on a small background pool while the
+ * window is still being built; {@link #image} and {@link #icon} then only look the result up,
+ * waiting for it if its decode has not finished yet. {@link #cachedIcon} and
+ * {@link #iconAsync} never wait, for callers on the event thread. Images are converted to the
+ * screen's compatible format so drawing them needs no per-paint conversion.
+ * <p>
+ * Decoded pictures are held through soft references in an LRU of at most
+ * {@link #CAPACITY}, so the collector may drop ones nothing is showing when memory runs
+ * short; they are decoded again when next asked for. One decode per picture is in flight
+ * at a time, so concurrent lookups share its result.
+ */
+public final class ImageCache {
+
+    /** Every picture the calculator shows. */
+    static final String[] PICTURES = {
+            "/Picture/cuberoot.png", "/Picture/numroot.png", "/Picture/summation.png", "/Picture/X.png",
+            "/Picture/xyz.png", "/Picture/prodnot.png", "/Picture/doublesum.png", "/Picture/doubleprodnot.png",
+            "/Picture/log2x.png", "/Picture/lognumx.png", "/Picture/logx.png", "/Picture/xy-white.png",
+            "/Picture/xc.png", "/Picture/summation_hold.png", "/Picture/notation_hold.png",
+            "/Picture/Dsummation_hold.png", "/Picture/Dnotation_hold.png", "/Picture/xy-black.png",
+            "/Picture/xyz-black.png", "/Picture/teamba.png"};
+
+    /** Pictures kept at once; more than {@link #PICTURES} holds, so normally none is evicted. */
+    static final int CAPACITY = 32;
+
+    /** Cached in place of a picture that is missing or unreadable, so it is not retried. */
+    private static final ImageIcon MISSING = new ImageIcon();
+
+    private static final ImageCache SHARED = new ImageCache();
+
+    static {
+        // The pictures are small; ImageIO's temp-file cache only slows decoding down.
+        ImageIO.setUseCache(false);
+    }
+
+    /** Guards itself and {@link #decoding}. */
+    private final LinkedHashMap<String, SoftReference<ImageIcon>> icons;
+    private final Map<String, CompletableFuture<ImageIcon>> decoding = new HashMap<>();
+    private final ExecutorService decoders;
+    private final Function<String, BufferedImage> decoder;
+
+    ImageCache() {
+        this(CAPACITY);
+    }
+
+    ImageCache(int capacity) {
+        this(capacity, ImageCache::decode);
+    }
+
+    /** decoder turns a resource path into an image, or null when there is none. */
+    ImageCache(int capacity, Function<String, BufferedImage> decoder) {
+        this.decoder = decoder;
+        this.icons = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SoftReference<ImageIcon>> eldest) {
+                return size() > capacity;
+            }
+        };
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        this.decoders = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "image-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static ImageCache shared() {
+        return SHARED;
+    }
+
+    /** Starts decoding every picture in {@link #PICTURES} in the background. */
+    public void preloadAll() {
+        preload(PICTURES);
+    }
+
+    public void preload(String... paths) {
+        for (String path : paths) iconAsync(path);
+    }
+
+    /** The decoded picture at the resource path, or null when it is missing or unreadable. */
+    public BufferedImage image(String path) {
+        ImageIcon icon = icon(path);
+        return icon == null ? null : (BufferedImage) icon.getImage();
+    }
+
+    /** One shared icon per picture, or null when it is missing or unreadable. Waits for the decode. */
+    public ImageIcon icon(String path) {
+        return iconAsync(path).join();
+    }
+
+    /** The icon if it is decoded and still cached, otherwise null; never waits. */
+    public ImageIcon cachedIcon(String path) {
+        synchronized (icons) {
+            ImageIcon icon = cached(path);
+            return icon == MISSING ? null : icon;
+        }
+    }
+
+    /**
+     * The icon, completed at once when it is cached and otherwise when its background decode
+     * finishes; completes with null when the picture is missing or unreadable.
+     */
+    public CompletableFuture<ImageIcon> iconAsync(String path) {
+        synchronized (icons) {
+            ImageIcon icon = cached(path);
+            if (icon != null) return CompletableFuture.completedFuture(icon == MISSING ? null : icon);
+            return decoding.computeIfAbsent(path, p -> CompletableFuture.supplyAsync(() -> {
+                BufferedImage image;
+                try {
+                    image = decoder.apply(p);
+                } catch (RuntimeException e) {
+                    // A malformed file must not leave a failed decode behind for every later lookup.
+                    System.err.println("Could not decode image " + p + ": " + e);
+                    image = null;
+                }
+                ImageIcon decoded = image == null ? MISSING : new ImageIcon(image);
+                synchronized (icons) {
+                    icons.put(p, new SoftReference<>(decoded));
+                    decoding.remove(p);
+                }
+                return decoded == MISSING ? null : decoded;
+            }, decoders));
+        }
+    }
+
+    /** Pictures in the cache, counting any the collector has cleared since they were last looked up. */
+    int size() {
+        synchronized (icons) {
+            return icons.size();
+        }
+    }
+
+    /** Call with the lock held. */
+    private ImageIcon cached(String path) {
+        SoftReference<ImageIcon> reference = icons.get(path);
+        ImageIcon icon = reference == null ? null : reference.get();
+        if (reference != null && icon == null) icons.remove(path);
+        return icon;
+    }
+
+    private static BufferedImage decode(String path) {
+        try (InputStream imageStream = ImageCache.class.getResourceAsStream(path)) {
+            if (imageStream == null) {
+                System.err.println("Missing image: " + path);
+                return null;
+            }
+            BufferedImage image = ImageIO.read(imageStream);
+            return image == null ? null : compatible(image);
+        } catch (IOException e) {
+            System.err.println("Could not read image " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Redraws image in the screen's own pixel format, unless it already is or there is no screen. */
+    private static BufferedImage compatible(BufferedImage image) {
+        if (GraphicsEnvironment.isHeadless()) return image;
+        GraphicsConfiguration screen = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        int transparency = image.getColorModel().getTransparency();
+        if (image.getColorModel().equals(screen.getColorModel(transparency))) return image;
+
+        BufferedImage converted = screen.createCompatibleImage(image.getWidth(), image.getHeight(), transparency);
+        Graphics2D g = converted.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return converted;
+    }
+}
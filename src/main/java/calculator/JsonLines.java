@@ -0,0 +1,210 @@
+package calculator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader and writer for the flat JSON objects used by {@link CalculatorServer}:
+ * one object per line with string, number, boolean/null and array values. Nested objects
+ * are not supported.
+ */
+final class JsonLines {
+
+    private JsonLines() {
+    }
+
+    static Map<String, Object> parse(String line) {
+        Parser parser = new Parser(line);
+        Map<String, Object> object = parser.object();
+        parser.skipWhitespace();
+        if (parser.position != line.length()) {
+            throw parser.error("trailing characters");
+        }
+        return object;
+    }
+
+    static double number(Map<String, Object> object, String key) {
+        Object value = object.get(key);
+        if (!(value instanceof Double number)) {
+            throw new IllegalStateException("Missing number \"" + key + "\"");
+        }
+        return number;
+    }
+
+    static double number(Map<String, Object> object, String key, double fallback) {
+        return object.containsKey(key) ? number(object, key) : fallback;
+    }
+
+    static String string(Map<String, Object> object, String key, String fallback) {
+        Object value = object.get(key);
+        return (value instanceof String text) ? text : fallback;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> List<T> list(Map<String, Object> object, String key, Class<T> type) {
+        Object value = object.get(key);
+        if (!(value instanceof List<?> list) || !list.stream().allMatch(type::isInstance)) {
+            throw new IllegalStateException("Missing array \"" + key + "\"");
+        }
+        return (List<T>) list;
+    }
+
+    /** Formats a result the way the display does: integral values without a fraction. */
+    static String result(double value) {
+        return "{\"result\":" + format(value) + "}";
+    }
+
+    static String error(String message) {
+        return "{\"error\":" + quote(message) + "}";
+    }
+
+    /** An evaluation stopped early: the reason, the value so far and the fraction of the range covered. */
+    static String partial(String message, double value, double fraction) {
+        return "{\"error\":" + quote(message) + ",\"partial\":" + format(value) + ",\"progress\":" + format(fraction) + "}";
+    }
+
+    private static String format(double value) {
+        if (value % 1 == 0 && Math.abs(value) < 0x1p63) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> object() {
+            expect('{');
+            Map<String, Object> object = new HashMap<>();
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return object;
+            }
+            do {
+                skipWhitespace();
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                object.put(key, value());
+                skipWhitespace();
+            } while (tryConsume(','));
+            expect('}');
+            return object;
+        }
+
+        private Object value() {
+            skipWhitespace();
+            char c = peek();
+            if (c == '"') return string();
+            if (c == '[') return array();
+            if (text.startsWith("true", position)) { position += 4; return Boolean.TRUE; }
+            if (text.startsWith("false", position)) { position += 5; return Boolean.FALSE; }
+            if (text.startsWith("null", position)) { position += 4; return null; }
+            int start = position;
+            while (position < text.length() && "+-.eE0123456789".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error("unexpected character");
+            }
+            return NumberParser.parseDouble(text, start, position);
+        }
+
+        private List<Object> array() {
+            expect('[');
+            List<Object> values = new ArrayList<>();
+            skipWhitespace();
+            if (tryConsume(']')) {
+                return values;
+            }
+            do {
+                values.add(value());
+                skipWhitespace();
+            } while (tryConsume(','));
+            expect(']');
+            return values;
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c == '\\' && position < text.length()) {
+                    char escaped = text.charAt(position++);
+                    switch (escaped) {
+                        case 'n' -> builder.append('\n');
+                        case 't' -> builder.append('\t');
+                        case 'r' -> builder.append('\r');
+                        case 'b' -> builder.append('\b');
+                        case 'f' -> builder.append('\f');
+                        case 'u' -> builder.append(unicodeEscape());
+                        default -> builder.append(escaped);
+                    }
+                } else {
+                    builder.append(c);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        /** The four hex digits after a backslash-u, as one character. */
+        private char unicodeEscape() {
+            if (position + 4 > text.length()) {
+                throw error("truncated \\u escape");
+            }
+            int code = 0;
+            for (int end = position + 4; position < end; position++) {
+                int digit = Character.digit(text.charAt(position), 16);
+                if (digit < 0) {
+                    throw error("bad \\u escape");
+                }
+                code = code * 16 + digit;
+            }
+            return (char) code;
+        }
+
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private char peek() {
+            return position < text.length() ? text.charAt(position) : '\0';
+        }
+
+        private boolean tryConsume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!tryConsume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        IllegalStateException error(String message) {
+            return new IllegalStateException("Invalid JSON at " + position + ": " + message);
+        }
+    }
+}
@@ -3,18 +3,26 @@ package calculator;
 import java.awt.EventQueue;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
-import java.awt.Color;
+import java.awt.Component;
 import java.awt.Font;
-import java.awt.Image;
-import java.awt.event.ActionListener;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.awt.Toolkit;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.SwingConstants;
-import javax.imageio.ImageIO;
-import javax.swing.ImageIcon;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
 import javax.swing.JLabel;
 
 
@@ -31,32 +39,37 @@ public class Main extends JFrame {
     private CalculatorHelper helper;
     private JLabel imageHolder;
     private JLabel variableHolder;
+    private RoundedPanel panel_1;
     private RoundedButton lognumx_button;
     private RoundedButton logsubtwoX_button;
     private RoundedButton set_button;
     private RoundedButton cuberoot_button;
     private RoundedButton numroot_button;
     private RoundedButton format;
-    private RoundedButton ansHolder1;
-    private RoundedButton ansHolder2;
-    private RoundedButton ansHolder3;
     private RoundedButton DEL_button;
     private RoundedButton equals_button;
     private RoundedButton AC_button;
     /**
-     Launch theapplication.
+     Launch theapplication. Pass --server [port] to start the local HTTP service instead of the window.
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            CalculatorServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        if (Boolean.getBoolean("calculator.checkpoint")) {
+            // Nothing from AWT exists yet, so all of it is built fresh below, after any restore.
+            Warmup.model();
+            CheckpointSupport.checkpointRestore();
+        }
 
+        // Decode the pictures while the window is being built.
+        ImageCache.shared().preloadAll();
         EventQueue.invokeLater(new Runnable() {
             public void run() {
                 try {
-                    Main frame = new Main();
-                    frame.setTitle("Calculator But Its Not A Normal Calculator It Is A Calculator That Can Literally Solve Human Crisis");
-                    InputStream imageStream = getClass().getResourceAsStream("/Picture/teamba.png");
-                    Image image = ImageIO.read(imageStream);
-                    frame.setIconImage(image);
-                    frame.setVisible(true);
+                    openWindow();
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -64,76 +77,255 @@ public class Main extends JFrame {
         });
     }
 
-    String firstValue, secondValue, thirdValue, fourthValue, operator, equation = "--", A, B, C, D;
-    double firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue, Answer = 0.0, result, ANS;
-    int zeroCount = 0, valueIndex = 0;
-    int a = 1, b = 1;
-    long ah1, ah2, ah3;
-    Integer nValue = null;
-    boolean reset = false, isMinus = false, allowed = false, isVisible = false;
-    private ArrayList<Double> numbers = new ArrayList<>();
-    private ArrayList<String> operators = new ArrayList<>();
-    private Set<String> supportedAdvancedEquation = new HashSet<>(Set.of("∑∑", "ΠΠ"));
-    private Set<String> supportedAdvancedEquation2 = new HashSet<>(Set.of("∑", "Π"));
-    private Set<String> supportedBasicEquation = new HashSet<>(Set.of("+", "-", "*", "÷"));
+    /** Creates and shows the calculator window. Call on the event thread. */
+    static Main openWindow() {
+        Main frame = new Main();
+        frame.setTitle("Calculator But Its Not A Normal Calculator It Is A Calculator That Can Literally Solve Human Crisis");
+        frame.setIconImage(ImageCache.shared().image("/Picture/teamba.png"));
+        frame.setVisible(true);
+        return frame;
+    }
+
+    private CalculatorState state = CalculatorState.INITIAL;
+    private CalculatorState.Layout shownLayout;
+    private boolean rendering;
+    private boolean renderQueued;
+    private EvaluationWorker evaluation;
+    private final CalculationHistory history = CalculationHistory.openDefault();
+    private final SessionStore session = SessionStore.openDefault();
+    private final SessionRecorder recorder = SessionRecorder.openDefault();
+
+    /** Feeds one button press through {@link CalculatorState#reduce} and shows the result. */
+    private void dispatch(String key) {
+        if (key.equals("AC") && evaluation != null) {
+            evaluation.cancel(true);
+            evaluation = null;
+        }
+        recorder.key(key);
+        apply(CalculatorState.reduce(state, key));
+    }
+
+    private void apply(CalculatorState next) {
+        long answered = state.answerCount();
+        state = next;
+        if (next.answerCount() != answered) {
+            try {
+                history.append(next.operator(), next.holderText(), next.ans());
+            } catch (IOException e) {
+                System.err.println("Could not record history: " + e.getMessage());
+            }
+        }
+        renderLater();
+        if (next.pending() != null && evaluation == null) {
+            evaluateInBackground(next.pending());
+        }
+        session.save(next);
+    }
 
     /**
-     * Create the frame.
+     * Runs a pending ∑, ∑∑, Π or ΠΠ off the event thread. Progress goes to the holder
+     * field; AC (or the Delete key) cancels it.
      */
-    public Main() {
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setBounds(100, 100, 789, 762);
-        contentPane = new JPanel();
-        setResizable(false);
-        setLocationRelativeTo(null);
-        setContentPane(contentPane);
-        contentPane.setLayout(null);
+    private void evaluateInBackground(CalculatorState.RangeRequest request) {
+        evaluation = new EvaluationWorker(request::evaluate,
+                percent -> holder.setText(request.operator() + " " + percent + "%"),
+                answer -> {
+                    evaluation = null;
+                    recorder.settled();
+                    apply(CalculatorState.complete(state, answer));
+                },
+                () -> {
+                    evaluation = null;
+                    recorder.settled();
+                    apply(CalculatorState.fail(state));
+                });
+        evaluation.execute();
+    }
 
-        JPanel panel = new JPanel();
-        panel.setBounds(0, 0, 883, 725);
-        panel.setBackground(new Color(36, 43, 62));
-        contentPane.add(panel);
-        panel.setLayout(null);
+    /** Loads the i-th most recent answer into ANS and inserts it like the ANS button. */
+    private void recallHistory(int i) {
+        if (i >= history.recentCount()) return;
+        double value = history.recall(i);
+        recorder.recall(value);
+        state = state.withAns(value);
+        dispatch("ANS");
+    }
 
-        RoundedPanel panel_1 = new RoundedPanel(50);
-        panel_1.setBounds(28, 20, 718, 152);
-        panel.add(panel_1);
-        panel_1.setLayout(null);
+    private static final String[] DIGIT_KEYS = {"ZRO", "ON", "TWO", "THR", "FR", "FV", "SX", "SVN", "EHT", "NN"};
+
+    /**
+     * Types the digits and decimal points on the clipboard as if their buttons were pressed,
+     * reducing them as one batch.
+     */
+    private void paste() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException e) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') keys.add(DIGIT_KEYS[c - '0']);
+            else if (c == '.') keys.add("PRD");
+        }
+        if (keys.isEmpty()) return;
+        for (String key : keys) recorder.key(key);
+        apply(CalculatorState.reduceAll(state, keys));
+    }
+
+    /**
+     * Renders once, after everything else queued on the event thread, however many state
+     * changes come before it.
+     */
+    private void renderLater() {
+        if (renderQueued) return;
+        renderQueued = true;
+        EventQueue.invokeLater(() -> {
+            renderQueued = false;
+            render();
+        });
+    }
 
+    /** Makes the components show state; only what differs is touched. */
+    private void render() {
+        rendering = true;
+        try {
+            if (state.layout() != shownLayout) {
+                showLayout(state.layout());
+                shownLayout = state.layout();
+            }
+            if (state.advanced() != helper.isActive) helper.setChange();
+            if (state.formatted() != helper.isFormatted) {
+                format.setBackground(state.formatted() ? Theme.color(0, 0, 255) : Theme.WHITE);
+                helper.isFormatted = state.formatted();
+            }
+            show(calc, state.calcText());
+            show(numwrapper, state.displayText());
+            show(holder, state.holderText());
+            if (helper.isAdvancedBuilt()) {
+                show(xValue, state.xText());
+                show(yValue, state.yText());
+                show(zValue, state.zText());
+                show(equationHolder, state.equationText());
+                if (!variableHolder.getText().equals(state.variableText())) variableHolder.setText(state.variableText());
+            }
+        } finally {
+            rendering = false;
+        }
+    }
+
+    private static void show(RoundJTextField field, String text) {
+        if (!field.getText().equals(text)) field.setText(text);
+    }
+
+    private void showLayout(CalculatorState.Layout layout) {
+        helper.setXYZInactive();
+        switch (layout) {
+            case SUMMATION -> helper.setSummationActive();
+            case NOTATION -> helper.setNotationActive();
+            case DOUBLE_SUMMATION -> helper.setDSummationActive();
+            case DOUBLE_NOTATION -> helper.setDNotationActive();
+            case XY -> helper.setXYActive();
+            case XYZ -> helper.setXYZActive();
+            case LOG_N -> helper.setLogNumXActive();
+            case NUM_ROOT -> helper.setNumRootActive();
+            default -> {
+            }
+        }
+        if (layout.hidesDisplay()) numwrapper.setBounds(0, 0, 0, 0);
+    }
+
+    private void fieldsEdited() {
+        if (rendering) return;
+        CalculatorState next = state.withFields(xValue.getText(), yValue.getText(), zValue.getText());
+        if (next == state) return;
+        state = next;
+        recorder.fields(state.xText(), state.yText(), state.zText());
+        session.save(state);
+    }
+
+    /**
+     * Creates the components only the ∑, Π, ∑∑, ΠΠ, x^y, x^y^z, log(n) and numroot modes show,
+     * the first time one of them is entered. They go in front of the display, as they
+     * always have.
+     */
+    private void buildAdvanced() {
         equationHolder = new RoundJTextField(10);
+        equationHolder.setName("EquationHolder");
         equationHolder.setHorizontalAlignment(SwingConstants.CENTER);
         equationHolder.setEditable(false);
-        equationHolder.setFont(new Font("Malgun Gothic", Font.BOLD, 20));
-        equationHolder.setText("Equation: " + equation);
-        panel_1.add(equationHolder);
+        equationHolder.setFont(Theme.font("Malgun Gothic", Font.BOLD, 20));
+        equationHolder.setText(state.equationText());
 
         zValue = new RoundJTextField(10);
+        zValue.setName("ZField");
         zValue.setHorizontalAlignment(SwingConstants.TRAILING);
-        zValue.setFont(new Font("Malgun Gothic", Font.PLAIN, 26));
+        zValue.setFont(Theme.font("Malgun Gothic", Font.PLAIN, 26));
         zValue.setText("0");
-        panel_1.add(zValue);
 
         yValue = new RoundJTextField(10);
+        yValue.setName("YField");
         yValue.setHorizontalAlignment(SwingConstants.TRAILING);
-        yValue.setFont(new Font("Malgun Gothic", Font.PLAIN, 28));
+        yValue.setFont(Theme.font("Malgun Gothic", Font.PLAIN, 28));
         yValue.setText("0");
-        panel_1.add(yValue);
 
         xValue = new RoundJTextField(10);
+        xValue.setName("XField");
         xValue.setHorizontalAlignment(SwingConstants.TRAILING);
-        xValue.setFont(new Font("Malgun Gothic", Font.BOLD, 38));
+        xValue.setFont(Theme.font("Malgun Gothic", Font.BOLD, 38));
         xValue.setText("0");
-        panel_1.add(xValue);
 
         variableHolder = new JLabel("");
-        variableHolder.setFont(new Font("Microsoft Sans Serif", Font.BOLD, 30));
+        variableHolder.setName("VariableLabel");
+        variableHolder.setFont(Theme.font("Microsoft Sans Serif", Font.BOLD, 30));
         variableHolder.setHorizontalAlignment(SwingConstants.CENTER);
-        panel_1.add(variableHolder);
 
         imageHolder = new JLabel("");
-        panel_1.add(imageHolder);
+        imageHolder.setName("ImageLabel");
         imageHolder.setHorizontalAlignment(SwingConstants.CENTER);
 
+        Component[] front = {equationHolder, zValue, yValue, xValue, variableHolder, imageHolder};
+        for (int i = 0; i < front.length; i++) {
+            panel_1.add(front[i], i);
+        }
+        helper.attachAdvanced(zValue, yValue, xValue, imageHolder, variableHolder, equationHolder);
+
+        // The x/y/z fields are typed into directly; keep the state in step with them.
+        DocumentListener typed = new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { fieldsEdited(); }
+            public void removeUpdate(DocumentEvent e) { fieldsEdited(); }
+            public void changedUpdate(DocumentEvent e) { }
+        };
+        for (RoundJTextField field : new RoundJTextField[] {xValue, yValue, zValue}) {
+            field.getDocument().addDocumentListener(typed);
+        }
+    }
+
+    /**
+     * Create the frame.
+     */
+    public Main() {
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setBounds(100, 100, 789, 762);
+        contentPane = new JPanel();
+        setResizable(false);
+        setLocationRelativeTo(null);
+        setContentPane(contentPane);
+        contentPane.setLayout(null);
+
+        JPanel panel = new JPanel();
+        panel.setBounds(0, 0, 883, 725);
+        panel.setBackground(Theme.color(36, 43, 62));
+        contentPane.add(panel);
+        panel.setLayout(null);
+
+        panel_1 = new RoundedPanel(50);
+        panel_1.setBounds(28, 20, 718, 152);
+        panel.add(panel_1);
+        panel_1.setLayout(null);
+
         calc = new RoundJTextField(10);
         panel_1.add(calc);
 
@@ -141,1412 +333,73 @@ public class Main extends JFrame {
         numwrapper.setName("ResultDisplay");
         numwrapper.setHorizontalAlignment(SwingConstants.TRAILING);
         numwrapper.setEditable(false);
-        numwrapper.setFont(new Font("Franklin Gothic Demi", Font.BOLD, 35));
+        numwrapper.setFont(Theme.font("Franklin Gothic Demi", Font.BOLD, 35));
         numwrapper.setBounds(13, 41, 691, 72);
         numwrapper.setText("0");
         panel_1.add(numwrapper);
 
         holder = new RoundJTextField(10);
         holder.setName("HolderField");
-        holder.setFont(new Font("Yu Gothic UI Semibold", Font.PLAIN, 20));
+        holder.setFont(Theme.font("Yu Gothic UI Semibold", Font.PLAIN, 20));
         holder.setHorizontalAlignment(SwingConstants.LEFT);
         holder.setEditable(false);
         holder.setBounds(37, 2, 210, 41);
         panel_1.add(holder);
 
-        DEL_button = new RoundedButton("DEL", 30, "DL");
-        DEL_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        DEL_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    String currentEq = calc.getText();
-                    String currentText = numwrapper.getText();
-                    String xVal = xValue.getText();
-                    String yVal = yValue.getText();
-                    String zVal = zValue.getText();
-                    String[] values = {zVal, yVal, xVal};
-                    RoundJTextField[] textFields = {zValue, yValue, xValue};
-                    int length = values.length;
-
-                    if(isVisible) {
-                        for (int i = 0; i < length; i++) {
-                            if (!values[i].isEmpty() && !values[i].equals("0")) {
-                                textFields[i].setText(values[i].substring(0, values[i].length() - 1));
-                                return;
-                            } else {
-                                textFields[i].setText("0");
-                            }
-                        }
-                    } else {
-                        valueIndex = (valueIndex == 1) ? 1 : valueIndex - 1;
-                        zeroCount = (zeroCount == 0) ? 0 : zeroCount - 1;
-
-                        if (currentText.equals("0") || currentEq.equals("0")) {
-                            return;
-                        }
-                        if (currentText.length() > 1 || currentEq.length() > 1) {
-                            if(zeroCount == 0) helper.setZero();
-                            else numwrapper.setText(currentText.substring(0, currentText.length() - 1));
-                            calc.setText(currentEq.substring(0, currentEq.length() - 1));
-                        }
-                        if(zeroCount == 0) {
-                            operator = null;
-                            helper.setZero();
-                        }
-                    }
-                    reset = false;
-                    isMinus = false;
-                } catch (Exception error) {
-                    return;
-                }
-            }
-        });
-        DEL_button.setBounds(28, 192, 94, 54);
-        panel.add(DEL_button);
-
-        AC_button = new RoundedButton("AC", 30, "AC");
-        AC_button.setName("AC-Button");
-        AC_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        AC_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                operator = null;
-                zeroCount = 0; Answer = 0;
-                firstValue = null; secondValue = null;
-                thirdValue = null; fourthValue = null;
-                firstDoubleValue = 0; secondDoubleValue = 0;
-                thirdDoubleValue = 0; fourthDoubleValue = 0;
-                valueIndex = 0;
-                A = null; B = null;
-                C = null; D = null;
-                reset = false; isMinus = false;
-                allowed = false;
-                isVisible = false;
-                helper.resetAll();
-                equation = "--";
-            }
-        });
-        AC_button.setBounds(132, 192, 94, 54);
-        panel.add(AC_button);
-
-        RoundedButton plus_minusbutton = new RoundedButton("+/-", 30, "PM");
-        plus_minusbutton.setName("PlusMinusButton");
-        plus_minusbutton.setFont(new Font("Tahoma", Font.BOLD, 17));
-        plus_minusbutton.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (zeroCount != 0) {
-                    String currentText = calc.getText();
-                    if (isMinus) {
-                        currentText = currentText.substring(1);
-                        calc.setText(currentText);
-                        numwrapper.setText(currentText);
-                        isMinus = false;
-                    } else {
-                        calc.setText("-" + currentText);
-                        numwrapper.setText(calc.getText());
-                        isMinus = true;
-                    }
-                }
-            }
-        });
-        plus_minusbutton.setBounds(236, 192, 94, 54);
-        panel.add(plus_minusbutton);
-
-        RoundedButton plus_button = new RoundedButton("+", 30, "PLUS");
-        plus_button.setFont(new Font("Tahoma", Font.BOLD, 20));
-        plus_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(zeroCount == 0) return;
-                    if(reset == true) helper.setIn(operator);
-                    else numwrapper.setText(numwrapper.getText() + "+");
-                    reset = false;
-                    isMinus = false;
-                    holder.setText(numwrapper.getText() + holder.getText());
-                    numwrapper.setText("");
-
-                    operator = plus_button.getText();
-                    numbers.add(Double.parseDouble(calc.getText()));
-                    operators.add(plus_button.getText());
-                    calc.setText("");
-                } catch (Exception error) {
-                    String currentText = holder.getText();
-                    holder.setText(currentText.substring(0, currentText.length() - 1));
-                    return;
-                }
-            }
-        });
-        plus_button.setBounds(340, 192, 94, 54);
-        panel.add(plus_button);
-
-        RoundedButton FLR_button = new RoundedButton("FLR", 30, "FLR");
-        FLR_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        FLR_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    helper.setXYZInactive();
-                    double currentValue = Double.parseDouble(calc.getText().trim());
-                    double flooredValue = Math.floor(currentValue);
-
-                    String formattedAnswer = Functions.formatString(flooredValue);
-                    calc.setText("" + formattedAnswer);
-                    numwrapper.setText(calc.getText());
-                } catch (Exception error) {
-                    helper.setMathError();
-                    return;
-                }
-            }
-        });
-        FLR_button.setBounds(444, 192, 94, 54);
-        panel.add(FLR_button);
-
-        RoundedButton CEIL_button = new RoundedButton("CEIL", 30, "CEL");
-        CEIL_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        CEIL_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    helper.setXYZInactive();
-                    double currentValue = Double.parseDouble(calc.getText().trim());
-                    double ceiledValue = Math.ceil(currentValue);
-
-                    String formattedAnswer = Functions.formatString(ceiledValue);
-                    calc.setText("" + formattedAnswer);
-                    numwrapper.setText(calc.getText());
-                } catch (Exception error) {
-                    helper.setMathError();
-                    return;
-                }
-            }
-        });
-        CEIL_button.setBounds(548, 192, 94, 54);
-        panel.add(CEIL_button);
-
-        RoundedButton INT_button = new RoundedButton("INT", 30, "IT");
-        INT_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        INT_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    helper.setXYZInactive();
-                    double currentValue = Double.parseDouble(calc.getText().trim());
-                    int intValue = (int) currentValue;
-
-                    calc.setText(String.valueOf(intValue));
-                    numwrapper.setText(calc.getText());
-                } catch (Exception error) {
-                    helper.setMathError();
-                    reset = true;
-                }
-            }
-        });
-        INT_button.setBounds(652, 192, 94, 54);
-        panel.add(INT_button);
-
-        RoundedButton seven_button = new RoundedButton("7", 30, "SVN");
-        seven_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        seven_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = seven_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        seven_button.setBounds(28, 256, 94, 54);
-        panel.add(seven_button);
-
-        RoundedButton eight_button = new RoundedButton("8", 30, "EHT");
-        eight_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        eight_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = eight_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        eight_button.setBounds(132, 256, 94, 54);
-        panel.add(eight_button);
-
-        RoundedButton nine_button = new RoundedButton("9", 30, "NN");
-        nine_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        nine_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = nine_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        nine_button.setBounds(236, 256, 94, 54);
-        panel.add(nine_button);
-
-        RoundedButton minus_button = new RoundedButton("-", 30, "MN");
-        minus_button.setFont(new Font("Tahoma", Font.BOLD, 20));
-        minus_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (zeroCount == 0)return;
-                    if(reset == true) helper.setIn(operator);
-                    else numwrapper.setText(numwrapper.getText() + "-");
-                    reset = false;
-                    isMinus = false;
-                    holder.setText(numwrapper.getText() + holder.getText());
-                    numwrapper.setText("");
-
-                    operator = minus_button.getText();
-                    numbers.add(Double.parseDouble(calc.getText()));
-                    operators.add(minus_button.getText());
-                    calc.setText("");
-                } catch (Exception error) {
-                    String currentText = holder.getText();
-                    holder.setText(currentText.substring(0, currentText.length() - 1));
-                    return;
-                }
-            }
-        });
-        minus_button.setBounds(340, 256, 94, 54);
-        panel.add(minus_button);
-
-        RoundedButton integerdivision_button = new RoundedButton("//", 30, "INTD");
-        integerdivision_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        integerdivision_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(allowed) {
-                        if (firstValue == null) {
-                            firstValue = calc.getText();
-                        } else {
-                            secondValue = calc.getText();
-                        }
-                        calc.setText("");
-                        numwrapper.setText(numwrapper.getText() + "//");
-                        operator = integerdivision_button.getText();
-                        allowed = false;
-                    } else {
-                        return;
-                    }
-                } catch (Exception error) {
-                    firstValue = null;
-                    secondValue = null;
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        integerdivision_button.setBounds(444, 256, 94, 54);
-        panel.add(integerdivision_button);
-
-        RoundedButton modulus = new RoundedButton("%", 30, "MOD");
-        modulus.setFont(new Font("Tahoma", Font.BOLD, 17));
-        modulus.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(allowed) {
-                        if (firstValue == null) {
-                            firstValue = calc.getText();
-                        } else {
-                            secondValue = calc.getText();
-                        }
-
-                        calc.setText("");
-                        numwrapper.setText(numwrapper.getText() + "%");
-                        operator = modulus.getText();
-                        allowed = false;
-                    } else {
-                        return;
-                    }
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-        modulus.setBounds(548, 256, 94, 54);
-        panel.add(modulus);
-
-        RoundedButton factorial_button = new RoundedButton("N!", 30, "FAC");
-        factorial_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        factorial_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(allowed) {
-                        if (firstValue == null) {
-                            firstValue = calc.getText();
-                        }
-                        calc.setText("");
-                        numwrapper.setText(numwrapper.getText() + "!");
-                        operator = factorial_button.getText();
-                        allowed = false;
-                    } else {
-                        return;
-                    }
-                } catch (Exception error) {
-                    firstValue = null;
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        factorial_button.setBounds(652, 256, 94, 54);
-        panel.add(factorial_button);
-
-        RoundedButton four_button = new RoundedButton("4", 30, "FR");
-        four_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        four_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = four_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        four_button.setBounds(28, 320, 94, 54);
-        panel.add(four_button);
-
-        RoundedButton five_button = new RoundedButton("5", 30, "FV");
-        five_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        five_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = five_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        five_button.setBounds(132, 320, 94, 54);
-        panel.add(five_button);
-
-        RoundedButton six_button = new RoundedButton("6", 30, "SX");
-        six_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        six_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = six_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        six_button.setBounds(236, 320, 94, 54);
-        panel.add(six_button);
-
-        RoundedButton multiplication_button = new RoundedButton("*", 30, "MUL");
-        multiplication_button.setFont(new Font("Tahoma", Font.BOLD, 20));
-        multiplication_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(zeroCount == 0) return;
-                    if(reset == true) helper.setIn(operator);
-                    else numwrapper.setText(numwrapper.getText() + "*");
-                    reset = false;
-                    isMinus = false;
-                    holder.setText(numwrapper.getText() + holder.getText());
-                    numwrapper.setText("");
-
-                    operator = multiplication_button.getText();
-                    numbers.add(Double.parseDouble(calc.getText()));
-                    operators.add(multiplication_button.getText());
-                    calc.setText("");
-                } catch (Exception error) {
-                    String currentText = holder.getText();
-                    holder.setText(currentText.substring(0, currentText.length() - 1));
-                    return;
-                }
-            }
-        });
-        multiplication_button.setBounds(340, 320, 94, 54);
-        panel.add(multiplication_button);
-
-        RoundedButton squareroot_button = new RoundedButton("√", 30, "SQRT");
-        squareroot_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        squareroot_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    double currentValue = Double.parseDouble(calc.getText().trim());
-                    if(currentValue < 0) {
-                        helper.setMathError();
-                    }
-
-                    double squreRootValue = Math.sqrt(currentValue);
-                    String formattedAnswer = Functions.formatString(squreRootValue);
-
-                    calc.setText(String.valueOf(formattedAnswer));
-                } catch (Exception error) {
-                    helper.setSyntaxError();
-                    return;
-                }
-                numwrapper.setText(calc.getText());
-            }
-        });
-        squareroot_button.setBounds(444, 320, 94, 54);
-        panel.add(squareroot_button);
-
-        cuberoot_button = new RoundedButton("", 30, "CBRT");
-        cuberoot_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    double currentValue = Double.parseDouble(calc.getText().trim());
-                    double cubeRootValue = Math.cbrt(currentValue);
-
-                    String formattedAnswer = Functions.formatString(cubeRootValue);
-                    calc.setText(String.valueOf(formattedAnswer));
-                } catch (Exception error) {
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-                numwrapper.setText(calc.getText());
-            }
-        });
-        cuberoot_button.setBounds(548, 320, 94, 54);
-        panel.add(cuberoot_button);
-
-        numroot_button = new RoundedButton("", 30, "NMROOT");
-        numroot_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    helper.setNumRootActive();
-                    operator = "numroot";
-                } catch (Exception error) {
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        numroot_button.setBounds(0, 0, 0, 0);
-        panel.add(numroot_button);
-
-        RoundedButton summation_button = new RoundedButton("", 30, "SUM");
-        summation_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setSummationActive();
-                        isVisible = true;
-                    }
-                    calc.setText("");
-                    operator = "∑";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        summation_button.setBounds(652, 320, 94, 54);
-        panel.add(summation_button);
-
-        RoundedButton one_button = new RoundedButton("1", 30, "ON");
-        one_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        one_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = one_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        one_button.setBounds(28, 384, 94, 54);
-        panel.add(one_button);
-
-        RoundedButton two_button = new RoundedButton("2", 30, "TWO");
-        two_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        two_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = two_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        two_button.setBounds(132, 384, 94, 54);
-        panel.add(two_button);
-
-        RoundedButton three_button = new RoundedButton("3", 30, "THR");
-        three_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        three_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (reset) {
-                    helper.setReset();
-                    reset = false;
-                }
-                String buttonText = three_button.getText();
-                String calcText = zeroCount == 0 ? buttonText : calc.getText() + buttonText;
-                String numwrapperText = zeroCount == 0 ? buttonText : numwrapper.getText() + buttonText;
-                calc.setText(calcText);
-                numwrapper.setText(numwrapperText);
-                zeroCount++;
-                helper.setSENone();
-                allowed = true;
-            }
-        });
-        three_button.setBounds(236, 384, 94, 54);
-        panel.add(three_button);
-
-        RoundedButton division_button = new RoundedButton("÷", 30, "DIV");
-        division_button.setFont(new Font("Tahoma", Font.BOLD, 20));
-        division_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(zeroCount == 0) return;
-                    if(reset == true) helper.setIn(operator);
-                    else numwrapper.setText(numwrapper.getText() + "/");
-                    reset = false;
-                    isMinus = false;
-                    holder.setText(numwrapper.getText() + holder.getText());
-                    numwrapper.setText("");
-
-                    operator = division_button.getText();
-                    numbers.add(Double.parseDouble(calc.getText()));
-                    operators.add(division_button.getText());
-                    calc.setText("");
-                } catch (Exception error) {
-                    String currentText = holder.getText();
-                    holder.setText(currentText.substring(0, currentText.length() - 1));
-                    return;
-                }
-            }
-        });
-        division_button.setBounds(340, 384, 94, 54);
-        panel.add(division_button);
-
-        RoundedButton XpowerY_button = new RoundedButton("", 30, "XY");
-        XpowerY_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        numwrapper.setBounds(13, 41, 691, 72);
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setXYActive();
-                        numwrapper.setBounds(0, 0, 0, 0);
-                        isVisible = true;
-                    }
-
-                    zeroCount ++;
-                    operator = "x^y";
-                } catch (Exception error) {
-                    System.out.println(error);
-                    helper.setSyntaxError();
-                    return;
-                }
-            }
-        });
-        XpowerY_button.setBounds(444, 384, 94, 54);
-        panel.add(XpowerY_button);
-
-        RoundedButton XpowerYpowerofZ_button = new RoundedButton("", 30, "XYZ");
-        XpowerYpowerofZ_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        numwrapper.setBounds(13, 41, 691, 72);
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setXYZActive();
-                        numwrapper.setBounds(0, 0, 0, 0);
-                        isVisible = true;
-                    }
-
-                    zeroCount ++;
-                    operator = "x^y^z";
-                } catch (Exception error) {
-                    helper.setSyntaxError();
-                    return;
-                }
-            }
-        });
-        XpowerYpowerofZ_button.setBounds(548, 384, 94, 54);
-        panel.add(XpowerYpowerofZ_button);
-
-        RoundedButton productnotation_button = new RoundedButton("", 30, "PRN");
-        productnotation_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setNotationActive();
-                        isVisible = true;
-                    }
-                    calc.setText("");
-                    operator = "Π";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        productnotation_button.setBounds(652, 384, 94, 54);
-        panel.add(productnotation_button);
-
-        RoundedButton zero_button = new RoundedButton("0", 30, "ZRO");
-        zero_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        zero_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (zeroCount != 0) {
-                    if (reset) {
-                        helper.setReset();
-                        reset = false;
-                    }
-                    calc.setText(calc.getText() + zero_button.getText());
-                    numwrapper.setText(numwrapper.getText() + "0");
-                    helper.setSENone();
-                    zeroCount++;
-                }
-            }
-        });
-        zero_button.setBounds(28, 448, 94, 54);
-        panel.add(zero_button);
-
-        RoundedButton period_button = new RoundedButton(".", 30, "PRD");
-        period_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        period_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                zeroCount++;
-                calc.setText(calc.getText() + period_button.getText());
-                numwrapper.setText(numwrapper.getText() + ".");
-                helper.setSENone();
-            }
-        });
-        period_button.setBounds(132, 448, 94, 54);
-        panel.add(period_button);
-
-        // =========================================
-//   FIXED COMPLETE BLOCK FOR "=" BUTTON
-// =========================================
-        equals_button = new RoundedButton("=", 30, "EQU");
-        equals_button.setFont(new Font("Tahoma", Font.BOLD, 20));
-        equals_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-
-                try {
-
-                    if (operator == null) return;
-
-                    String currentText = calc.getText();
-
-                    // =========================================
-                    //    COLLECT INPUT VALUES
-                    // =========================================
-                    if ("∑".equals(operator) || "Π".equals(operator)) {
-                        firstValue = A;
-                        secondValue = B;
-                        thirdValue = C;
-                    }
-                    else if ("∑∑".equals(operator) || "ΠΠ".equals(operator)) {
-                        nValue = Integer.parseInt(xValue.getText());
-                        firstValue = A;
-                        secondValue = B;
-                        thirdValue = C;
-                        fourthValue = D;
-                    }
-                    else if ("log(2)(".equals(operator) || "log(".equals(operator)) {
-                        firstValue = calc.getText();
-                    }
-                    else if ("log(n)x(".equals(operator)) {
-                        firstValue = xValue.getText();
-                        secondValue = calc.getText();
-                    }
-
-                    // If still null
-                    if (firstValue == null && !currentText.isEmpty()) {
-                        firstValue = currentText;
-                    }
-
-                    // Convert numeric values
-                    if (firstValue != null) firstDoubleValue = Double.parseDouble(firstValue);
-                    if (secondValue != null) secondDoubleValue = Double.parseDouble(secondValue);
-                    if (thirdValue != null) thirdDoubleValue = Double.parseDouble(thirdValue);
-                    if (fourthValue != null) fourthDoubleValue = Double.parseDouble(fourthValue);
-
-                    // =========================================
-                    //      COMPUTE RESULTS
-                    // =========================================
-                    switch (operator) {
-
-                        case "∑":
-                            Answer = Functions.summation(equation, firstDoubleValue, secondDoubleValue, thirdDoubleValue);
-                            break;
-
-                        case "∑∑":
-                            Answer = Functions.doubleSummation(nValue, equation,
-                                    firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue);
-                            break;
-
-                        case "Π":
-                            Answer = Functions.prodnot(equation, firstDoubleValue, secondDoubleValue, thirdDoubleValue);
-                            break;
-
-                        case "ΠΠ":
-                            Answer = Functions.doubleProdNot(nValue, equation,
-                                    firstDoubleValue, secondDoubleValue, thirdDoubleValue, fourthDoubleValue);
-                            break;
-
-                        case "N!":
-                            if (firstDoubleValue < 0) {
-                                helper.setMathError();
-                                holder.setText("Undefined");
-                                return;
-                            }
-                            Answer = Functions.factorial((int) firstDoubleValue);
-                            break;
-
-                        case "a! + b!":
-                            Answer = Functions.sumFactorial(firstDoubleValue, secondDoubleValue);
-                            break;
-
-                        case "a! / b!":
-                            Answer = Functions.divideFactorial(firstDoubleValue, secondDoubleValue);
-                            break;
-
-                        case "log(2)(":
-                            Answer = Math.log(firstDoubleValue) / Math.log(2);
-                            break;
-
-                        case "log(":
-                            Answer = Math.log(firstDoubleValue);
-                            break;
-
-                        case "log(n)x(":
-                            Answer = Math.log(secondDoubleValue) / Math.log(firstDoubleValue);
-                            break;
-
-                        case "x^y^z":
-                            double x = Double.parseDouble(xValue.getText());
-                            double y = Double.parseDouble(yValue.getText());
-                            double z = Double.parseDouble(zValue.getText());
-                            Answer = Math.pow(x, Math.pow(y, z));
-                            break;
-
-                        default:
-                            if (supportedBasicEquation.contains(operator)) {
-                                if (!calc.getText().isEmpty()) numbers.add(Double.parseDouble(calc.getText()));
-                                Answer = Functions.calculateResult(numbers, operators);
-                            } else {
-                                if ("x^y".equals(operator)) {
-                                    firstDoubleValue = Double.parseDouble(xValue.getText());
-                                    secondDoubleValue = Double.parseDouble(yValue.getText());
-                                } else if ("numroot".equals(operator)) {
-                                    firstDoubleValue = Double.parseDouble(xValue.getText());
-                                    secondDoubleValue = Double.parseDouble(currentText);
-                                } else {
-                                    secondDoubleValue = Double.parseDouble(currentText);
-                                }
-                                Answer = Functions.basicCalculation(operator, firstDoubleValue, secondDoubleValue);
-                            }
-                    }
-
-                    // =========================================
-                    //      FORMAT & DISPLAY RESULT
-                    // =========================================
-                    String formatted = Functions.formatString(Answer);
-                    helper.setEquals();
-
-                    if (supportedBasicEquation.contains(operator))
-                        holder.setText(holder.getText() + calc.getText());
-                    else
-                        holder.setText(numwrapper.getText());
-
-                    ANS = Answer;
-
-                    if (ah1 == 0) ah1 = (long) ANS;
-                    else if (ah2 == 0) ah2 = (long) ANS;
-                    else ah3 = (long) ANS;
-
-                    calc.setText(formatted);
-                    numwrapper.setText(formatted);
-
-                    reset = true;
-                    isVisible = false;
-                    numbers.clear();
-                    operators.clear();
-                    firstValue = secondValue = thirdValue = fourthValue = null;
-
-                } catch (Exception ex) {
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        equals_button.setBounds(236, 448, 198, 54);
-        panel.add(equals_button);
-
-        equals_button.setBounds(236, 448, 198, 54);
-        panel.add(equals_button);
-
-        RoundedButton doublesummation_button = new RoundedButton("", 30, "DSUM");
-        doublesummation_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setDSummationActive();
-                        isVisible = true;
-                    }
-
-                    calc.setText("");
-                    operator = "∑∑";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        doublesummation_button.setBounds(444, 448, 147, 54);
-        panel.add(doublesummation_button);
-
-        RoundedButton doubleproductnotation_button = new RoundedButton("", 30, "DNOT");
-        doubleproductnotation_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if(isVisible) {
-                        helper.setXYZInactive();
-                        isVisible = false;
-                    } else {
-                        helper.setXYZInactive();
-                        helper.setDNotationActive();
-                        isVisible = true;
-                    }
-                    calc.setText("");
-                    operator = "ΠΠ";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    reset = true;
-                    helper.setSyntaxError();
-                }
-            }
-        });
-        doubleproductnotation_button.setBounds(601, 448, 145, 54);
-        panel.add(doubleproductnotation_button);
-
-        set_button = new RoundedButton("SET", 30, "ST");
-        set_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        set_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                helper.setChange();
-            }
-        });
-        set_button.setBounds(28, 510, 406, 54);
-        panel.add(set_button);
-
-        logsubtwoX_button = new RoundedButton("", 30, "LG2");
-        logsubtwoX_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        logsubtwoX_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    numwrapper.setText(zeroCount == 0 ?("" + "log(2)(") : numwrapper.getText() + "log(2)(");
-                    zeroCount++;
-                    operator = "log(2)(";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-
-        logsubtwoX_button.setBounds(444, 512, 147, 54);
-        panel.add(logsubtwoX_button);
-
-        lognumx_button = new RoundedButton("", 30, "LGN");
-        lognumx_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    helper.setLogNumXActive();
-                    numwrapper.setText(zeroCount == 0 ?("" + "log(n)X(") : numwrapper.getText() + "log(n)X(");
-                    zeroCount++;
-                    operator = "log(n)x(";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-        lognumx_button.setBounds(0, 0, 0, 0);
-        panel.add(lognumx_button);
-
-        RoundedButton logX_button = new RoundedButton("", 30, "LG");
-        logX_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        logX_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    numwrapper.setText(zeroCount == 0 ?("" + "log(") : numwrapper.getText() + "log(");
-                    zeroCount++;
-                    operator = "log(";
-                    valueIndex = 1;
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-        logX_button.setBounds(601, 512, 145, 54);
-        panel.add(logX_button);
-
-        RoundedButton A_button = new RoundedButton("A", 30, "A");
-        A_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        A_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (valueIndex == 1) {
-                    if(calc.getText().equals("")) calc.setText("0"); zeroCount = 1;
-                    A = calc.getText();
-                } else {
-                    return;
-                }
-                calc.setText("");
-                valueIndex++;
-                numwrapper.setText(zeroCount == 0 ? ("" + A_button.getText()) : numwrapper.getText() + A_button.getText());
-                zeroCount++;
-            }
-        });
-        A_button.setBounds(28, 574, 94, 54);
-        panel.add(A_button);
-
-        RoundedButton B_button = new RoundedButton("B", 30, "B");
-        B_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        B_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (valueIndex == 2) {
-                    B = calc.getText();
-                } else {
-                    return;
-                }
-                calc.setText("");
-                valueIndex++;
-                numwrapper.setText(zeroCount == 0 ? ("" + B_button.getText()) : numwrapper.getText() + B_button.getText());
-                zeroCount++;
-            }
-        });
-        B_button.setBounds(132, 574, 94, 54);
-        panel.add(B_button);
-
-        RoundedButton C_button = new RoundedButton("C", 30, "C");
-        C_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        C_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (valueIndex == 3) {
-                    C = calc.getText();
-                } else {
-                    return;
-                }
-                calc.setText("");
-                valueIndex++;
-                numwrapper.setText(zeroCount == 0 ? ("" + C_button.getText()) : numwrapper.getText() + C_button.getText());
-                zeroCount++;
-            }
-        });
-        C_button.setBounds(236, 574, 94, 54);
-        panel.add(C_button);
-
-        RoundedButton D_button = new RoundedButton("D", 30, "D");
-        D_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        D_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if (valueIndex == 4) {
-                    D = calc.getText();
-                } else {
-                    return;
-                }
-                calc.setText("");
-                valueIndex++;
-                numwrapper.setText(zeroCount == 0 ? ("" + D_button.getText()) : numwrapper.getText() + D_button.getText());
-                zeroCount++;
-            }
-        });
-        D_button.setBounds(340, 574, 94, 54);
-        panel.add(D_button);
-
-        RoundedButton aFACTplusbFACT_button = new RoundedButton("a! + b!", 30, "a+b");
-        aFACTplusbFACT_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        aFACTplusbFACT_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (firstValue == null) {
-                        firstValue = calc.getText();
-
-                    } else {
-                        secondValue = calc.getText();
-                    }
-                    calc.setText("");
-                    numwrapper.setText(zeroCount <= 2 ?(numwrapper.getText() + "!+") : numwrapper.getText() + "!");
-                    zeroCount++;
-                    operator = "a! + b!";
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-
-        aFACTplusbFACT_button.setBounds(444, 574, 147, 54);
-        panel.add(aFACTplusbFACT_button);
-
-        RoundedButton aFACTdividebFACT_button = new RoundedButton("a! / b!", 30, "a/b");
-        aFACTdividebFACT_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        aFACTdividebFACT_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (firstValue == null) {
-                        firstValue = calc.getText();
-
-                    } else {
-                        secondValue = calc.getText();
-                    }
-                    calc.setText("");
-                    numwrapper.setText(zeroCount <= 2 ?(numwrapper.getText() + "!/") : numwrapper.getText() + "!");
-                    zeroCount++;
-                    operator = "a! / b!";
-                } catch (Exception error) {
-                    holder.setText("Syntax Error");
-                    return;
-                }
-            }
-        });
-        aFACTdividebFACT_button.setBounds(601, 576, 145, 54);
-        panel.add(aFACTdividebFACT_button);
-
-        RoundedButton XY_button = new RoundedButton("xy", 30, "XEY");
-        XY_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        XY_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation.contains(operator)) {
-                    equation = "xy";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        XY_button.setBounds(28, 638, 94, 54);
-        panel.add(XY_button);
-
-        RoundedButton XplusY_button = new RoundedButton("x+y", 30, "x+y");
-        XplusY_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        XplusY_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation.contains(operator)) {
-                    equation = "x+y";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        XplusY_button.setBounds(132, 638, 94, 54);
-        panel.add(XplusY_button);
-
-        RoundedButton XpowerY = new RoundedButton("", 30, "x^y");
-        XpowerY.setFont(new Font("Tahoma", Font.BOLD, 17));
-        XpowerY.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation.contains(operator)) {
-                    equation = "x^y";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        XpowerY.setBounds(236, 638, 94, 54);
-        panel.add(XpowerY);
-
-        RoundedButton Cx_button = new RoundedButton("Cx", 30, "CEX");
-        Cx_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        Cx_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation2.contains(operator)) {
-                    equation = "Cx";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        Cx_button.setBounds(340, 638, 94, 54);
-        panel.add(Cx_button);
-
-        RoundedButton xplusC_button = new RoundedButton("x + C", 30, "x+c");
-        xplusC_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        xplusC_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation2.contains(operator)) {
-                    equation = "x+C";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        xplusC_button.setBounds(444, 638, 94, 54);
-        panel.add(xplusC_button);
-
-        RoundedButton XpowerC = new RoundedButton("", 30, "x^c");
-        XpowerC.setFont(new Font("Tahoma", Font.BOLD, 17));
-        XpowerC.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(supportedAdvancedEquation2.contains(operator)) {
-                    equation = "x^C";
-                    equationHolder.setText("Equation: " + equation);
-                }
-            }
-        });
-        XpowerC.setBounds(548, 638, 94, 54);
-        panel.add(XpowerC);
-
-        RoundedButton answer_button = new RoundedButton("ANS", 30, "ANS");
-        answer_button.setFont(new Font("Tahoma", Font.BOLD, 17));
-        answer_button.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                calc.setText(calc.getText() + ANS);
-                numwrapper.setText(zeroCount == 0 ?("" + "ANS") : numwrapper.getText() + "ANS");
-                zeroCount ++;
-            }
-        });
-        answer_button.setBounds(652, 640, 94, 54);
-        panel.add(answer_button);
-
-        format = new RoundedButton("", 0, "FRM");
-        format.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                helper.setFormat();
-            }
-        });
-        format.setBounds(756, 706, 20, 21);
-        panel.add(format);
-
-        ansHolder1 = new RoundedButton("", 0, "ah1");
-        ansHolder1.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(ah1 == 0) return;
-                ANS = ah1;
-                ah1 = 0;
-                answer_button.doClick();
-            }
-        });
-        ansHolder1.setBounds(334, 0, 20, 21);
-        panel.add(ansHolder1);
-
-        ansHolder2 = new RoundedButton("", 0, "ah2");
-        ansHolder2.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(ah2 == 0) return;
-                ANS = ah2;
-                ah2 = 0;
-                answer_button.doClick();
-            }
-        });
-        ansHolder2.setBounds(374, 0, 20, 21);
-        panel.add(ansHolder2);
-
-        ansHolder3 = new RoundedButton("", 0, "ah3");
-        ansHolder3.addActionListener(new ActionListener() {
-            public void actionPerformed(ActionEvent e) {
-                if(ah3 == 0) return;
-                ANS = ah3;
-                ah3 = 0;
-                answer_button.doClick();
-            }
-        });
-        ansHolder3.setBounds(414, 0, 20, 21);
-        panel.add(ansHolder3);
+        Map<String, RoundedButton> buttons = ButtonRegistry.build(panel, this::dispatch, this::recallHistory);
+        DEL_button = buttons.get("DL");
+        AC_button = buttons.get("AC");
+        equals_button = buttons.get("EQU");
+        set_button = buttons.get("ST");
+        cuberoot_button = buttons.get("CBRT");
+        numroot_button = buttons.get("NMROOT");
+        logsubtwoX_button = buttons.get("LG2");
+        lognumx_button = buttons.get("LGN");
+        format = buttons.get("FRM");
 
         // Assigning names to the UI elements (for UI testing)
         contentPane.setName("ContentPane");
         panel.setName("MainPanel");
         panel_1.setName("TopPanel");
 
-        equationHolder.setName("EquationHolder");
-        zValue.setName("ZField");
-        yValue.setName("YField");
-        xValue.setName("XField");
-        variableHolder.setName("VariableLabel");
-        imageHolder.setName("ImageLabel");
         calc.setName("CalcField");
         numwrapper.setName("ResultDisplay");
         holder.setName("HolderField");
 
-        // Top controls / common
-        DEL_button.setName("DeleteButton");
-        AC_button.setName("AllClearButton");
-        plus_minusbutton.setName("PlusMinusButton");
-        plus_button.setName("PlusButton");
-        FLR_button.setName("FloorButton");
-        CEIL_button.setName("CeilButton");
-        INT_button.setName("IntButton");
-
-        // Digit buttons
-        seven_button.setName("SevenButton");
-        eight_button.setName("EightButton");
-        nine_button.setName("NineButton");
-        four_button.setName("FourButton");
-        five_button.setName("FiveButton");
-        six_button.setName("SixButton");
-        one_button.setName("OneButton");
-        two_button.setName("TwoButton");
-        three_button.setName("ThreeButton");
-        zero_button.setName("ZeroButton");
-        period_button.setName("PeriodButton");
-
-        // Basic operators
-        minus_button.setName("MinusButton");
-        multiplication_button.setName("MultiplyButton");
-        division_button.setName("DivideButton");
-        integerdivision_button.setName("IntegerDivisionButton");
-        modulus.setName("ModulusButton");
-        equals_button.setName("EqualsButton");
-
-        // Advanced / function buttons
-        factorial_button.setName("FactorialButton");
-        squareroot_button.setName("SqrtButton");
-        cuberoot_button.setName("CbrtButton");
-        numroot_button.setName("NumRootButton");
-        XpowerY_button.setName("XPowerYButton");
-        XpowerYpowerofZ_button.setName("XPowerYPowerZButton");
-        XpowerY.setName("XPowerY_Short");
-        XpowerC.setName("XPowerCButton");
-        productnotation_button.setName("ProductNotationButton");
-        summation_button.setName("SummationButton");
-        doublesummation_button.setName("DoubleSummationButton");
-        doubleproductnotation_button.setName("DoubleProductNotationButton");
-        doublesummation_button.setName("DoubleSummationButton");
-        integerdivision_button.setName("IntegerDivisionButton");
-        aFACTplusbFACT_button.setName("SumFactorialButton");
-        aFACTdividebFACT_button.setName("DivideFactorialButton");
-
-        // Notation / log buttons
-        logsubtwoX_button.setName("Log2Button");
-        lognumx_button.setName("LogNButton");
-        logX_button.setName("LogButton");
-
-        // Variable buttons
-        A_button.setName("AButton");
-        B_button.setName("BButton");
-        C_button.setName("CButton");
-        D_button.setName("DButton");
-        answer_button.setName("ANSButton");
-
-        // Advanced equation chooser buttons
-        XY_button.setName("XYEquationButton");
-        XplusY_button.setName("XPlusYButton");
-        XpowerY.setName("XPowerY_Button");
-        Cx_button.setName("CxButton");
-        xplusC_button.setName("XPlusCButton");
-        XpowerC.setName("XPowerC_Button");
-
-        // Misc controls
-        set_button.setName("SetButton");
-        format.setName("FormatButton");
-        ansHolder1.setName("AnswerHolder1");
-        ansHolder2.setName("AnswerHolder2");
-        ansHolder3.setName("AnswerHolder3");
-
-
-        helper = new CalculatorHelper(format, calc, numwrapper, holder, zValue, yValue, xValue, imageHolder, variableHolder, lognumx_button, logsubtwoX_button, set_button, cuberoot_button, numroot_button, equationHolder, DEL_button, equals_button, AC_button);
-        String[] imagePaths = {
-                "/Picture/cuberoot.png",
-                "/Picture/numroot.png",
-                "/Picture/summation.png",
-                "/Picture/X.png",
-                "/Picture/xyz.png",
-                "/Picture/prodnot.png",
-                "/Picture/doublesum.png",
-                "/Picture/doubleprodnot.png",
-                "/Picture/log2x.png",
-                "/Picture/lognumx.png",
-                "/Picture/logx.png",
-                "/Picture/xy-white.png",
-                "/Picture/xc.png"
-        };
+        helper = new CalculatorHelper(format, calc, numwrapper, holder, null, null, null, null, null, lognumx_button, logsubtwoX_button, set_button, cuberoot_button, numroot_button, null, DEL_button, equals_button, AC_button);
+        helper.setAdvancedFactory(this::buildAdvanced);
         helper.setKeyToObject(panel);
-        RoundedButton[] buttons = {
-                cuberoot_button,
-                numroot_button,
-                summation_button,
-                XpowerY_button,
-                XpowerYpowerofZ_button,
-                productnotation_button,
-                doublesummation_button,
-                doubleproductnotation_button,
-                logsubtwoX_button,
-                lognumx_button,
-                logX_button,
-                XpowerY,
-                XpowerC
-        };
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_V, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()), "paste");
+        panel.getActionMap().put("paste", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
 
-        for (int i = 0; i < imagePaths.length; i++) {
-            Image image = helper.loadImage(imagePaths[i]);
-            if (image != null) {
-                buttons[i].setIcon(new ImageIcon(image));
-            } else {
-                System.out.println("Failed to load image: " + imagePaths[i]);
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                paste();
+            }
+        });
+
+        CalculatorState saved = session.load();
+        if (saved != null) state = saved;
+        recorder.start(state);
+        render();
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeSession();
             }
+        });
+    }
+
+    /** Saves the state for next time and closes the session file and any recording. */
+    void closeSession() {
+        session.save(state);
+        session.close();
+        try {
+            recorder.close();
+        } catch (IOException ex) {
+            System.err.println("Could not record session: " + ex.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,257 @@
+package calculator;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Allocation-free decimal parsing for doubles and longs.
+ * <p>
+ * Reads directly from a {@link CharSequence}, {@code char[]} or {@code byte[]} range; one
+ * scan serves all three through a small character accessor.
+ * Short inputs take Clinger's exact path, the rest go through the Eisel-Lemire
+ * algorithm with 128-bit powers of five. Whenever that algorithm cannot prove the
+ * rounding (more than 19 significant digits, subnormals, exact halfway cases) or the
+ * text is not a plain decimal, the input is handed to {@link Double#parseDouble},
+ * so results and exceptions always match the JDK.
+ */
+public final class NumberParser {
+
+    private static final int SMALLEST_POWER_OF_FIVE = -342;
+    private static final int LARGEST_POWER_OF_FIVE = 308;
+    private static final int MAX_SIGNIFICANT_DIGITS = 19;
+    private static final int MAX_EXPONENT_DIGITS = 100_000;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // High and low 64 bits of 5^q normalised to 128 bits, truncated (rounded up for q < 0).
+    private static final long[] MANTISSA_HIGH = new long[LARGEST_POWER_OF_FIVE - SMALLEST_POWER_OF_FIVE + 1];
+    private static final long[] MANTISSA_LOW = new long[MANTISSA_HIGH.length];
+
+    static {
+        BigInteger five = BigInteger.valueOf(5);
+        for (int q = SMALLEST_POWER_OF_FIVE; q <= LARGEST_POWER_OF_FIVE; q++) {
+            BigInteger c;
+            if (q >= 0) {
+                BigInteger power = five.pow(q);
+                int shift = 128 - power.bitLength();
+                c = shift >= 0 ? power.shiftLeft(shift) : power.shiftRight(-shift);
+            } else {
+                BigInteger power = five.pow(-q);
+                int z = power.bitLength();
+                int b = (q >= -27) ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power).add(BigInteger.ONE);
+                if (c.bitLength() > 128) {
+                    c = c.shiftRight(c.bitLength() - 128);
+                }
+            }
+            MANTISSA_HIGH[q - SMALLEST_POWER_OF_FIVE] = c.shiftRight(64).longValue();
+            MANTISSA_LOW[q - SMALLEST_POWER_OF_FIVE] = c.longValue();
+        }
+    }
+
+    private NumberParser() {
+    }
+
+    /**
+     * Reads one character of an input type. The three accessors below capture nothing, so
+     * passing one costs no allocation, and each entry point always passes the same one.
+     */
+    @FunctionalInterface
+    private interface Chars<T> {
+        int at(T text, int index);
+    }
+
+    private static final Chars<CharSequence> CHAR_SEQUENCE = CharSequence::charAt;
+    private static final Chars<char[]> CHAR_ARRAY = (text, index) -> text[index];
+    private static final Chars<byte[]> BYTE_ARRAY = (text, index) -> text[index];
+
+    /** Sentinel from {@link #scanLong} for input that needs the JDK; no 18-digit value reaches it. */
+    private static final long NOT_SCANNED = Long.MIN_VALUE;
+
+    public static double parseDouble(CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    public static double parseDouble(CharSequence text, int from, int to) {
+        double value = scanDouble(CHAR_SEQUENCE, text, from, to);
+        return Double.isNaN(value) ? Double.parseDouble(text.subSequence(from, to).toString()) : value;
+    }
+
+    public static double parseDouble(char[] text, int from, int to) {
+        double value = scanDouble(CHAR_ARRAY, text, from, to);
+        return Double.isNaN(value) ? Double.parseDouble(new String(text, from, to - from)) : value;
+    }
+
+    public static double parseDouble(byte[] text, int from, int to) {
+        double value = scanDouble(BYTE_ARRAY, text, from, to);
+        return Double.isNaN(value)
+                ? Double.parseDouble(new String(text, from, to - from, StandardCharsets.ISO_8859_1)) : value;
+    }
+
+    public static long parseLong(CharSequence text) {
+        return parseLong(text, 0, text.length());
+    }
+
+    public static long parseLong(CharSequence text, int from, int to) {
+        long value = scanLong(CHAR_SEQUENCE, text, from, to);
+        return value == NOT_SCANNED ? Long.parseLong(text.subSequence(from, to).toString()) : value;
+    }
+
+    public static long parseLong(char[] text, int from, int to) {
+        long value = scanLong(CHAR_ARRAY, text, from, to);
+        return value == NOT_SCANNED ? Long.parseLong(new String(text, from, to - from)) : value;
+    }
+
+    public static long parseLong(byte[] text, int from, int to) {
+        long value = scanLong(BYTE_ARRAY, text, from, to);
+        return value == NOT_SCANNED
+                ? Long.parseLong(new String(text, from, to - from, StandardCharsets.ISO_8859_1)) : value;
+    }
+
+    /**
+     * Scans a plain decimal (sign, digits, fraction, exponent) in text[from, to) and
+     * converts it, or returns NaN when the text is anything else or the fast path cannot
+     * round it; the caller then hands the text to the JDK.
+     */
+    private static <T> double scanDouble(Chars<T> chars, T text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        int c = i < to ? chars.at(text, i) : -1;
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long digits = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        for (; i < to && (c = chars.at(text, i)) >= '0' && c <= '9'; i++) {
+            digits = digits * 10 + (c - '0');
+            significant += (digits != 0) ? 1 : 0;
+            seenDigit = true;
+        }
+        if (i < to && chars.at(text, i) == '.') {
+            for (i++; i < to && (c = chars.at(text, i)) >= '0' && c <= '9'; i++) {
+                digits = digits * 10 + (c - '0');
+                significant += (digits != 0) ? 1 : 0;
+                exponent--;
+                seenDigit = true;
+            }
+        }
+        if (seenDigit && i < to && ((c = chars.at(text, i)) == 'e' || c == 'E')) {
+            int e = i + 1;
+            boolean negativeExponent = false;
+            if (e < to && ((c = chars.at(text, e)) == '-' || c == '+')) {
+                negativeExponent = c == '-';
+                e++;
+            }
+            int start = e;
+            int explicit = 0;
+            for (; e < to && (c = chars.at(text, e)) >= '0' && c <= '9'; e++) {
+                explicit = Math.min(explicit * 10 + (c - '0'), MAX_EXPONENT_DIGITS);
+            }
+            if (e > start) {
+                exponent += negativeExponent ? -explicit : explicit;
+                i = e;
+            }
+        }
+        if (seenDigit && i == to && significant <= MAX_SIGNIFICANT_DIGITS) {
+            return decimalToDouble(negative, digits, exponent);
+        }
+        return Double.NaN;
+    }
+
+    /** Scans an optionally signed run of at most 18 digits, or returns {@link #NOT_SCANNED}. */
+    private static <T> long scanLong(Chars<T> chars, T text, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        int c = i < to ? chars.at(text, i) : -1;
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long value = 0;
+        int start = i;
+        for (; i < to && (c = chars.at(text, i)) >= '0' && c <= '9'; i++) {
+            value = value * 10 + (c - '0');
+        }
+        if (i > start && i == to && i - start <= 18) {
+            return negative ? -value : value;
+        }
+        return NOT_SCANNED;
+    }
+
+    /**
+     * Computes the double nearest to digits * 10^power (digits read as unsigned),
+     * or NaN when the fast algorithms cannot guarantee correct rounding.
+     */
+    static double decimalToDouble(boolean negative, long digits, int power) {
+        if (digits == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (power >= -22 && power <= 22 && Long.compareUnsigned(digits, 1L << 53) <= 0) {
+            double value = (double) digits;
+            value = (power < 0) ? value / POWERS_OF_TEN[-power] : value * POWERS_OF_TEN[power];
+            return negative ? -value : value;
+        }
+        if (power < SMALLEST_POWER_OF_FIVE) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (power > LARGEST_POWER_OF_FIVE) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        int index = power - SMALLEST_POWER_OF_FIVE;
+        long factor = MANTISSA_HIGH[index];
+        long exponent = (((152170 + 65536) * power) >> 16) + 1024 + 63;
+        int leadingZeros = Long.numberOfLeadingZeros(digits);
+        long shifted = digits << leadingZeros;
+
+        long upper = Math.unsignedMultiplyHigh(shifted, factor);
+        long lower = shifted * factor;
+
+        // Only when the low 9 bits are all ones can the truncated power of five
+        // change the 55 leading bits; refine with the lower half of the power.
+        if ((upper & 0x1FF) == 0x1FF && Long.compareUnsigned(lower + shifted, lower) < 0) {
+            long factorLow = MANTISSA_LOW[index];
+            long productLow = shifted * factorLow;
+            long productMiddle = lower + Math.unsignedMultiplyHigh(shifted, factorLow);
+            long productHigh = upper;
+            if (Long.compareUnsigned(productMiddle, lower) < 0) {
+                productHigh++;
+            }
+            if (productMiddle + 1 == 0 && (productHigh & 0x1FF) == 0x1FF
+                    && Long.compareUnsigned(productLow + shifted, productLow) < 0) {
+                return Double.NaN;
+            }
+            upper = productHigh;
+            lower = productMiddle;
+        }
+
+        long upperBit = upper >>> 63;
+        long mantissa = upper >>> (upperBit + 9);
+        leadingZeros += (int) (1 ^ upperBit);
+
+        // Possibly exactly halfway between two doubles: round-to-even needs more precision.
+        if ((upper & 0x1FF) == 0x1FF || ((upper & 0x1FF) == 0 && (mantissa & 3) == 1)) {
+            return Double.NaN;
+        }
+
+        mantissa += 1;
+        mantissa >>>= 1;
+        if (mantissa >= (1L << 53)) {
+            mantissa = 1L << 52;
+            leadingZeros--;
+        }
+        mantissa &= ~(1L << 52);
+
+        long realExponent = exponent - leadingZeros;
+        if (realExponent < 1 || realExponent > 2046) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(mantissa | realExponent << 52 | (negative ? 1L << 63 : 0L));
+    }
+}
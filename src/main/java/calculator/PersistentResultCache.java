@@ -0,0 +1,245 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * On-disk result cache that survives restarts: an open-addressed hash table in a
+ * memory-mapped file, keyed by the same canonical tuple as {@link ResultCache}.
+ * <pre>
+ * header (64 bytes): "CALCPRC1" | int version | int bucketCount | zero padding
+ * bucket (512 bytes): 8 slots of 64 bytes
+ * slot: long header | long first, second, third, fourth | long value | long stamp | long checksum
+ * </pre>
+ * A key hashes to one bucket, and probing stays inside its 8 slots, so a lookup touches
+ * one disk sector. A slot is written field by field with its checksum last. A slot whose
+ * checksum does not match is treated as empty. That covers a torn write after a crash and
+ * a slot being rewritten while another thread reads it. When a bucket is full, the slot
+ * with the oldest stamp is overwritten, so the file never grows past its initial size.
+ * <p>
+ * Opening the file maps it and touches its pages; entries are read in place and never
+ * copied onto the heap. Only results whose {@link CostEstimator} cost reaches
+ * minIterations are stored; cheap ones belong in {@link ResultCache}.
+ */
+public class PersistentResultCache implements Evaluator, Closeable {
+
+    static final byte[] MAGIC = "CALCPRC1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    static final int SLOT_BYTES = 64;
+    static final int BUCKET_SLOTS = 8;
+    static final int BUCKET_BYTES = SLOT_BYTES * BUCKET_SLOTS;
+    /** MappedByteBuffer is int-indexed. */
+    static final long MAX_BYTES = 1L << 30;
+    public static final long DEFAULT_MIN_ITERATIONS = 100_000;
+    private static final int LOCK_STRIPES = 256;
+
+    private final Evaluator delegate;
+    private final long minIterations;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int bucketMask;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final AtomicLong stamps = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final int loadedEntries;
+
+    /**
+     * Opens or creates the cache file. The file holds the largest power-of-two number of
+     * buckets that fits in maxBytes (capped at {@link #MAX_BYTES}). An existing file with a
+     * different layout is discarded.
+     */
+    public PersistentResultCache(Path path, long maxBytes, Evaluator delegate, long minIterations) throws IOException {
+        this.delegate = delegate;
+        this.minIterations = minIterations;
+        long buckets = Long.highestOneBit(Math.max(1, (Math.min(maxBytes, MAX_BYTES) - HEADER_BYTES) / BUCKET_BYTES));
+        long size = HEADER_BYTES + buckets * BUCKET_BYTES;
+        this.bucketMask = (int) buckets - 1;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reuse = channel.size() == size && hasHeader(channel, (int) buckets);
+        if (!reuse) {
+            channel.truncate(0);
+        }
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (!reuse) {
+            buffer.put(0, MAGIC).putInt(MAGIC.length, VERSION).putInt(MAGIC.length + 4, (int) buckets);
+        }
+        this.loadedEntries = warm();
+    }
+
+    public PersistentResultCache(Path path, long maxBytes, Evaluator delegate) throws IOException {
+        this(path, maxBytes, delegate, DEFAULT_MIN_ITERATIONS);
+    }
+
+    private static boolean hasHeader(FileChannel channel, int buckets) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        byte[] magic = new byte[MAGIC.length];
+        header.get(0, magic);
+        return Arrays.equals(magic, MAGIC) && header.getInt(MAGIC.length) == VERSION && header.getInt(MAGIC.length + 4) == buckets;
+    }
+
+    /** Pages the table in and resumes the stamp counter; returns the number of valid entries. */
+    private int warm() {
+        buffer.load();
+        int valid = 0;
+        long maxStamp = 0;
+        int slots = (bucketMask + 1) * BUCKET_SLOTS;
+        for (int slot = 0; slot < slots; slot++) {
+            int offset = HEADER_BYTES + slot * SLOT_BYTES;
+            if (isValid(offset)) {
+                valid++;
+                maxStamp = Math.max(maxStamp, buffer.getLong(offset + 48));
+            }
+        }
+        stamps.set(maxStamp);
+        return valid;
+    }
+
+    @Override
+    public double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue,
+                           ProgressMonitor monitor) {
+        byte opcode = RpcProtocol.opcodeOrZero(operator);
+        if (opcode == 0 || CostEstimator.iterations(operator, firstValue, secondValue, thirdValue, fourthValue) < minIterations) {
+            return delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+        }
+        long header = ResultCache.header(opcode, RpcProtocol.equationCode(equation), nValue);
+        long first = Double.doubleToLongBits(firstValue), second = Double.doubleToLongBits(secondValue);
+        long third = Double.doubleToLongBits(thirdValue), fourth = Double.doubleToLongBits(fourthValue);
+        int bucket = (int) ResultCache.hash(header, first, second, third, fourth) & bucketMask;
+        int base = HEADER_BYTES + bucket * BUCKET_BYTES;
+
+        int offset = find(base, header, first, second, third, fourth);
+        if (offset >= 0) {
+            long bits = buffer.getLong(offset + 40);
+            // Re-check: the slot may have been rewritten between find and the value read.
+            if (isValid(offset) && matches(offset, header, first, second, third, fourth)) {
+                hits.increment();
+                return Double.longBitsToDouble(bits);
+            }
+        }
+        misses.increment();
+
+        double value = delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+        if (monitor == ProgressMonitor.NONE
+                || monitor instanceof CancellationToken token && token.status() == CancellationToken.Status.COMPLETED) {
+            synchronized (locks[bucket & (LOCK_STRIPES - 1)]) {
+                if (find(base, header, first, second, third, fourth) < 0) {
+                    write(victim(base), header, first, second, third, fourth, Double.doubleToRawLongBits(value));
+                }
+            }
+        }
+        return value;
+    }
+
+    private int find(int base, long header, long first, long second, long third, long fourth) {
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            int offset = base + i * SLOT_BYTES;
+            if (matches(offset, header, first, second, third, fourth) && isValid(offset)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int offset, long header, long first, long second, long third, long fourth) {
+        return buffer.getLong(offset) == header && buffer.getLong(offset + 8) == first && buffer.getLong(offset + 16) == second
+                && buffer.getLong(offset + 24) == third && buffer.getLong(offset + 32) == fourth;
+    }
+
+    /** An invalid slot if there is one, otherwise the one with the oldest stamp. */
+    private int victim(int base) {
+        int oldest = base;
+        long oldestStamp = Long.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SLOTS; i++) {
+            int offset = base + i * SLOT_BYTES;
+            if (!isValid(offset)) {
+                return offset;
+            }
+            long stamp = buffer.getLong(offset + 48);
+            if (stamp < oldestStamp) {
+                oldestStamp = stamp;
+                oldest = offset;
+            }
+        }
+        evictions.increment();
+        return oldest;
+    }
+
+    private void write(int offset, long header, long first, long second, long third, long fourth, long value) {
+        long stamp = stamps.incrementAndGet();
+        buffer.putLong(offset + 56, 0);
+        buffer.putLong(offset, header);
+        buffer.putLong(offset + 8, first);
+        buffer.putLong(offset + 16, second);
+        buffer.putLong(offset + 24, third);
+        buffer.putLong(offset + 32, fourth);
+        buffer.putLong(offset + 40, value);
+        buffer.putLong(offset + 48, stamp);
+        buffer.putLong(offset + 56, checksum(header, first, second, third, fourth, value, stamp));
+    }
+
+    private boolean isValid(int offset) {
+        long stored = buffer.getLong(offset + 56);
+        return stored != 0 && stored == checksum(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                buffer.getLong(offset + 24), buffer.getLong(offset + 32), buffer.getLong(offset + 40), buffer.getLong(offset + 48));
+    }
+
+    /** Never 0, which marks a slot that was never written or is being rewritten. */
+    static long checksum(long header, long first, long second, long third, long fourth, long value, long stamp) {
+        long h = ResultCache.hash(header, first, second, third, fourth);
+        h = (h ^ value) * 0x9E3779B97F4A7C15L;
+        h = (h ^ stamp) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return h == 0 ? 1 : h;
+    }
+
+    /** Number of valid entries found when the file was opened. */
+    public int loadedEntries() {
+        return loadedEntries;
+    }
+
+    public int capacity() {
+        return (bucketMask + 1) * BUCKET_SLOTS;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /** Forces written entries to the storage device. */
+    public void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,17 @@
+package calculator;
+
+/**
+ * Receives progress from the long-running {@link Functions} kernels.
+ * The kernels call it every {@link Functions#CHECK_INTERVAL} iterations.
+ */
+@FunctionalInterface
+public interface ProgressMonitor {
+
+    ProgressMonitor NONE = fraction -> true;
+
+    /**
+     * @param fraction share of the range processed so far, from 0 to 1
+     * @return false to stop the kernel early; it then returns its partial result
+     */
+    boolean checkpoint(double fraction);
+}
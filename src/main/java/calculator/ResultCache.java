@@ -0,0 +1,223 @@
+package calculator;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memo cache in front of an {@link Evaluator}.
+ * <p>
+ * A request's canonical tuple (opcode, equation code, nValue and the raw bits of the four
+ * operands) is packed into five longs, so a lookup allocates nothing. Entries live in flat
+ * primitive arrays arranged as {@value #WAYS}-way sets. Each slot also has a non-zero
+ * 32-bit tag from the hash (0 marks a free slot), so a miss usually reads only the set's
+ * one cache line of tags. A full set evicts with CLOCK: a hit sets the entry's reference
+ * bit, and the hand clears bits until it finds an unreferenced entry to replace.
+ * <p>
+ * Each set has a sequence number that doubles as its write lock. A writer CASes it from
+ * even to odd, changes the set, then publishes the next even number. Readers take no lock;
+ * they retry if the number moved under them. An insert that finds its set locked is
+ * dropped rather than waiting.
+ * <p>
+ * Only successful, complete results are stored. Exceptions pass straight through. So does
+ * a kernel stopped early by its {@link CancellationToken}. Any other monitor makes the
+ * result uncacheable because there is no way to tell if it stopped. Caching is switched
+ * per operator; by default it covers the range, factorial and log operators, where a
+ * lookup is cheaper than the work.
+ */
+public class ResultCache implements Evaluator {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    static final int WAYS = 8;
+    private static final int KEY_LONGS = 5;
+
+    private final Evaluator delegate;
+    private final int setMask;
+    private final int[] tags;
+    private final long[] keys;
+    private final long[] values;
+    private final boolean[] referenced;
+    private final int[] hands;
+    // Written only while the set's sequence is odd, so plain increments are exact.
+    private final long[] evictions;
+    private final AtomicIntegerArray sequences;
+    private final boolean[] enabled = new boolean[RpcProtocol.OPERATORS.length];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /** capacity is rounded up to a power of two of at least {@value #WAYS} entries. */
+    public ResultCache(Evaluator delegate, int capacity) {
+        this.delegate = delegate;
+        int minSets = (Math.max(capacity, 1) + WAYS - 1) / WAYS;
+        int sets = minSets == 1 ? 1 : Integer.highestOneBit((minSets - 1) << 1);
+        this.setMask = sets - 1;
+        this.tags = new int[sets * WAYS];
+        this.keys = new long[sets * WAYS * KEY_LONGS];
+        this.values = new long[sets * WAYS];
+        this.referenced = new boolean[sets * WAYS];
+        this.hands = new int[sets];
+        this.evictions = new long[sets];
+        this.sequences = new AtomicIntegerArray(sets);
+        for (String operator : new String[] {"∑", "∑∑", "Π", "ΠΠ", "N!", "a! + b!", "a! / b!", "log(2)(", "log(", "log(n)x("}) {
+            setEnabled(operator, true);
+        }
+    }
+
+    public void setEnabled(String operator, boolean enable) {
+        enabled[RpcProtocol.opcode(operator)] = enable;
+    }
+
+    public boolean isEnabled(String operator) {
+        return enabled[RpcProtocol.opcodeOrZero(operator)];
+    }
+
+    @Override
+    public double evaluate(String operator, String equation, int nValue, double firstValue, double secondValue, double thirdValue, double fourthValue,
+                           ProgressMonitor monitor) {
+        byte opcode = RpcProtocol.opcodeOrZero(operator);
+        if (opcode == 0 || !enabled[opcode]) {
+            return delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+        }
+        long header = header(opcode, RpcProtocol.equationCode(equation), nValue);
+        long first = Double.doubleToLongBits(firstValue), second = Double.doubleToLongBits(secondValue);
+        long third = Double.doubleToLongBits(thirdValue), fourth = Double.doubleToLongBits(fourthValue);
+        long hash = hash(header, first, second, third, fourth);
+        int set = (int) hash & setMask;
+        int tag = (int) (hash >>> 32) | 1;
+
+        while (true) {
+            int sequence = sequences.get(set);
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int slot = find(set, tag, header, first, second, third, fourth);
+            long bits = slot >= 0 ? values[slot] : 0;
+            VarHandle.acquireFence();
+            if (sequences.get(set) != sequence) {
+                continue;
+            }
+            if (slot >= 0) {
+                // A lost update here only costs the entry one CLOCK sweep.
+                referenced[slot] = true;
+                hits.increment();
+                return Double.longBitsToDouble(bits);
+            }
+            break;
+        }
+        misses.increment();
+
+        double value = delegate.evaluate(operator, equation, nValue, firstValue, secondValue, thirdValue, fourthValue, monitor);
+        if (monitor == ProgressMonitor.NONE
+                || monitor instanceof CancellationToken token && token.status() == CancellationToken.Status.COMPLETED) {
+            int sequence = sequences.get(set);
+            if ((sequence & 1) == 0 && sequences.compareAndSet(set, sequence, sequence + 1)) {
+                if (find(set, tag, header, first, second, third, fourth) < 0) {
+                    insert(set, tag, header, first, second, third, fourth, value);
+                }
+                sequences.setRelease(set, sequence + 2);
+            }
+        }
+        return value;
+    }
+
+    private int find(int set, int tag, long header, long first, long second, long third, long fourth) {
+        int base = set * WAYS;
+        for (int way = 0; way < WAYS; way++) {
+            if (tags[base + way] != tag) continue;
+            int k = (base + way) * KEY_LONGS;
+            if (keys[k] == header && keys[k + 1] == first && keys[k + 2] == second
+                    && keys[k + 3] == third && keys[k + 4] == fourth) {
+                return base + way;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int set, int tag, long header, long first, long second, long third, long fourth, double value) {
+        int base = set * WAYS;
+        int slot = -1;
+        for (int way = 0; way < WAYS; way++) {
+            if (tags[base + way] == 0) {
+                slot = base + way;
+                break;
+            }
+        }
+        if (slot < 0) {
+            int hand = hands[set];
+            while (referenced[base + hand]) {
+                referenced[base + hand] = false;
+                hand = (hand + 1) & (WAYS - 1);
+            }
+            slot = base + hand;
+            hands[set] = (hand + 1) & (WAYS - 1);
+            evictions[set]++;
+        }
+        int k = slot * KEY_LONGS;
+        tags[slot] = tag;
+        keys[k] = header;
+        keys[k + 1] = first;
+        keys[k + 2] = second;
+        keys[k + 3] = third;
+        keys[k + 4] = fourth;
+        values[slot] = Double.doubleToRawLongBits(value);
+        referenced[slot] = false;
+    }
+
+    /** First key word of a canonical tuple; never 0 because opcodes start at 1. */
+    static long header(byte opcode, byte equation, int nValue) {
+        return (long) opcode << 56 | (long) equation << 48 | (nValue & 0xFFFFFFFFL);
+    }
+
+    static long hash(long header, long first, long second, long third, long fourth) {
+        long h = header * 0x9E3779B97F4A7C15L;
+        h = (h ^ first) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ second) * 0x94D049BB133111EBL;
+        h = (h ^ third) * 0x9E3779B97F4A7C15L;
+        h = (h ^ fourth) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+
+    public void clear() {
+        for (int set = 0; set <= setMask; set++) {
+            int sequence;
+            do {
+                sequence = sequences.get(set) & ~1;
+            } while (!sequences.compareAndSet(set, sequence, sequence + 1));
+            int base = set * WAYS;
+            for (int way = 0; way < WAYS; way++) {
+                tags[base + way] = 0;
+                referenced[base + way] = false;
+            }
+            sequences.setRelease(set, sequence + 2);
+        }
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        long total = 0;
+        for (int set = 0; set <= setMask; set++) {
+            int sequence;
+            long count;
+            do {
+                sequence = sequences.get(set);
+                count = evictions[set];
+                VarHandle.acquireFence();
+            } while ((sequence & 1) != 0 || sequences.get(set) != sequence);
+            total += count;
+        }
+        return total;
+    }
+}
@@ -1,36 +1,165 @@
 package calculator;
 
 import javax.swing.JTextField;
+import javax.swing.text.BadLocationException;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 
 public class RoundJTextField extends JTextField {
     private static final long serialVersionUID = 1L;
-    private Shape shape;
+    private static final int ARC = 15;
+    /** Pixels either side of the changed text that are repainted too, for glyph overhang and the caret. */
+    private static final int SLOP = 3;
+    /** The rounded background at the current size; null until first painted. */
+    private BufferedImage background;
+    private GraphicsConfiguration backgroundScreen;
+    /** Set while {@link #setText} swaps the text, so Swing's whole-line repaint is dropped. */
+    private boolean replacing;
 
     public RoundJTextField(int size) {
         super(size);
         setOpaque(false); // As we will paint the background
         setBorder(null);  // Remove the border outline
         setColumns(10);
-        setBackground(new Color(213, 178, 224));
+        setBackground(Theme.FIELD);
+        addPropertyChangeListener("background", e -> background = null);
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        if (width != getWidth() || height != getHeight()) background = null;
+        super.setBounds(x, y, width, height);
+    }
+
+    /** Replaces the text and repaints only the part of the field whose pixels changed. */
+    @Override
+    public void setText(String text) {
+        Rectangle dirty = replaceText(text);
+        if (dirty == null) {
+            repaint();
+        } else if (!dirty.isEmpty()) {
+            repaint(dirty);
+        }
+    }
+
+    /**
+     * Swaps in text without repainting and returns the area that changed: from where the old
+     * and new text first differ to where they last differ, widened to the whole text when it
+     * moved (as trailing or centred text does when its length changes). Null when that cannot
+     * be worked out, e.g. before the field has a size or when the text is wider than the field.
+     */
+    Rectangle replaceText(String text) {
+        String old = getText();
+        String next = text == null ? "" : text;
+        int prefix = 0;
+        int limit = Math.min(old.length(), next.length());
+        while (prefix < limit && old.charAt(prefix) == next.charAt(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < limit - prefix && old.charAt(old.length() - 1 - suffix) == next.charAt(next.length() - 1 - suffix)) suffix++;
+
+        double[] before = textPositions(old.length(), prefix, suffix);
+        replacing = true;
+        try {
+            super.setText(text);
+        } finally {
+            replacing = false;
+        }
+        if (old.equals(next)) return new Rectangle();
+        double[] after = textPositions(next.length(), prefix, suffix);
+        if (before == null || after == null) return null;
+
+        boolean startStays = before[0] == after[0];
+        boolean endStays = before[3] == after[3];
+        double from = Math.min(startStays ? before[1] : before[0], startStays ? after[1] : after[0]);
+        double to = Math.max(endStays ? before[2] : before[3], endStays ? after[2] : after[3]);
+        int x = (int) Math.floor(from) - SLOP;
+        return new Rectangle(x, 0, (int) Math.ceil(to) + SLOP - x, getHeight()).intersection(new Rectangle(getSize()));
+    }
+
+    /**
+     * The x of the text's start, of the end of the common prefix, of the start of the common
+     * suffix and of the text's end; null when the field is unsized or the text does not fit.
+     */
+    private double[] textPositions(int length, int prefix, int suffix) {
+        if (getWidth() <= 0 || getHeight() <= 0) return null;
+        try {
+            Rectangle2D start = modelToView2D(0);
+            Rectangle2D end = modelToView2D(length);
+            if (start == null || end == null) return null;
+            Insets insets = getInsets();
+            if (start.getX() < insets.left || end.getX() > getWidth() - insets.right) return null;
+            return new double[] {start.getX(), modelToView2D(prefix).getX(), modelToView2D(length - suffix).getX(), end.getX()};
+        } catch (BadLocationException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (!replacing) super.repaint(tm, x, y, width, height);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
-        g.setColor(getBackground());
-        g.fillRoundRect(0, 0, getWidth() - 1, getHeight() - 1, 15, 15); // Making round corners
+        int width = getWidth();
+        int height = getHeight();
+        if (width > 0 && height > 0) {
+            GraphicsConfiguration screen = ((Graphics2D) g).getDeviceConfiguration();
+            if (background == null || screen != backgroundScreen) {
+                background = renderBackground(screen, width, height);
+                backgroundScreen = screen;
+            }
+            g.drawImage(background, 0, 0, width, height, null);
+        }
         super.paintComponent(g);
     }
 
+    /** Fills the rounded background once, at the screen's pixel density. */
+    private BufferedImage renderBackground(GraphicsConfiguration screen, int width, int height) {
+        AffineTransform scale = screen.getDefaultTransform();
+        BufferedImage image = screen.createCompatibleImage((int) Math.ceil(width * scale.getScaleX()),
+                (int) Math.ceil(height * scale.getScaleY()), Transparency.TRANSLUCENT);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(scale.getScaleX(), scale.getScaleY());
+            g.setColor(getBackground());
+            g.fillRoundRect(0, 0, width - 1, height - 1, ARC, ARC); // Making round corners
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
     @Override
     protected void paintBorder(Graphics g) {
         // Do nothing to avoid drawing any border
     }
+
+    /** Hit test against the rounded outline, worked out arithmetically so mouse moves allocate nothing. */
     @Override
     public boolean contains(int x, int y) {
-        if (shape == null || !shape.getBounds().equals(getBounds())) {
-            shape = new java.awt.geom.RoundRectangle2D.Float(0, 0, getWidth(), getHeight(), 15, 15);
-        }
-        return shape.contains(x, y);
+        return roundRectContains(x, y, getWidth(), getHeight(), ARC);
+    }
+
+    /** Same answer as {@link java.awt.geom.RoundRectangle2D#contains(double, double)} for a rect at the origin. */
+    static boolean roundRectContains(double x, double y, double width, double height, double arc) {
+        if (width <= 0 || height <= 0 || x < 0 || y < 0 || x >= width || y >= height) return false;
+        double rx = Math.min(width, Math.abs(arc)) / 2;
+        double ry = Math.min(height, Math.abs(arc)) / 2;
+
+        double cx;
+        if (x < rx) cx = rx;
+        else if (x >= width - rx) cx = width - rx;
+        else return true;
+        double cy;
+        if (y < ry) cy = ry;
+        else if (y >= height - ry) cy = height - ry;
+        else return true;
+
+        double dx = (x - cx) / rx;
+        double dy = (y - cy) / ry;
+        return dx * dx + dy * dy <= 1.0;
     }
 }
@@ -2,27 +2,39 @@ package calculator;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class RoundedButton extends JButton {
 
     private static final long serialVersionUID = 1L;
     private int cornerRadius;
+    private final String identifier;
+    /** Painted faces, unpressed then pressed; null until first painted at the current size. */
+    private final BufferedImage[] sprites = new BufferedImage[2];
+    private GraphicsConfiguration spriteScreen;
+    /** Picture to show once the button is first painted; null when there is none left to load. */
+    private String deferredIcon;
+    /** The picture last passed to {@link #setIconLater}; a decode for any other one is dropped. */
+    private String requestedIcon;
     private static final Map<String, ColorPair> colorMap = new HashMap<>();
+    private static final ColorPair DEFAULT_COLORS = new ColorPair(Color.WHITE, Color.BLACK);
 
     static {
-        Color orange = new Color(245, 155, 121);
-        Color red = new Color(241, 133, 141);
-        Color purple = new Color(133, 110, 167);
+        Color orange = Theme.color(245, 155, 121);
+        Color red = Theme.color(241, 133, 141);
+        Color purple = Theme.color(133, 110, 167);
 
-        Color black = new Color(59, 9, 24);
-        Color white = new Color(255, 255, 255);
+        Color black = Theme.color(59, 9, 24);
+        Color white = Theme.WHITE;
 
-        Color reds = new Color(240, 0, 0);
-        Color blue = new Color(0, 240, 0);
-        Color green = new Color(0, 0, 240);
+        Color reds = Theme.color(240, 0, 0);
+        Color blue = Theme.color(0, 240, 0);
+        Color green = Theme.color(0, 0, 240);
 
         addColors(new ColorPair(orange, black), "DL", "AC", "PM", "FLR", "CEL", "IT", "INTD", "MOD", "FAC", "SQRT", "CBRT", "NMROOT", "SUM", "XY", "XYZ", "PRN", "ZRO", "PRD", "DSUM", "DNOT");
         addColors(new ColorPair(red, white), "PLUS", "MN", "MUL", "DIV", "EQU");
@@ -40,15 +52,28 @@ public class RoundedButton extends JButton {
     public RoundedButton(String text, int cornerRadius, String identifier) {
         setText(text);
         this.cornerRadius = cornerRadius;
+        this.identifier = identifier;
         setFocusPainted(false);
         setOpaque(false);
         setBorderPainted(false);
         setBorder(null);
-        setFont(new Font("Tahoma", Font.BOLD, 15));
+        setFont(Theme.font("Tahoma", Font.BOLD, 15));
 
-        ColorPair colorPair = colorMap.getOrDefault(identifier, new ColorPair(Color.WHITE, Color.BLACK));
+        ColorPair colorPair = colorMap.getOrDefault(identifier, DEFAULT_COLORS);
         setBackground(colorPair.backgroundColor);
         setForeground(colorPair.foregroundColor);
+        addPropertyChangeListener(e -> {
+            switch (e.getPropertyName()) {
+                case "text", "icon", "font", "background", "foreground" -> invalidateSprites();
+                default -> {
+                }
+            }
+        });
+    }
+
+    /** The short key this button was created with, e.g. "FR" or "EQU"; also its input to {@link CalculatorState#reduce}. */
+    public String identifier() {
+        return identifier;
     }
 
     private static class ColorPair {
@@ -61,24 +86,99 @@ public class RoundedButton extends JButton {
         }
     }
 
+    /**
+     * Shows the picture at path from the first time the button is painted, so a button that
+     * starts hidden does not load its picture until its mode is switched on. The picture is
+     * decoded off the event thread and swapped in after that paint, unless another one has
+     * been asked for by then.
+     */
+    public void setIconLater(String path) {
+        deferredIcon = path;
+        requestedIcon = path;
+    }
+
+    /** Starts loading the deferred picture; the icon is set from a later event, never mid-paint. */
+    private void loadDeferredIcon() {
+        String path = deferredIcon;
+        deferredIcon = null;
+        ImageIcon cached = ImageCache.shared().cachedIcon(path);
+        CompletableFuture<ImageIcon> icon = cached != null
+                ? CompletableFuture.completedFuture(cached) : ImageCache.shared().iconAsync(path);
+        icon.thenAccept(decoded -> EventQueue.invokeLater(() -> {
+            if (path.equals(requestedIcon)) setIcon(decoded);
+        }));
+    }
+
+    /** Drops the painted faces so the next paint redraws them. */
+    private void invalidateSprites() {
+        sprites[0] = null;
+        sprites[1] = null;
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        if (width != getWidth() || height != getHeight()) invalidateSprites();
+        super.setBounds(x, y, width, height);
+    }
+
+    /**
+     * Paints the cached face for the current size and pressed state, drawing it first if
+     * needed. Text, icon, font, colours, size and screen all invalidate the cache.
+     */
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) return;
+        if (deferredIcon != null) loadDeferredIcon();
+
+        GraphicsConfiguration screen = ((Graphics2D) g).getDeviceConfiguration();
+        if (screen != spriteScreen) {
+            invalidateSprites();
+            spriteScreen = screen;
+        }
+        int pressed = getModel().isPressed() ? 1 : 0;
+        BufferedImage sprite = sprites[pressed];
+        if (sprite == null) {
+            sprite = renderSprite(screen, width, height, pressed == 1);
+            sprites[pressed] = sprite;
+        }
+        g.drawImage(sprite, 0, 0, width, height, null);
+    }
 
+    /** Draws the face at the screen's pixel density, so scaled displays stay sharp. */
+    private BufferedImage renderSprite(GraphicsConfiguration screen, int width, int height, boolean pressed) {
+        AffineTransform scale = screen.getDefaultTransform();
+        BufferedImage sprite = screen.createCompatibleImage((int) Math.ceil(width * scale.getScaleX()),
+                (int) Math.ceil(height * scale.getScaleY()), Transparency.TRANSLUCENT);
+        Graphics2D g2 = sprite.createGraphics();
+        try {
+            g2.scale(scale.getScaleX(), scale.getScaleY());
+            Map<?, ?> desktopHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+            if (desktopHints != null) g2.addRenderingHints(desktopHints);
+            g2.setFont(getFont());
+            paintFace(g2, width, height, pressed);
+        } finally {
+            g2.dispose();
+        }
+        return sprite;
+    }
+
+    private void paintFace(Graphics2D g2, int width, int height, boolean pressed) {
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        if (getModel().isPressed()) {
+        if (pressed) {
             g2.setColor(getBackground().darker());
         } else {
             g2.setColor(getBackground());
         }
 
-        g2.fill(new RoundRectangle2D.Double(0, 0, getWidth(), getHeight(), cornerRadius, cornerRadius));
+        g2.fill(new RoundRectangle2D.Double(0, 0, width, height, cornerRadius, cornerRadius));
 
         Icon icon = getIcon();
         if (icon != null) {
-            int iconX = (getWidth() - icon.getIconWidth()) / 2;
-            int iconY = (getHeight() - icon.getIconHeight()) / 2;
+            int iconX = (width - icon.getIconWidth()) / 2;
+            int iconY = (height - icon.getIconHeight()) / 2;
             icon.paintIcon(this, g2, iconX, iconY);
         }
 
@@ -88,13 +188,11 @@ public class RoundedButton extends JButton {
             int textWidth = fm.stringWidth(text);
             int textHeight = fm.getAscent() - (fm.getAscent() - fm.getDescent()) / 2;
 
-            int x = (getWidth() - textWidth) / 2;
-            int y = (getHeight() + textHeight) / 2;
+            int x = (width - textWidth) / 2;
+            int y = (height + textHeight) / 2;
 
             g2.setColor(getForeground());
             g2.drawString(text, x, y);
         }
-
-        g2.dispose();
     }
 }
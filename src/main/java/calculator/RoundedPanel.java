@@ -3,36 +3,75 @@ package calculator;
 
 import javax.swing.JPanel;
 
-import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 
 public class RoundedPanel extends JPanel {
 
     private static final long serialVersionUID = 1L;
     private int cornerRadius;  // Add a variable for the corner radius
+    /** The antialiased rounded background at the current size; null until first painted. */
+    private BufferedImage background;
+    private GraphicsConfiguration backgroundScreen;
 
     // Constructor with color and roundness
     public RoundedPanel(int cornerRadius) {
         this.cornerRadius = cornerRadius;
-        setBackground(new Color(213, 178, 224));
+        setBackground(Theme.FIELD);
         setBounds(28, 36, 718, 136);
         setOpaque(false); // Make the panel transparent for custom painting
+        addPropertyChangeListener("background", e -> background = null);
     }
 
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        if (width != getWidth() || height != getHeight()) background = null;
+        super.setBounds(x, y, width, height);
+    }
+
+    /**
+     * Draws the cached background. A field repaint only asks for its own rectangle, so only
+     * that part of the bitmap is copied rather than the whole shape being filled again.
+     */
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D g2 = (Graphics2D) g.create();
+        int width = getWidth();
+        int height = getHeight();
+        if (width > 0 && height > 0) {
+            GraphicsConfiguration screen = ((Graphics2D) g).getDeviceConfiguration();
+            if (background == null || screen != backgroundScreen) {
+                background = renderBackground(screen, width, height);
+                backgroundScreen = screen;
+            }
+            g.drawImage(background, 0, 0, width, height, null);
+        }
+        super.paintComponent(g);
+    }
 
-        // Enable anti-aliasing for smoother edges
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    /** Fills the rounded background once, at the screen's pixel density. */
+    private BufferedImage renderBackground(GraphicsConfiguration screen, int width, int height) {
+        AffineTransform scale = screen.getDefaultTransform();
+        BufferedImage image = screen.createCompatibleImage((int) Math.ceil(width * scale.getScaleX()),
+                (int) Math.ceil(height * scale.getScaleY()), Transparency.TRANSLUCENT);
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.scale(scale.getScaleX(), scale.getScaleY());
 
-        // Set background color and draw the rounded panel
-        g2.setColor(getBackground());
-        g2.fill(new RoundRectangle2D.Double(0, 0, getWidth(), getHeight(), cornerRadius, cornerRadius));
+            // Enable anti-aliasing for smoother edges
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        super.paintComponent(g);
+            // Set background color and draw the rounded panel
+            g2.setColor(getBackground());
+            g2.fill(new RoundRectangle2D.Double(0, 0, width, height, cornerRadius, cornerRadius));
+        } finally {
+            g2.dispose();
+        }
+        return image;
     }
 }
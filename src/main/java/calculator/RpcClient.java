@@ -0,0 +1,138 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipelining client for {@link RpcServer}.
+ * <p>
+ * {@link #submit} only buffers a request; {@link #flush} sends everything buffered in one
+ * write, and {@link #call} does both. Any number of requests can be in flight. A reader
+ * thread completes the returned futures in whatever order the server answers.
+ * Math errors complete exceptionally with {@link ArithmeticException}, malformed requests
+ * with {@link IllegalArgumentException} and requests that ran out of server time with
+ * {@link TimeoutException}, whose message carries the partial result. Requests refused by
+ * the server's admission control complete with {@link RejectedExecutionException}.
+ */
+public class RpcClient implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final Map<Long, CompletableFuture<Double>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final Thread reader;
+    private volatile boolean closed;
+
+    private RpcClient(SocketChannel channel) {
+        this.channel = channel;
+        this.reader = new Thread(this::readLoop, "rpc-client-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public static RpcClient connect(Path socketPath) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.connect(UnixDomainSocketAddress.of(socketPath));
+        return new RpcClient(channel);
+    }
+
+    public CompletableFuture<Double> submit(String operator, String equation, int nValue,
+                                            double first, double second, double third, double fourth) throws IOException {
+        byte opcode = RpcProtocol.opcode(operator);
+        byte equationCode = RpcProtocol.equationCode(equation);
+        long id = ids.incrementAndGet();
+        CompletableFuture<Double> future = new CompletableFuture<>();
+        pending.put(id, future);
+        synchronized (out) {
+            if (out.remaining() < RpcProtocol.REQUEST_FRAME) {
+                writeBuffered();
+            }
+            RpcProtocol.putRequest(out, id, opcode, equationCode, nValue, first, second, third, fourth);
+        }
+        return future;
+    }
+
+    public CompletableFuture<Double> call(String operator, String equation, int nValue,
+                                          double first, double second, double third, double fourth) throws IOException {
+        CompletableFuture<Double> future = submit(operator, equation, nValue, first, second, third, fourth);
+        flush();
+        return future;
+    }
+
+    public void flush() throws IOException {
+        synchronized (out) {
+            writeBuffered();
+        }
+    }
+
+    private void writeBuffered() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    public int inFlight() {
+        return pending.size();
+    }
+
+    private void readLoop() {
+        ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        try {
+            while (!closed) {
+                if (channel.read(in) < 0) {
+                    throw new EOFException("Server closed the connection");
+                }
+                in.flip();
+                while (in.remaining() >= RpcProtocol.RESPONSE_FRAME) {
+                    int length = in.getInt();
+                    if (length != RpcProtocol.RESPONSE_BODY) {
+                        throw new IOException("Bad frame length " + length);
+                    }
+                    long id = in.getLong();
+                    byte status = in.get();
+                    double result = in.getDouble();
+                    CompletableFuture<Double> future = pending.remove(id);
+                    if (future == null) continue;
+                    if (status == RpcProtocol.STATUS_OK) future.complete(result);
+                    else if (status == RpcProtocol.STATUS_MATH_ERROR) future.completeExceptionally(new ArithmeticException("Math Error"));
+                    else if (status == RpcProtocol.STATUS_REJECTED) future.completeExceptionally(new RejectedExecutionException("Rejected"));
+                    else if (status == RpcProtocol.STATUS_TIMEOUT) future.completeExceptionally(new TimeoutException("Timed out; partial result " + result));
+                    else future.completeExceptionally(new IllegalArgumentException("Syntax Error"));
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            failPending(e);
+        }
+    }
+
+    private void failPending(IOException cause) {
+        for (Long id : pending.keySet()) {
+            CompletableFuture<Double> future = pending.remove(id);
+            if (future != null) future.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        channel.close();
+        failPending(new EOFException("Client closed"));
+    }
+}
@@ -0,0 +1,118 @@
+package calculator;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wire format shared by {@link RpcServer} and {@link RpcClient}. All frames are length-prefixed
+ * and big-endian:
+ * <pre>
+ * request:  int length=46 | long requestId | byte opcode | byte equation | int nValue | double first, second, third, fourth
+ * response: int length=17 | long requestId | byte status | double result
+ * </pre>
+ * Responses may arrive in any order; clients match them to requests by id. A response with
+ * {@link #STATUS_TIMEOUT} carries the partial result of a range request that ran out of time.
+ */
+final class RpcProtocol {
+
+    static final int REQUEST_BODY = 8 + 1 + 1 + 4 + 4 * 8;
+    static final int RESPONSE_BODY = 8 + 1 + 8;
+    static final int REQUEST_FRAME = 4 + REQUEST_BODY;
+    static final int RESPONSE_FRAME = 4 + RESPONSE_BODY;
+
+    static final byte STATUS_OK = BatchResultWriter.STATUS_OK;
+    static final byte STATUS_MATH_ERROR = BatchResultWriter.STATUS_MATH_ERROR;
+    static final byte STATUS_SYNTAX_ERROR = BatchResultWriter.STATUS_SYNTAX_ERROR;
+    static final byte STATUS_TIMEOUT = BatchResultWriter.STATUS_TIMEOUT;
+    static final byte STATUS_REJECTED = BatchResultWriter.STATUS_REJECTED;
+
+    // Index = opcode. Opcode 0 is reserved.
+    static final String[] OPERATORS = {null, "∑", "∑∑", "Π", "ΠΠ", "N!", "a! + b!", "a! / b!", "log(2)(", "log(",
+            "log(n)x(", "x^y^z", "+", "-", "*", "÷", "//", "%", "x^y", "numroot"};
+    // Index = equation code.
+    static final String[] EQUATIONS = {"--", "Cx", "x+C", "x^C", "xy", "x+y", "x^y"};
+
+    private static final Map<String, Byte> OPCODES = codes(OPERATORS);
+    private static final Map<String, Byte> EQUATION_CODES = codes(EQUATIONS);
+
+    private RpcProtocol() {
+    }
+
+    private static Map<String, Byte> codes(String[] names) {
+        Map<String, Byte> codes = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null) codes.put(names[i], (byte) i);
+        }
+        return codes;
+    }
+
+    static byte opcode(String operator) {
+        byte opcode = opcodeOrZero(operator);
+        if (opcode == 0) {
+            throw new IllegalArgumentException("Unsupported operator: " + operator);
+        }
+        return opcode;
+    }
+
+    /** Opcode of operator, or 0 when it has none. */
+    static byte opcodeOrZero(String operator) {
+        Byte opcode = operator == null ? null : OPCODES.get(operator);
+        return opcode == null ? 0 : opcode;
+    }
+
+    static byte equationCode(String equation) {
+        Byte code = equation == null ? null : EQUATION_CODES.get(equation);
+        return code == null ? 0 : code;
+    }
+
+    /** True for the range operators whose cost grows with their operands. */
+    static boolean isRange(byte opcode) {
+        return opcode >= 1 && opcode <= 4;
+    }
+
+    /**
+     * True for the operators that may take long: the range operators, and the factorials,
+     * whose loops grow with their operands and which admission control may queue.
+     */
+    static boolean isCostly(byte opcode) {
+        return opcode >= 1 && opcode <= 7;
+    }
+
+    static void putRequest(ByteBuffer buffer, long id, byte opcode, byte equation, int nValue,
+                           double first, double second, double third, double fourth) {
+        buffer.putInt(REQUEST_BODY).putLong(id).put(opcode).put(equation).putInt(nValue)
+                .putDouble(first).putDouble(second).putDouble(third).putDouble(fourth);
+    }
+
+    static void putResponse(ByteBuffer buffer, long id, byte status, double result) {
+        buffer.putInt(RESPONSE_BODY).putLong(id).put(status).putDouble(result);
+    }
+
+    /**
+     * Evaluates a decoded request; returns the status and stores the value in result[0].
+     * token may be null for requests that are not range operators.
+     */
+    static byte evaluate(Evaluator evaluator, CancellationToken token, byte opcode, byte equation, int nValue,
+                         double first, double second, double third, double fourth, double[] result) {
+        if (opcode <= 0 || opcode >= OPERATORS.length || equation < 0 || equation >= EQUATIONS.length) {
+            result[0] = 0;
+            return STATUS_SYNTAX_ERROR;
+        }
+        try {
+            double value = evaluator.evaluate(OPERATORS[opcode], EQUATIONS[equation], nValue, first, second, third, fourth,
+                    token == null ? ProgressMonitor.NONE : token);
+            result[0] = value;
+            if (token != null && token.status() != CancellationToken.Status.COMPLETED) {
+                return STATUS_TIMEOUT;
+            }
+            return (Double.isNaN(value) || Double.isInfinite(value)) ? STATUS_MATH_ERROR : STATUS_OK;
+        } catch (AdmissionException e) {
+            result[0] = 0;
+            return STATUS_REJECTED;
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            result[0] = 0;
+            return STATUS_MATH_ERROR;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves {@link RpcProtocol} frames over a Unix domain socket.
+ * <p>
+ * One selector thread does all socket I/O. Constant-time operators are answered inline,
+ * straight into the connection's write buffer. Range operators (∑, Π, ∑∑, ΠΠ) and the
+ * factorials, which can loop for long or wait in admission control, go to a worker pool
+ * and are answered when they finish, so a slow request never holds up the requests
+ * pipelined behind it or other connections. Their responses may therefore come back out
+ * of order.
+ * A range request still running after the time budget is stopped and answered with
+ * {@link RpcProtocol#STATUS_TIMEOUT} and its partial result.
+ */
+public class RpcServer implements Closeable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private final Path socketPath;
+    private final Evaluator evaluator;
+    private final long timeoutMillis;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService workers;
+    private final Queue<Connection> ready = new ConcurrentLinkedQueue<>();
+    private final Thread ioThread;
+    private volatile boolean running = true;
+
+    public RpcServer(Path socketPath, Evaluator evaluator, int workerThreads) throws IOException {
+        this(socketPath, evaluator, workerThreads, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /** timeoutMillis of 0 or less lets range requests run to completion. */
+    public RpcServer(Path socketPath, Evaluator evaluator, int workerThreads, long timeoutMillis) throws IOException {
+        this.socketPath = socketPath;
+        this.evaluator = evaluator;
+        this.timeoutMillis = timeoutMillis;
+        Files.deleteIfExists(socketPath);
+        this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        serverChannel.configureBlocking(false);
+        this.selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads));
+        this.ioThread = new Thread(this::run, "rpc-io");
+        ioThread.setDaemon(true);
+    }
+
+    public void start() {
+        ioThread.start();
+    }
+
+    public Path socketPath() {
+        return socketPath;
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isWritable()) ((Connection) key.attachment()).onWritable();
+                        if (key.isValid() && key.isReadable()) ((Connection) key.attachment()).onReadable();
+                    } catch (IOException e) {
+                        close(key);
+                    }
+                }
+                Connection connection;
+                while ((connection = ready.poll()) != null) {
+                    try {
+                        connection.drainCompleted();
+                    } catch (IOException e) {
+                        close(connection.key);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) System.err.println("RPC server stopped: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // already closing
+        }
+    }
+
+    private record Completed(long id, byte status, double result) {
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final Queue<Completed> completed = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private final double[] result = new double[1];
+        private SelectionKey key;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void onReadable() throws IOException {
+            if (channel.read(in) < 0) {
+                close(key);
+                return;
+            }
+            process();
+        }
+
+        void onWritable() throws IOException {
+            if (flush() && !completed.isEmpty()) {
+                drainCompleted();
+            }
+            process();
+        }
+
+        /** Decodes buffered requests while there is room for their responses. */
+        private void process() throws IOException {
+            in.flip();
+            while (in.remaining() >= RpcProtocol.REQUEST_FRAME) {
+                if (out.remaining() < RpcProtocol.RESPONSE_FRAME && !flush()) {
+                    break;
+                }
+                int length = in.getInt();
+                if (length != RpcProtocol.REQUEST_BODY) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                long id = in.getLong();
+                byte opcode = in.get();
+                byte equation = in.get();
+                int nValue = in.getInt();
+                double first = in.getDouble(), second = in.getDouble(), third = in.getDouble(), fourth = in.getDouble();
+
+                if (RpcProtocol.isCostly(opcode)) {
+                    // The budget starts when the request is read, so time spent queued counts too.
+                    CancellationToken token = timeoutMillis > 0
+                            ? CancellationToken.withTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                            : new CancellationToken();
+                    workers.execute(() -> {
+                        double[] value = new double[1];
+                        byte status = RpcProtocol.evaluate(evaluator, token, opcode, equation, nValue, first, second, third, fourth, value);
+                        complete(new Completed(id, status, value[0]));
+                    });
+                } else {
+                    byte status = RpcProtocol.evaluate(evaluator, null, opcode, equation, nValue, first, second, third, fourth, result);
+                    RpcProtocol.putResponse(out, id, status, result[0]);
+                }
+            }
+            in.compact();
+            flush();
+        }
+
+        private void complete(Completed response) {
+            completed.add(response);
+            if (queued.compareAndSet(false, true)) {
+                ready.add(this);
+                selector.wakeup();
+            }
+        }
+
+        void drainCompleted() throws IOException {
+            queued.set(false);
+            Completed response;
+            while ((response = completed.peek()) != null) {
+                if (out.remaining() < RpcProtocol.RESPONSE_FRAME && !flush()) {
+                    // Socket is full; onWritable picks the rest up.
+                    return;
+                }
+                completed.poll();
+                RpcProtocol.putResponse(out, response.id(), response.status(), response.result());
+            }
+            flush();
+        }
+
+        /** Writes what it can; returns true when the output buffer is empty. */
+        private boolean flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            boolean drained = !out.hasRemaining();
+            out.compact();
+            if (key.isValid()) {
+                key.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+            }
+            return drained;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        selector.close();
+        serverChannel.close();
+        workers.shutdownNow();
+        Files.deleteIfExists(socketPath);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir") + "/calculator.sock");
+        RpcServer server = new RpcServer(path, Evaluator.configured(true), Runtime.getRuntime().availableProcessors());
+        server.start();
+        System.out.println("Calculator RPC listening on " + path);
+    }
+}
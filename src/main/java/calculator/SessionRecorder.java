@@ -0,0 +1,177 @@
+package calculator;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes what the user does to the calculator as a compact binary event log that
+ * {@link SessionReplayer} can feed back through {@link CalculatorState#reduce}.
+ * <pre>
+ * "CALCREC1" | int version, then events:
+ *   byte key (1..)                    a button press, by its index in {@link #KEYS}
+ *   START  | int n | n snapshot bytes a new session; n = 0 starts from {@link CalculatorState#INITIAL},
+ *                                     otherwise from the restored {@link SessionSnapshot}
+ *   FIELDS | UTF x | UTF y | UTF z    the x/y/z fields as typed
+ *   RECALL | double value             ANS replaced by an answer from the history
+ *   SETTLE                            the pending range evaluation finished
+ * </pre>
+ * A button press costs one byte. Events go through an 8 KB buffer, so the event thread
+ * only touches the disk when it fills; a crash loses at most the buffered tail.
+ * Logs from several runs can be appended to one file.
+ */
+public class SessionRecorder implements Closeable {
+
+    static final byte[] MAGIC = "CALCREC1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+
+    static final byte START = -1;
+    static final byte FIELDS = -2;
+    static final byte RECALL = -3;
+    static final byte SETTLE = -4;
+
+    /** Index = key code. Code 0 is reserved. */
+    static final String[] KEYS = {null,
+            "ON", "TWO", "THR", "FR", "FV", "SX", "SVN", "EHT", "NN", "ZRO", "PRD",
+            "DL", "AC", "PM", "PLUS", "MN", "MUL", "DIV", "EQU",
+            "FLR", "CEL", "IT", "INTD", "MOD", "FAC", "SQRT", "CBRT", "NMROOT",
+            "SUM", "PRN", "DSUM", "DNOT", "XY", "XYZ", "ST", "LG2", "LGN", "LG",
+            "A", "B", "C", "D", "a+b", "a/b", "XEY", "x+y", "x^y", "CEX", "x+c", "x^c", "ANS", "FRM"};
+
+    private static final Map<String, Byte> CODES = new HashMap<>();
+
+    static {
+        for (int i = 1; i < KEYS.length; i++) {
+            CODES.put(KEYS[i], (byte) i);
+        }
+    }
+
+    private final DataOutputStream out;
+
+    /** A recorder that records nothing. */
+    public SessionRecorder() {
+        this.out = null;
+    }
+
+    /** Records to out, starting with the log header. */
+    public SessionRecorder(OutputStream out) throws IOException {
+        this(out, true);
+    }
+
+    private SessionRecorder(OutputStream out, boolean header) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 8192));
+        if (header) {
+            this.out.write(MAGIC);
+            this.out.writeInt(VERSION);
+        }
+    }
+
+    /**
+     * Opens the log named by the calculator.record system property, appending to it.
+     * Recording is off when the property is unset or the file cannot be opened.
+     */
+    public static SessionRecorder openDefault() {
+        String property = System.getProperty("calculator.record", "");
+        if (property.isEmpty()) {
+            return new SessionRecorder();
+        }
+        try {
+            Path path = Path.of(property);
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            boolean fresh = !Files.exists(path) || Files.size(path) == 0;
+            return new SessionRecorder(Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND), fresh);
+        } catch (IOException e) {
+            System.err.println("Recording disabled: " + e.getMessage());
+            return new SessionRecorder();
+        }
+    }
+
+    /** Key code of a button identifier, or 0 when it has none. */
+    static byte code(String key) {
+        Byte code = CODES.get(key);
+        return code == null ? 0 : code;
+    }
+
+    /** Marks the start of a session from the given state. */
+    public void start(CalculatorState state) {
+        if (out == null) return;
+        try {
+            out.writeByte(START);
+            if (state.equals(CalculatorState.INITIAL)) {
+                out.writeInt(0);
+            } else {
+                byte[] snapshot = SessionSnapshot.encode(state);
+                out.writeInt(snapshot.length);
+                out.write(snapshot);
+            }
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    public void key(String key) {
+        if (out == null) return;
+        byte code = code(key);
+        if (code == 0) return;
+        try {
+            out.writeByte(code);
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    public void fields(String x, String y, String z) {
+        if (out == null) return;
+        try {
+            out.writeByte(FIELDS);
+            out.writeUTF(x);
+            out.writeUTF(y);
+            out.writeUTF(z);
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    public void recall(double value) {
+        if (out == null) return;
+        try {
+            out.writeByte(RECALL);
+            out.writeDouble(value);
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    public void settled() {
+        if (out == null) return;
+        try {
+            out.writeByte(SETTLE);
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    private void failed(IOException e) {
+        System.err.println("Could not record session: " + e.getMessage());
+    }
+
+    public void flush() throws IOException {
+        if (out != null) out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) out.close();
+    }
+}
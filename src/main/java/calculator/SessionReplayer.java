@@ -0,0 +1,245 @@
+package calculator;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Replays {@link SessionRecorder} logs through {@link CalculatorState#reduce} with no Swing
+ * involved, as a load generator and as a regression oracle.
+ * <p>
+ * A log is decoded once into a {@link Recording}, so replay itself does no parsing. Pending
+ * range evaluations are run inline where the log says the window finished them. Each
+ * event's time is recorded in a {@link LatencyHistogram} for its key; histograms are
+ * shared and lock-free, so one replayer can run many recordings in parallel.
+ */
+public class SessionReplayer {
+
+    /** A decoded log: the events in order, with the arguments of the non-key ones alongside. */
+    public static final class Recording {
+        private final byte[] events;
+        private final Object[] arguments;
+
+        private Recording(byte[] events, Object[] arguments) {
+            this.events = events;
+            this.arguments = arguments;
+        }
+
+        public static Recording read(Path path) throws IOException {
+            return parse(Files.readAllBytes(path));
+        }
+
+        public static Recording parse(byte[] log) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(log));
+            byte[] magic = new byte[SessionRecorder.MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, SessionRecorder.MAGIC)) {
+                throw new IOException("Not a session recording");
+            }
+            int version = in.readInt();
+            if (version != SessionRecorder.VERSION) {
+                throw new IOException("Unsupported session recording version " + version);
+            }
+
+            byte[] events = new byte[log.length];
+            Object[] arguments = new Object[log.length];
+            int size = 0;
+            while (true) {
+                int next = in.read();
+                if (next < 0) break;
+                byte event = (byte) next;
+                try {
+                    switch (event) {
+                        case SessionRecorder.START -> {
+                            byte[] snapshot = new byte[in.readInt()];
+                            in.readFully(snapshot);
+                            arguments[size] = snapshot.length == 0 ? CalculatorState.INITIAL : SessionSnapshot.decode(snapshot);
+                        }
+                        case SessionRecorder.FIELDS -> arguments[size] = new String[] {in.readUTF(), in.readUTF(), in.readUTF()};
+                        case SessionRecorder.RECALL -> arguments[size] = in.readDouble();
+                        case SessionRecorder.SETTLE -> {
+                        }
+                        default -> {
+                            if (event <= 0 || event >= SessionRecorder.KEYS.length) {
+                                throw new IOException("Unknown event " + event);
+                            }
+                        }
+                    }
+                } catch (EOFException e) {
+                    break; // the recorder was cut off mid-event; keep what came before
+                }
+                events[size++] = event;
+            }
+            return new Recording(Arrays.copyOf(events, size), Arrays.copyOf(arguments, size));
+        }
+
+        public int size() {
+            return events.length;
+        }
+    }
+
+    /** What a replay produced: every answer in order and the state it ended in. */
+    public record Result(CalculatorState finalState, double[] answers, long events, long elapsedNanos) {
+
+        public double eventsPerSecond() {
+            return elapsedNanos == 0 ? 0 : events * 1e9 / elapsedNanos;
+        }
+
+        /** True when both replays gave the same answers and ended in the same state. */
+        public boolean matches(Result other) {
+            return finalState.equals(other.finalState) && Arrays.equals(answers, other.answers);
+        }
+    }
+
+    private static final int SETTLE_SLOT = SessionRecorder.KEYS.length;
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[SessionRecorder.KEYS.length + 1];
+    private final LatencyHistogram overall = new LatencyHistogram();
+    private final boolean timed;
+
+    public SessionReplayer() {
+        this(true);
+    }
+
+    /** An untimed replayer skips the clock reads and histograms, for raw throughput. */
+    public SessionReplayer(boolean timed) {
+        this.timed = timed;
+        for (int i = 1; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    public Result replay(Recording recording) {
+        CalculatorState state = CalculatorState.INITIAL;
+        double[] answers = new double[16];
+        int answerCount = 0;
+        long start = System.nanoTime();
+
+        byte[] events = recording.events;
+        Object[] arguments = recording.arguments;
+        for (int i = 0; i < events.length; i++) {
+            byte event = events[i];
+            long before = timed ? System.nanoTime() : 0;
+            long answered = state.answerCount();
+            int slot;
+            switch (event) {
+                case SessionRecorder.START -> {
+                    state = (CalculatorState) arguments[i];
+                    continue;
+                }
+                case SessionRecorder.FIELDS -> {
+                    String[] fields = (String[]) arguments[i];
+                    state = state.withFields(fields[0], fields[1], fields[2]);
+                    continue;
+                }
+                case SessionRecorder.RECALL -> {
+                    state = state.withAns((Double) arguments[i]);
+                    continue;
+                }
+                case SessionRecorder.SETTLE -> {
+                    state = CalculatorState.settle(state);
+                    slot = SETTLE_SLOT;
+                }
+                default -> {
+                    state = CalculatorState.reduce(state, SessionRecorder.KEYS[event]);
+                    slot = event;
+                }
+            }
+            if (timed) {
+                long nanos = System.nanoTime() - before;
+                latencies[slot].record(nanos);
+                overall.record(nanos);
+            }
+            if (state.answerCount() != answered) {
+                if (answerCount == answers.length) answers = Arrays.copyOf(answers, answerCount * 2);
+                answers[answerCount++] = state.ans();
+            }
+        }
+        return new Result(state, Arrays.copyOf(answers, answerCount), events.length, System.nanoTime() - start);
+    }
+
+    /** Replays every recording, in parallel when asked; results come back in the same order. */
+    public List<Result> replayAll(List<Recording> recordings, boolean parallel) {
+        if (!parallel) {
+            List<Result> results = new ArrayList<>(recordings.size());
+            for (Recording recording : recordings) results.add(replay(recording));
+            return results;
+        }
+        return recordings.parallelStream().map(this::replay).toList();
+    }
+
+    /** Latencies of one button identifier, or of "SETTLE" for pending range evaluations. */
+    public LatencyHistogram latency(String key) {
+        if (key.equals("SETTLE")) return latencies[SETTLE_SLOT];
+        byte code = SessionRecorder.code(key);
+        if (code == 0) throw new IllegalArgumentException("Unknown key: " + key);
+        return latencies[code];
+    }
+
+    public LatencyHistogram overall() {
+        return overall;
+    }
+
+    /** One line per key that was replayed, busiest first. */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("all: ").append(overall.summary()).append('\n');
+        Integer[] slots = new Integer[latencies.length - 1];
+        for (int i = 0; i < slots.length; i++) slots[i] = i + 1;
+        Arrays.sort(slots, (a, b) -> Long.compare(latencies[b].count(), latencies[a].count()));
+        for (int slot : slots) {
+            if (latencies[slot].count() == 0) continue;
+            String name = slot == SETTLE_SLOT ? "SETTLE" : SessionRecorder.KEYS[slot];
+            summary.append(name).append(": ").append(latencies[slot].summary()).append('\n');
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Usage: SessionReplayer [--repeat n] [--untimed] log...
+     * Replays each log n times in parallel and prints throughput, answers and latencies.
+     */
+    public static void main(String[] args) throws IOException {
+        int repeat = 1;
+        boolean timed = true;
+        List<Recording> logs = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--repeat" -> repeat = Integer.parseInt(args[++i]);
+                case "--untimed" -> timed = false;
+                default -> {
+                    logs.add(Recording.read(Path.of(args[i])));
+                    names.add(args[i]);
+                }
+            }
+        }
+        if (logs.isEmpty()) {
+            System.err.println("Usage: SessionReplayer [--repeat n] [--untimed] log...");
+            return;
+        }
+
+        List<Recording> work = new ArrayList<>();
+        for (int r = 0; r < repeat; r++) work.addAll(logs);
+        SessionReplayer replayer = new SessionReplayer(timed);
+        long start = System.nanoTime();
+        List<Result> results = replayer.replayAll(work, true);
+        long elapsed = System.nanoTime() - start;
+
+        long events = 0;
+        for (Result result : results) events += result.events();
+        for (int i = 0; i < logs.size(); i++) {
+            Result result = results.get(i);
+            System.out.printf("%s: %d events, %d answers, last %s, display %s%n", names.get(i), result.events(),
+                    result.answers().length, result.answers().length == 0 ? "-" : Functions.formatString(result.finalState().ans()),
+                    result.finalState().displayText());
+        }
+        System.out.printf("%d events in %.1f ms: %.0f events/s%n", events, elapsed / 1e6, events * 1e9 / elapsed);
+        if (timed) System.out.print(replayer.summary());
+    }
+}
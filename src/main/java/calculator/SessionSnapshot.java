@@ -0,0 +1,217 @@
+package calculator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import calculator.CalculatorState.Layout;
+
+/**
+ * Compact binary form of a {@link CalculatorState}, used to put the calculator back where
+ * the user left it.
+ * <pre>
+ * "CALCSES1" | int version=2 | short flags | operator | byte equation | byte layout | int zeroCount
+ * | int valueIndex | int nValue | double ans | double first..fourthDoubleValue | long answerCount
+ * | short present | UTF A..D, firstValue..fourthValue (present ones only) | short n | n doubles
+ * | short m | m operators | UTF calc, display, holder, x, y, z, equation label, variable label | int crc32
+ * </pre>
+ * Operators are stored as {@link RpcProtocol} opcodes; one without an opcode is written as
+ * -1 followed by its text. A pending range evaluation is not saved: after a restart the user
+ * presses "=" again. Version 1 snapshots, which did not record the layout, are still read.
+ * Readers reject newer versions and any file whose checksum does not match, so a torn write
+ * is never half-restored.
+ */
+public final class SessionSnapshot {
+
+    static final byte[] MAGIC = "CALCSES1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 2;
+
+    private static final int RESET = 1, MINUS = 2, ALLOWED = 4, VISIBLE = 8, ADVANCED = 16, HAS_N = 32, FORMATTED = 64;
+
+    private SessionSnapshot() {
+    }
+
+    public static byte[] encode(CalculatorState state) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeShort((state.reset() ? RESET : 0) | (state.isMinus() ? MINUS : 0) | (state.allowed() ? ALLOWED : 0)
+                    | (state.isVisible() ? VISIBLE : 0) | (state.advanced() ? ADVANCED : 0)
+                    | (state.nValue() != null ? HAS_N : 0) | (state.formatted() ? FORMATTED : 0));
+            writeOperator(out, state.operator());
+            out.writeByte(RpcProtocol.equationCode(state.equation()));
+            out.writeByte(state.layout().ordinal());
+            out.writeInt(state.zeroCount());
+            out.writeInt(state.valueIndex());
+            out.writeInt(state.nValue() == null ? 0 : state.nValue());
+            out.writeDouble(state.ans());
+            out.writeDouble(state.firstDoubleValue());
+            out.writeDouble(state.secondDoubleValue());
+            out.writeDouble(state.thirdDoubleValue());
+            out.writeDouble(state.fourthDoubleValue());
+            out.writeLong(state.answerCount());
+
+            String[] values = {state.A(), state.B(), state.C(), state.D(),
+                    state.firstValue(), state.secondValue(), state.thirdValue(), state.fourthValue()};
+            int present = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) present |= 1 << i;
+            }
+            out.writeShort(present);
+            for (String value : values) {
+                if (value != null) out.writeUTF(value);
+            }
+
+            out.writeShort(state.numbers().size());
+            for (double number : state.numbers()) out.writeDouble(number);
+            out.writeShort(state.operators().size());
+            for (String op : state.operators()) writeOperator(out, op);
+
+            for (String text : new String[] {state.calcText(), state.displayText(), state.holderText(),
+                    state.xText(), state.yText(), state.zText(), state.equationText(), state.variableText()}) {
+                out.writeUTF(text == null ? "" : text);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // ByteArrayOutputStream does not throw
+        }
+        byte[] body = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        byte[] encoded = Arrays.copyOf(body, body.length + 4);
+        int checksum = (int) crc.getValue();
+        for (int i = 0; i < 4; i++) {
+            encoded[body.length + i] = (byte) (checksum >>> (24 - 8 * i));
+        }
+        return encoded;
+    }
+
+    public static CalculatorState decode(byte[] encoded) throws IOException {
+        if (encoded.length < MAGIC.length + 8) {
+            throw new IOException("Session snapshot is truncated");
+        }
+        int bodyLength = encoded.length - 4;
+        CRC32 crc = new CRC32();
+        crc.update(encoded, 0, bodyLength);
+        int stored = ((encoded[bodyLength] & 0xFF) << 24) | ((encoded[bodyLength + 1] & 0xFF) << 16)
+                | ((encoded[bodyLength + 2] & 0xFF) << 8) | (encoded[bodyLength + 3] & 0xFF);
+        if (stored != (int) crc.getValue()) {
+            throw new IOException("Session snapshot checksum mismatch");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded, 0, bodyLength));
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a session snapshot");
+        }
+        int version = in.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported session snapshot version " + version);
+        }
+        boolean v1 = version == 1;
+
+        int flags = v1 ? in.readUnsignedByte() : in.readUnsignedShort();
+        String operator = readOperator(in);
+        String equation = equation(in.readUnsignedByte());
+        Layout layout = v1 ? null : layout(in.readUnsignedByte());
+        int zeroCount = in.readInt();
+        int valueIndex = in.readInt();
+        int n = in.readInt();
+        double ans = in.readDouble();
+        double[] doubles = new double[4];
+        long answerCount = 0;
+        if (!v1) {
+            for (int i = 0; i < doubles.length; i++) doubles[i] = in.readDouble();
+            answerCount = in.readLong();
+        }
+
+        int present = in.readUnsignedShort();
+        String[] values = new String[8];
+        for (int i = 0; i < values.length; i++) {
+            if ((present & (1 << i)) != 0) values[i] = in.readUTF();
+        }
+
+        Double[] numbers = new Double[in.readUnsignedShort()];
+        for (int i = 0; i < numbers.length; i++) numbers[i] = in.readDouble();
+        String[] operators = new String[in.readUnsignedShort()];
+        for (int i = 0; i < operators.length; i++) operators[i] = readOperator(in);
+
+        String[] texts = new String[v1 ? 6 : 8];
+        for (int i = 0; i < texts.length; i++) texts[i] = in.readUTF();
+
+        boolean isVisible = (flags & VISIBLE) != 0;
+        String equationText = v1 ? "Equation: " + equation : texts[6];
+        String variableText = v1 ? "" : texts[7];
+        if (v1) {
+            layout = v1Layout(operator, isVisible);
+            if (layout == Layout.LOG_N) variableText = "n =";
+            else if (layout == Layout.NUM_ROOT) variableText = "x =";
+            else if (layout == Layout.DOUBLE_SUMMATION || layout == Layout.DOUBLE_NOTATION) variableText = "N =";
+        }
+
+        return new CalculatorState(operator, equation,
+                values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7],
+                doubles[0], doubles[1], doubles[2], doubles[3], ans,
+                (flags & HAS_N) != 0 ? n : null, zeroCount, valueIndex,
+                (flags & RESET) != 0, (flags & MINUS) != 0, (flags & ALLOWED) != 0, isVisible,
+                Arrays.asList(numbers), Arrays.asList(operators),
+                texts[0], texts[1], texts[2], texts[3], texts[4], texts[5], equationText, variableText,
+                layout, (flags & ADVANCED) != 0, (flags & FORMATTED) != 0, null, answerCount);
+    }
+
+    /** Version 1 kept no layout; it followed from the operator and whether its fields were showing. */
+    private static Layout v1Layout(String operator, boolean isVisible) {
+        if ("log(n)x(".equals(operator)) return Layout.LOG_N;
+        if ("numroot".equals(operator)) return Layout.NUM_ROOT;
+        if (!isVisible || operator == null) return Layout.NONE;
+        return switch (operator) {
+            case "∑" -> Layout.SUMMATION;
+            case "Π" -> Layout.NOTATION;
+            case "∑∑" -> Layout.DOUBLE_SUMMATION;
+            case "ΠΠ" -> Layout.DOUBLE_NOTATION;
+            case "x^y" -> Layout.XY;
+            case "x^y^z" -> Layout.XYZ;
+            default -> Layout.NONE;
+        };
+    }
+
+    private static String equation(int code) throws IOException {
+        if (code >= RpcProtocol.EQUATIONS.length) {
+            throw new IOException("Unknown equation code " + code);
+        }
+        return RpcProtocol.EQUATIONS[code];
+    }
+
+    private static Layout layout(int ordinal) throws IOException {
+        Layout[] layouts = Layout.values();
+        if (ordinal >= layouts.length) {
+            throw new IOException("Unknown layout " + ordinal);
+        }
+        return layouts[ordinal];
+    }
+
+    private static void writeOperator(DataOutputStream out, String operator) throws IOException {
+        byte opcode = RpcProtocol.opcodeOrZero(operator);
+        if (opcode == 0 && operator != null) {
+            out.writeByte(-1);
+            out.writeUTF(operator);
+        } else {
+            out.writeByte(opcode);
+        }
+    }
+
+    private static String readOperator(DataInputStream in) throws IOException {
+        byte opcode = in.readByte();
+        if (opcode == -1) return in.readUTF();
+        if (opcode < 0 || opcode >= RpcProtocol.OPERATORS.length) {
+            throw new IOException("Unknown opcode " + opcode);
+        }
+        return RpcProtocol.OPERATORS[opcode];
+    }
+}
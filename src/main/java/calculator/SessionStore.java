@@ -0,0 +1,122 @@
+package calculator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the latest {@link CalculatorState} on disk, in {@link SessionSnapshot} form.
+ * <p>
+ * {@link #save} only parks the snapshot and returns; a single background thread writes it
+ * to a temporary file and renames it over the old one, so the event thread never waits on
+ * the disk and a crash leaves either the old snapshot or the new one. Snapshots saved while
+ * a write is in progress are coalesced: only the newest is written. {@link #load} is a
+ * single small read and is meant to be called on the event thread at startup.
+ */
+public class SessionStore implements Closeable {
+
+    private final Path path;
+    private final Path temp;
+    private final ExecutorService writer;
+    private final AtomicReference<CalculatorState> pending = new AtomicReference<>();
+
+    /** A store that remembers nothing: saves are dropped and load returns null. */
+    public SessionStore() {
+        this.path = null;
+        this.temp = null;
+        this.writer = null;
+    }
+
+    public SessionStore(Path path) {
+        this.path = path.toAbsolutePath();
+        this.temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the store named by the calculator.session system property, or
+     * ~/.calculator/session.bin by default. An empty property disables it.
+     */
+    public static SessionStore openDefault() {
+        String property = System.getProperty("calculator.session",
+                Path.of(System.getProperty("user.home"), ".calculator", "session.bin").toString());
+        return property.isEmpty() ? new SessionStore() : new SessionStore(Path.of(property));
+    }
+
+    /** The saved state, or null when there is none or it cannot be read. */
+    public CalculatorState load() {
+        if (path == null) return null;
+        try {
+            return SessionSnapshot.decode(Files.readAllBytes(path));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Session not restored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(CalculatorState state) {
+        if (path == null || writer.isShutdown()) return;
+        if (pending.getAndSet(state) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /** Synchronized so a final write from {@link #close} never races the writer thread's. */
+    private synchronized void writePending() {
+        CalculatorState state = pending.getAndSet(null);
+        if (state == null) return;
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(temp, SessionSnapshot.encode(state));
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not save session: " + e.getMessage());
+        }
+    }
+
+    /** Waits until every snapshot saved so far is on disk. */
+    public void flush() {
+        if (writer == null) return;
+        if (writer.isShutdown()) {
+            writePending();
+            return;
+        }
+        try {
+            writer.submit(this::writePending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the last pending snapshot on the calling thread.
+     * That is one small file at most, after any write already in progress, so closing the
+     * window never waits on the executor.
+     */
+    @Override
+    public void close() {
+        if (writer == null) return;
+        writer.shutdown();
+        writePending();
+    }
+}
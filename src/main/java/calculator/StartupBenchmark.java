@@ -0,0 +1,162 @@
+package calculator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Times cold launches with and without the application class-data archive.
+ * <p>
+ * Each launch is a fresh JVM running {@code calculator.Warmup --probe}, timed from process
+ * start until it prints {@code ready}. The modes take turns, after one untimed launch each
+ * to settle the file cache, so drift on the machine hits them equally. Launches are
+ * headless unless {@code --ui} is given, in which case the probe opens the real window.
+ * <p>
+ * {@code StartupBenchmark [--runs n] [--ui] [--jar file] [archive]}: when the archive
+ * (default {@code target/calculator.jsa}) does not exist yet, it is trained first with
+ * {@code -XX:ArchiveClassesAtExit} on a full {@link Warmup} run. Class-data archives only
+ * cover classes loaded from jars, so without {@code --jar} the classes directory this runs
+ * from is packed into {@code target/startup/calculator.jar} and the archive retrained.
+ */
+public final class StartupBenchmark {
+
+    /** A named set of JVM options to launch with. */
+    public record Mode(String name, List<String> options) {
+    }
+
+    /** Launch times of one mode, in nanoseconds, in the order they were taken. */
+    public record Timings(Mode mode, long[] nanos) {
+
+        public long median() {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+
+        public long min() {
+            return Arrays.stream(nanos).min().orElse(0);
+        }
+    }
+
+    private final String classPath;
+    private final boolean headless;
+
+    public StartupBenchmark(String classPath, boolean headless) {
+        this.classPath = classPath;
+        this.headless = headless;
+    }
+
+    /** Packs a classes directory into a jar, replacing any jar already there. */
+    public static Path pack(Path classes, Path jar) throws IOException {
+        Files.createDirectories(jar.getParent());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    /** The command line that launches one probe with the given JVM options. */
+    List<String> command(List<String> options, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (headless) command.add("-Djava.awt.headless=true");
+        command.addAll(options);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(Warmup.class.getName());
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    /** Writes an archive of the classes a full warm-up run loads. */
+    public void train(Path archive) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command(List.of("-XX:ArchiveClassesAtExit=" + archive)))
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        int exit = process.waitFor();
+        if (exit != 0 || !Files.exists(archive)) {
+            throw new IOException("Training run exited with " + exit + " and wrote no archive at " + archive);
+        }
+    }
+
+    /** Launches one probe and returns the nanoseconds until it was ready. */
+    public long launch(Mode mode) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command(mode.options(), "--probe")).redirectErrorStream(true).start();
+        long ready = -1;
+        try (BufferedReader out = process.inputReader()) {
+            for (String line; (line = out.readLine()) != null; ) {
+                if (ready < 0 && line.equals("ready")) ready = System.nanoTime() - start;
+            }
+        }
+        int exit = process.waitFor();
+        if (ready < 0 || exit != 0) {
+            throw new IOException(mode.name() + " launch exited with " + exit + " before it was ready");
+        }
+        return ready;
+    }
+
+    /** Launches every mode runs times, taking turns, and returns their timings in the same order. */
+    public List<Timings> compare(List<Mode> modes, int runs) throws IOException, InterruptedException {
+        long[][] nanos = new long[modes.size()][runs];
+        for (Mode mode : modes) launch(mode);
+        for (int run = 0; run < runs; run++) {
+            for (int m = 0; m < modes.size(); m++) {
+                nanos[m][run] = launch(modes.get(m));
+            }
+        }
+        List<Timings> timings = new ArrayList<>();
+        for (int m = 0; m < modes.size(); m++) timings.add(new Timings(modes.get(m), nanos[m]));
+        return timings;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = 10;
+        boolean headless = true;
+        Path jar = null;
+        Path archive = Path.of("target", "calculator.jsa");
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs" -> runs = Integer.parseInt(args[++i]);
+                case "--ui" -> headless = false;
+                case "--jar" -> jar = Path.of(args[++i]);
+                default -> archive = Path.of(args[i]);
+            }
+        }
+        boolean packed = false;
+        if (jar == null) {
+            Path classes = Path.of(StartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+            packed = Files.isDirectory(classes);
+            jar = packed ? pack(classes, Path.of("target", "startup", "calculator.jar")) : classes;
+        }
+
+        StartupBenchmark benchmark = new StartupBenchmark(jar.toString(), headless);
+        // An archive only maps for the exact jar it was trained on; a freshly packed one needs a new archive.
+        if (packed || !Files.exists(archive)) {
+            System.out.println("Training " + archive + "...");
+            benchmark.train(archive);
+        }
+        List<Mode> modes = List.of(
+                new Mode("jdk archive", List.of()),
+                new Mode("app archive", List.of("-XX:SharedArchiveFile=" + archive)));
+        List<Timings> timings = benchmark.compare(modes, runs);
+
+        System.out.printf("%d %s launches per mode%n", runs, headless ? "headless" : "windowed");
+        for (Timings t : timings) {
+            System.out.printf("%-12s median %6.1f ms, min %6.1f ms%n", t.mode().name(), t.median() / 1e6, t.min() / 1e6);
+        }
+        double saved = 1 - (double) timings.get(1).median() / timings.get(0).median();
+        System.out.printf("app archive saves %.0f%% of the median launch%n", saved * 100);
+    }
+}
@@ -0,0 +1,46 @@
+package calculator;
+
+/**
+ * A piece of calculator text that is mostly appended to, one digit at a time.
+ * <p>
+ * Appends go into a growable char buffer; the String is only built when asked for, and
+ * then kept until the next change. A run of n digits therefore costs O(n) rather than the
+ * O(n²) of concatenating a new String per digit. Not thread-safe; each
+ * {@link CalculatorState} reduction has its own.
+ */
+final class TextBuffer {
+
+    private String text;
+    private StringBuilder chars;
+
+    TextBuffer(String text) {
+        this.text = text;
+    }
+
+    /** The current text; cached until the next change. */
+    String text() {
+        if (text == null && chars != null) {
+            text = chars.toString();
+        }
+        return text;
+    }
+
+    void set(String value) {
+        text = value;
+        chars = null;
+    }
+
+    void append(String suffix) {
+        if (chars == null) {
+            String current = String.valueOf(text);
+            chars = new StringBuilder(Math.max(16, 2 * (current.length() + suffix.length()))).append(current);
+        }
+        chars.append(suffix);
+        text = null;
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+}
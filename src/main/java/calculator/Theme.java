@@ -0,0 +1,41 @@
+package calculator;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one place fonts and colours come from. Each distinct font and colour is created once
+ * and shared, so the components that use it share its glyph caches too, and mode switches
+ * allocate nothing. Sizes and styles of a family are derived from one base font instead of
+ * being looked up again.
+ */
+public final class Theme {
+
+    private record FontKey(String family, int style, int size) {
+    }
+
+    private static final ConcurrentHashMap<String, Font> FAMILIES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<FontKey, Font> FONTS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Color> COLORS = new ConcurrentHashMap<>();
+
+    /** Background of the text fields, panels and equation holder. */
+    public static final Color FIELD = color(213, 178, 224);
+    public static final Color WHITE = color(255, 255, 255);
+    /** Label of most buttons. */
+    public static final Font BUTTON_FONT = font("Tahoma", Font.BOLD, 17);
+    /** Label of the + - × ÷ = buttons. */
+    public static final Font OPERATOR_FONT = font("Tahoma", Font.BOLD, 20);
+
+    private Theme() {
+    }
+
+    public static Font font(String family, int style, int size) {
+        return FONTS.computeIfAbsent(new FontKey(family, style, size),
+                key -> FAMILIES.computeIfAbsent(family, f -> new Font(f, Font.PLAIN, 1)).deriveFont(style, (float) size));
+    }
+
+    public static Color color(int r, int g, int b) {
+        return COLORS.computeIfAbsent((r << 16) | (g << 8) | b, rgb -> new Color(r, g, b));
+    }
+}
@@ -0,0 +1,166 @@
+package calculator;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import javax.swing.AbstractButton;
+import javax.swing.JPanel;
+
+/**
+ * A scripted run through the calculator that loads and links the classes a real launch
+ * needs, for training an application class-data-sharing archive and for timing launches.
+ * <p>
+ * {@code java -XX:ArchiveClassesAtExit=calculator.jsa -cp ... calculator.Warmup} leaves an
+ * archive that {@code -XX:SharedArchiveFile} then maps at startup; the {@code appcds} Maven
+ * profile and {@code src/main/scripts/calculator.sh} do exactly that. Without a screen only
+ * the model and an offscreen keypad are exercised; with one, the real window is opened,
+ * driven through {@link #SESSIONS} by clicking its buttons, and closed.
+ * <p>
+ * With {@code --probe} it instead does one launch's worth of work, prints {@code ready} and
+ * exits; {@link StartupBenchmark} times that line. Neither mode touches the user's saved
+ * session or history unless calculator.session or calculator.history say otherwise.
+ */
+public final class Warmup {
+
+    /** Key sequences that between them take every button and every kind of answer. */
+    static final List<List<String>> SESSIONS = List.of(
+            List.of("ON", "TWO", "PRD", "FV", "PLUS", "THR", "MUL", "FR", "EQU", "PLUS", "ANS", "EQU", "DL", "PM", "AC"),
+            List.of("NN", "SQRT", "FLR", "EQU", "THR", "PRD", "ON", "CEL", "IT", "FAC", "EQU", "SVN", "INTD", "TWO", "EQU"),
+            List.of("SVN", "MOD", "FV", "EQU", "NN", "DIV", "SX", "EQU", "MN", "ZRO", "EQU", "FRM", "FRM", "AC"),
+            List.of("EHT", "LG2", "EQU", "LG", "ON", "ZRO", "ZRO", "EQU", "LGN", "EQU", "NMROOT", "EQU", "CBRT", "EQU"),
+            List.of("SUM", "CEX", "ON", "A", "ON", "ZRO", "B", "TWO", "C", "EQU"),
+            List.of("DSUM", "XEY", "ON", "A", "THR", "B", "ON", "C", "THR", "D", "EQU"),
+            List.of("PRN", "x+c", "ON", "A", "FV", "B", "ON", "C", "EQU"),
+            List.of("DNOT", "x^y", "ON", "A", "TWO", "B", "ON", "C", "TWO", "D", "EQU"),
+            List.of("SUM", "x^c", "ON", "A", "FR", "B", "TWO", "C", "EQU", "a+b", "a/b", "x+y", "AC"),
+            List.of("XY", "EQU", "XYZ", "EQU", "ST", "ST", "AC"));
+
+    private Warmup() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean probe = args.length > 0 && args[0].equals("--probe");
+        // Training and timing runs must not load, overwrite or record the user's own session.
+        for (String property : List.of("calculator.session", "calculator.history", "calculator.record")) {
+            if (System.getProperty(property) == null) System.setProperty(property, "");
+        }
+
+        if (probe) {
+            ImageCache.shared().preloadAll();
+            if (GraphicsEnvironment.isHeadless()) {
+                paintKeypad();
+            } else {
+                openWindow(false);
+            }
+            System.out.println("ready");
+        } else {
+            model();
+            ImageCache.shared().preloadAll();
+            paintKeypad();
+            if (!GraphicsEnvironment.isHeadless()) openWindow(true);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs every session in {@link #SESSIONS} through the reducer, the range kernels and the
+     * session snapshot format. Touches no AWT class, so it is safe before a checkpoint.
+     * Returns the last answer of each session.
+     */
+    static double[] model() throws IOException {
+        double[] answers = new double[SESSIONS.size()];
+        for (int i = 0; i < SESSIONS.size(); i++) {
+            CalculatorState state = CalculatorState.INITIAL;
+            for (String key : SESSIONS.get(i)) {
+                if (key.equals("EQU") && state.layout() != CalculatorState.Layout.NONE) {
+                    state = state.withFields("2", "3", "2");
+                }
+                state = CalculatorState.settle(CalculatorState.reduce(state, key));
+                if (state.pending() != null) {
+                    state = CalculatorState.complete(state, state.pending().evaluate(ProgressMonitor.NONE));
+                }
+                state = SessionSnapshot.decode(SessionSnapshot.encode(state));
+                Functions.formatString(state.ans());
+            }
+            answers[i] = state.ans();
+        }
+        return answers;
+    }
+
+    /** Builds the keypad on a bare panel and paints it offscreen, pressed and unpressed. */
+    static BufferedImage paintKeypad() {
+        JPanel panel = new RoundedPanel(0);
+        panel.setLayout(null);
+        panel.setBounds(0, 0, 790, 740);
+        Map<String, RoundedButton> buttons = ButtonRegistry.build(panel, key -> { }, slot -> { });
+        RoundJTextField field = new RoundJTextField(10);
+        field.setBounds(10, 10, 300, 40);
+        panel.add(field);
+
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            panel.paint(g);
+            for (RoundedButton button : buttons.values()) button.getModel().setPressed(true);
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** Opens the real window and waits for its first paint; then, if drive, plays {@link #SESSIONS} on it. */
+    private static void openWindow(boolean drive) throws Exception {
+        CountDownLatch painted = new CountDownLatch(1);
+        Main[] frame = new Main[1];
+        EventQueue.invokeAndWait(() -> {
+            frame[0] = Main.openWindow();
+            frame[0].addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    frame[0].getRootPane().paintImmediately(frame[0].getRootPane().getBounds());
+                    painted.countDown();
+                }
+            });
+        });
+        painted.await();
+        if (!drive) return;
+
+        Map<String, AbstractButton> byName = new HashMap<>();
+        EventQueue.invokeAndWait(() -> collectButtons(frame[0].getContentPane(), byName));
+        for (List<String> session : SESSIONS) {
+            for (String key : session) {
+                for (ButtonRegistry.Spec spec : ButtonRegistry.SPECS) {
+                    AbstractButton button = byName.get(spec.name());
+                    if (spec.identifier().equals(key) && button != null) {
+                        EventQueue.invokeAndWait(() -> button.doClick(0));
+                    }
+                }
+            }
+        }
+        EventQueue.invokeAndWait(() -> {
+            frame[0].closeSession();
+            frame[0].dispose();
+        });
+    }
+
+    private static void collectButtons(Container container, Map<String, AbstractButton> byName) {
+        for (Component component : container.getComponents()) {
+            if (component instanceof AbstractButton button && button.getName() != null) {
+                byName.put(button.getName(), button);
+            }
+            if (component instanceof Container child) collectButtons(child, byName);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+#!/bin/sh
+# Starts the calculator from the packaged jar. When `mvn -Pappcds package` has left a
+# class-data archive next to it, the JVM maps that instead of loading and verifying the
+# Swing and calculator classes one by one. The archive is rebuilt automatically if the
+# jar or the JDK has changed since it was trained.
+#
+#   src/main/scripts/calculator.sh [--server ...]
+#   CALCULATOR_CHECKPOINT=dir calculator.sh   checkpoint after warm-up (CRaC JDKs only)
+
+project=$(cd "$(dirname "$0")/../../.." && pwd)
+jar=$(ls "$project"/target/Calculator_using_java-*.jar 2>/dev/null | head -n 1)
+archive="$project/target/calculator.jsa"
+java="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+if [ -z "$jar" ]; then
+    echo "No jar in $project/target; run mvn package first." >&2
+    exit 1
+fi
+
+set -- -XX:SharedArchiveFile="$archive" -XX:+AutoCreateSharedArchive -cp "$jar" calculator.Main "$@"
+if [ -n "$CALCULATOR_CHECKPOINT" ]; then
+    if [ -d "$CALCULATOR_CHECKPOINT" ] && [ -n "$(ls -A "$CALCULATOR_CHECKPOINT")" ]; then
+        exec "$java" -XX:CRaCRestoreFrom="$CALCULATOR_CHECKPOINT"
+    fi
+    exec "$java" -XX:CRaCCheckpointTo="$CALCULATOR_CHECKPOINT" -Dcalculator.checkpoint=true "$@"
+fi
+exec "$java" "$@"
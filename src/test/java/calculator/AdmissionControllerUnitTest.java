@@ -0,0 +1,169 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerUnitTest {
+
+    private static final String[] SINGLE = {"--", "Cx", "x+C", "x^C"};
+    private static final String[] DOUBLE = {"--", "xy", "x+y", "x^y"};
+
+    /* -----------------------------------------------
+     * CostEstimator
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("estimate: iteration counts follow the range bounds")
+    void estimate_iterations() {
+        assertEquals(new CostEstimator.Cost(10, true), CostEstimator.estimate("∑", "Cx", 0, 1, 10, 3, 0));
+        assertEquals(new CostEstimator.Cost(0, true), CostEstimator.estimate("∑", "x^C", 0, 5, 1, 3, 0));
+        assertEquals(new CostEstimator.Cost(200, false), CostEstimator.estimate("∑∑", "x^y", 1, 1, 10, 1, 20));
+        assertEquals(Long.MAX_VALUE, CostEstimator.estimate("ΠΠ", "--", 1, 1, 1e15, 1, 1e15).iterations());
+        assertEquals(Long.MAX_VALUE, CostEstimator.estimate("∑", "--", 0, Long.MIN_VALUE, Long.MAX_VALUE, 0, 0).iterations());
+        assertEquals(1, CostEstimator.estimate("+", "--", 0, 1, 2, 0, 0).iterations());
+    }
+
+    @Test
+    @DisplayName("estimate: short products have no closed form, long ones wrap to 0")
+    void estimate_products() {
+        assertFalse(CostEstimator.estimate("Π", "--", 0, 1, 20, 0, 0).closedForm());
+        assertTrue(CostEstimator.estimate("Π", "--", 0, 1, 200, 0, 0).closedForm());
+        assertTrue(CostEstimator.estimate("Π", "--", 0, 1, 20, 7, 0).closedForm());
+        assertFalse(CostEstimator.estimate("ΠΠ", "x+y", 2, 1, 500, 1, 3).closedForm());
+        assertTrue(CostEstimator.estimate("ΠΠ", "x+y", 3, 1, 500, 1, 3).closedForm());
+    }
+
+    /* -----------------------------------------------
+     * ClosedForms.exact()
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("exact: matches the loops bit for bit, overflow included")
+    void exact_matchesLoops() {
+        Random random = new Random(33);
+        for (int i = 0; i < 2_000; i++) {
+            boolean twoLevel = random.nextBoolean();
+            boolean product = random.nextBoolean();
+            String operator = twoLevel ? (product ? "ΠΠ" : "∑∑") : (product ? "Π" : "∑");
+            String equation = (twoLevel ? DOUBLE : SINGLE)[random.nextInt(4)];
+            int nValue = random.nextInt(7) - 2;
+            double first = random.nextInt(2_000) - 1_000, second = first + random.nextInt(300) - 10;
+            double third = random.nextInt(600) - 300, fourth = third + random.nextInt(200) - 10;
+            if (!twoLevel && random.nextInt(4) == 0) third = random.nextInt(5);
+            if (!ClosedForms.applies(operator, equation, nValue, first, second, third, fourth)) continue;
+
+            double expected = Functions.evaluate(operator, equation, nValue, first, second, third, fourth);
+            double actual = ClosedForms.exact(operator, equation, nValue, first, second, third, fourth);
+            assertEquals(expected, actual, operator + " " + equation + " n=" + nValue + " " + first + ".." + second + " " + third + ".." + fourth);
+        }
+        assertEquals(Functions.evaluate("∑", "x+C", 0, 3e9, 3e9 + 2e5, 1e12, 0),
+                ClosedForms.exact("∑", "x+C", 0, 3e9, 3e9 + 2e5, 1e12, 0));
+        assertEquals(0, ClosedForms.exact("N!", "--", 0, 1e12, 0, 0, 0));
+        assertEquals(Functions.factorial(20), ClosedForms.exact("N!", "--", 0, 20, 0, 0, 0));
+    }
+
+    /* -----------------------------------------------
+     * AdmissionController
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("within budget: the delegate runs the request")
+    void admit_withinBudget() {
+        AdmissionController controller = new AdmissionController(Evaluator.FUNCTIONS, 1_000, AdmissionController.Policy.REJECT);
+        assertEquals(12.0, controller.evaluate("∑", "Cx", 0, 1, 3, 2, 0));
+        assertEquals(1, controller.admittedCount());
+    }
+
+    @Test
+    @DisplayName("over budget with a closed form: answered without looping under every policy")
+    void admit_closedForm() {
+        for (AdmissionController.Policy policy : AdmissionController.Policy.values()) {
+            AdmissionController controller = new AdmissionController(Evaluator.FUNCTIONS, 1_000, policy);
+            assertEquals(ClosedForms.exact("∑∑", "xy", 2, 1, 1e9, 1, 1e9),
+                    controller.evaluate("∑∑", "xy", 2, 1, 1e9, 1, 1e9));
+            assertEquals(1, controller.closedFormCount());
+        }
+    }
+
+    @Test
+    @DisplayName("REJECT: expensive requests without a closed form throw")
+    void reject() {
+        AdmissionController controller = new AdmissionController(Evaluator.FUNCTIONS, 1_000, AdmissionController.Policy.REJECT);
+        AdmissionException error = assertThrows(AdmissionException.class,
+                () -> controller.evaluate("∑", "x^C", 0, 1, 1e6, 2, 0));
+        assertEquals(1_000_000, error.cost().iterations());
+        assertEquals(1, controller.rejectedCount());
+    }
+
+    @Test
+    @DisplayName("DOWNGRADE: Math.pow kernels are estimated, the rest rejected")
+    void downgrade() {
+        AdmissionController controller = new AdmissionController(Evaluator.FUNCTIONS, 10, AdmissionController.Policy.DOWNGRADE);
+        double exact = Functions.summation("x^C", 1, 10_000, 2);
+        assertEquals(exact, controller.evaluate("∑", "x^C", 0, 1, 10_000, 2, 0), exact * 1e-6);
+
+        double product = Functions.prodnot("x^C", 1, 12, 1);
+        assertEquals(product, controller.evaluate("Π", "x^C", 0, 1, 12, 1, 0), product * 1e-9);
+        assertEquals(Long.MAX_VALUE, controller.evaluate("ΠΠ", "x^y", 1, 1, 1e6, 1, 1e6));
+        assertEquals(3, controller.downgradedCount());
+
+        assertThrows(AdmissionException.class, () -> controller.evaluate("∑∑", "x^y", 1, 1, 100, 1, 100));
+    }
+
+    @Test
+    @DisplayName("QUEUE: expensive requests run one at a time")
+    void queue() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Evaluator slow = (operator, equation, nValue, first, second, third, fourth, monitor) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return 1;
+        };
+        AdmissionController controller = new AdmissionController(slow, 10, AdmissionController.Policy.QUEUE);
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; i++) {
+            Thread.ofVirtual().start(() -> {
+                controller.evaluate("∑", "x^C", 0, 1, 1_000, 2, 0);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+        assertEquals(4, controller.queuedCount());
+    }
+
+    @Test
+    @DisplayName("QUEUE: a request that waits past the queue timeout is rejected")
+    void queue_timeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Evaluator blocking = (operator, equation, nValue, first, second, third, fourth, monitor) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        };
+        AdmissionController controller = new AdmissionController(blocking, 10, AdmissionController.Policy.QUEUE, 1, 20);
+        Thread holder = Thread.ofVirtual().start(() -> controller.evaluate("∑", "x^C", 0, 1, 1_000, 2, 0));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertThrows(AdmissionException.class, () -> controller.evaluate("∑", "x^C", 0, 1, 1_000, 2, 0));
+        release.countDown();
+        holder.join();
+    }
+}
@@ -0,0 +1,85 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchInputReaderUnitTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("input.txt");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    @DisplayName("read() parses fields, skips blanks/comments and reports byte offsets as ids")
+    void read_parsesTuples() throws IOException {
+        Path file = write("# start end constant\n1 3 2\n\n-4.5,1e2\t0.25\r\n");
+        try (BatchInputReader reader = new BatchInputReader(file)) {
+            StringBuilder seen = new StringBuilder();
+            long records = reader.read(reader.split(1).get(0), (id, values, count) -> {
+                seen.append(id).append(':');
+                for (int i = 0; i < count; i++) seen.append(values[i]).append(' ');
+                seen.append('|');
+            });
+            assertEquals(2, records);
+            assertEquals("21:1.0 3.0 2.0 |28:-4.5 100.0 0.25 |", seen.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("split() only cuts directly after a newline")
+    void split_alignsOnNewlines() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) content.append(i).append(' ').append(i * 2).append('\n');
+        Path file = write(content.toString());
+        byte[] bytes = Files.readAllBytes(file);
+
+        try (BatchInputReader reader = new BatchInputReader(file, 4096)) {
+            List<BatchInputReader.Segment> segments = reader.split(7);
+            assertTrue(segments.size() >= 7);
+            assertEquals(0, segments.get(0).start());
+            assertEquals(bytes.length, segments.get(segments.size() - 1).end());
+            for (BatchInputReader.Segment segment : segments) {
+                assertTrue(segment.length() <= 4096);
+                assertEquals('\n', bytes[(int) segment.end() - 1]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("readParallel() sees every record exactly once")
+    void readParallel_visitsAllRecords() throws IOException {
+        StringBuilder content = new StringBuilder();
+        double expected = 0;
+        for (int i = 0; i < 20000; i++) {
+            content.append(i).append(".5 ").append(-i).append('\n');
+            expected += i + 0.5 - i;
+        }
+        Path file = write(content.toString());
+        DoubleAdder total = new DoubleAdder();
+        ConcurrentHashMap<Long, Boolean> ids = new ConcurrentHashMap<>();
+
+        try (BatchInputReader reader = new BatchInputReader(file, 8192)) {
+            long records = reader.readParallel(4, () -> (id, values, count) -> {
+                assertNull(ids.put(id, Boolean.TRUE));
+                total.add(values[0] + values[1]);
+            });
+            assertEquals(20000, records);
+        }
+        assertEquals(expected, total.sum(), 1e-6);
+    }
+}
@@ -0,0 +1,129 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchResultWriterUnitTest {
+
+    @TempDir
+    Path dir;
+
+    private record Row(long id, double result, byte status) {
+    }
+
+    private static List<Row> readAll(BatchResultReader reader) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        reader.forEach((id, result, status) -> rows.add(new Row(id, result, status)));
+        return rows;
+    }
+
+    @Test
+    @DisplayName("double columns round-trip across full and partial blocks")
+    void roundTrip_double() throws IOException {
+        Path file = dir.resolve("out.col");
+        List<Row> written = new ArrayList<>();
+        try (BatchResultWriter writer = new BatchResultWriter(file, BatchResultWriter.ResultType.DOUBLE, 16)) {
+            for (int i = 0; i < 100; i++) {
+                Row row = new Row(i * 7L, i / 3.0, (byte) (i % 3));
+                writer.append(row.id(), row.result(), row.status());
+                written.add(row);
+            }
+        }
+
+        try (BatchResultReader reader = new BatchResultReader(file)) {
+            assertEquals(BatchResultWriter.ResultType.DOUBLE, reader.resultType());
+            assertEquals(List.of("id", "result", "status"), reader.columns());
+            assertEquals(100, reader.rowCount());
+            assertEquals(written, readAll(reader));
+        }
+    }
+
+    @Test
+    @DisplayName("a reader with a small window remaps block by block and reads the same rows")
+    void read_acrossWindows() throws IOException {
+        Path file = dir.resolve("out.col");
+        List<Row> written = new ArrayList<>();
+        try (BatchResultWriter writer = new BatchResultWriter(file, BatchResultWriter.ResultType.LONG, 16)) {
+            for (int i = 0; i < 1000; i++) {
+                Row row = new Row(i, i * 11L, (byte) (i % 5));
+                writer.append(row.id(), row.result(), row.status());
+                written.add(row);
+            }
+        }
+
+        int blockBytes = BatchResultWriter.blockBytes(16);
+        try (BatchResultReader reader = new BatchResultReader(file, 3L * blockBytes)) {
+            assertEquals(1000, reader.rowCount());
+            assertEquals(written, readAll(reader));
+            assertTrue(reader.mappings() > 2 * (1000 / 16 / 3), reader.mappings() + " windows");
+        }
+        try (BatchResultReader reader = new BatchResultReader(file, 10)) {
+            assertEquals(written, readAll(reader), "a window smaller than a block maps each block whole");
+        }
+    }
+
+    @Test
+    @DisplayName("long columns keep integer results and separate appenders interleave whole blocks")
+    void roundTrip_longWithAppenders() throws IOException {
+        Path file = dir.resolve("out.col");
+        try (BatchResultWriter writer = new BatchResultWriter(file, BatchResultWriter.ResultType.LONG, 4)) {
+            BatchResultWriter.Appender first = writer.appender();
+            BatchResultWriter.Appender second = writer.appender();
+            for (int i = 0; i < 10; i++) {
+                first.append(i, i * 1000L, BatchResultWriter.STATUS_OK);
+                second.append(100 + i, -i, BatchResultWriter.STATUS_MATH_ERROR);
+            }
+        }
+
+        try (BatchResultReader reader = new BatchResultReader(file)) {
+            Map<Long, Row> rows = new TreeMap<>();
+            for (Row row : readAll(reader)) rows.put(row.id(), row);
+            assertEquals(20, rows.size());
+            assertEquals(new Row(9, 9000, BatchResultWriter.STATUS_OK), rows.get(9L));
+            assertEquals(new Row(105, -5, BatchResultWriter.STATUS_MATH_ERROR), rows.get(105L));
+        }
+    }
+
+    @Test
+    @DisplayName("BatchEvaluator writes one row per input line with matching status codes")
+    void batchEvaluator_binaryOutput() throws IOException {
+        Path input = dir.resolve("in.txt");
+        Files.writeString(input, "1 3 2\n5 8 16\n1 2\nx y z\n");
+        Path output = dir.resolve("out.col");
+
+        BatchEvaluator evaluator = new BatchEvaluator(Evaluator.FUNCTIONS, "Π", "--");
+        try (BatchInputReader reader = new BatchInputReader(input);
+             BatchResultWriter writer = new BatchResultWriter(output, BatchResultWriter.ResultType.LONG)) {
+            assertEquals(3, evaluator.evaluate(reader, writer, 2));
+        }
+
+        try (BatchResultReader reader = new BatchResultReader(output)) {
+            Map<Long, Row> rows = new TreeMap<>();
+            for (Row row : readAll(reader)) rows.put(row.id(), row);
+            assertEquals(List.of(
+                    new Row(0, 8, BatchResultWriter.STATUS_OK),
+                    new Row(6, 65536, BatchResultWriter.STATUS_OK),
+                    new Row(13, 0, BatchResultWriter.STATUS_SYNTAX_ERROR),
+                    new Row(17, 0, BatchResultWriter.STATUS_SYNTAX_ERROR)), new ArrayList<>(rows.values()));
+        }
+    }
+
+    @Test
+    @DisplayName("reader rejects files that are not batch result files")
+    void reader_rejectsForeignFile() throws IOException {
+        Path file = dir.resolve("bogus.col");
+        Files.writeString(file, "definitely not columns");
+        assertThrows(IOException.class, () -> new BatchResultReader(file));
+    }
+}
@@ -0,0 +1,71 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.JPanel;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ButtonRegistryUnitTest {
+
+    @Test
+    @DisplayName("identifiers and names are unique, and every key the reducer knows has a button")
+    void table_isConsistent() {
+        Set<String> identifiers = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (ButtonRegistry.Spec spec : ButtonRegistry.SPECS) {
+            assertTrue(identifiers.add(spec.identifier()), spec.identifier());
+            assertTrue(names.add(spec.name()), spec.name());
+        }
+        List<String> keys = Arrays.asList(SessionRecorder.KEYS).subList(1, SessionRecorder.KEYS.length);
+        assertTrue(identifiers.containsAll(keys));
+        assertEquals(keys.size() + 3, identifiers.size(), "plus the three answer-history slots");
+    }
+
+    @Test
+    @DisplayName("build lays the buttons out and wires presses and recalls")
+    void build_wiresButtons() throws Exception {
+        JPanel panel = new JPanel(null);
+        List<String> pressed = new ArrayList<>();
+        List<Integer> recalled = new ArrayList<>();
+        Map<String, RoundedButton> buttons = ButtonRegistry.build(panel, pressed::add, recalled::add);
+
+        assertEquals(ButtonRegistry.SPECS.size(), panel.getComponentCount());
+        assertSame(buttons.get("DL"), panel.getComponent(0));
+        RoundedButton equals = buttons.get("EQU");
+        assertEquals("EqualsButton", equals.getName());
+        assertEquals(198, equals.getWidth());
+        assertSame(Theme.OPERATOR_FONT, equals.getFont());
+        assertNotNull(buttons.get("SUM").getIcon());
+
+        RoundedButton numroot = buttons.get("NMROOT");
+        assertNull(numroot.getIcon(), "a hidden button loads its picture when first shown");
+        numroot.setBounds(548, 320, 94, 54);
+        BufferedImage canvas = new BufferedImage(94, 54, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        numroot.paint(g);
+        g.dispose();
+        for (long deadline = System.nanoTime() + 5_000_000_000L; numroot.getIcon() == null
+                && System.nanoTime() < deadline; ) {
+            EventQueue.invokeAndWait(() -> { });
+        }
+        assertNotNull(numroot.getIcon(), "the decoded picture is swapped in on the event thread");
+
+        equals.doClick(0);
+        buttons.get("SVN").doClick(0);
+        buttons.get("ah2").doClick(0);
+        assertEquals(List.of("EQU", "SVN"), pressed);
+        assertEquals(List.of(1), recalled);
+    }
+}
@@ -0,0 +1,114 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CalculationHistoryUnitTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("recent() returns the latest answers first, with fractions intact")
+    void recent() throws IOException {
+        try (CalculationHistory history = new CalculationHistory(dir.resolve("h.log"), 4)) {
+            history.append("+", "2+3", 5);
+            history.append("÷", "1÷3", 1.0 / 3);
+            history.append("∑", "1A100B0C", 5050);
+            assertEquals(3, history.size());
+            assertEquals(5050.0, history.recall(0));
+            assertEquals(1.0 / 3, history.recall(1));
+            assertEquals("2+3", history.recent(2).expression());
+            assertNull(history.recent(3));
+            assertTrue(Double.isNaN(history.recall(3)));
+        }
+    }
+
+    @Test
+    @DisplayName("the ring keeps only the newest entries; the log keeps all of them")
+    void ringBound() throws IOException {
+        try (CalculationHistory history = new CalculationHistory(dir.resolve("h.log"), 3)) {
+            for (int i = 0; i < 10; i++) history.append("+", "i", i);
+            assertEquals(3, history.recentCount());
+            assertEquals(9.0, history.recall(0));
+            assertEquals(7.0, history.recall(2));
+            List<Double> all = new ArrayList<>();
+            history.scan(CalculationHistory.start(), (offset, timestamp, opcode, result) -> all.add(result));
+            assertEquals(10, all.size());
+        }
+    }
+
+    @Test
+    @DisplayName("reopening loads the recent ring lazily from the tail of the log")
+    void reopen() throws IOException {
+        Path file = dir.resolve("h.log");
+        try (CalculationHistory history = new CalculationHistory(file, 8)) {
+            for (int i = 0; i < 20_000; i++) history.append("*", "x" + i, i * 0.5);
+        }
+        try (CalculationHistory history = new CalculationHistory(file, 8)) {
+            assertEquals(20_000, history.size());
+            assertEquals(19_999 * 0.5, history.recall(0));
+            CalculationHistory.Entry entry = history.recent(7);
+            assertEquals("x19992", entry.expression());
+            assertEquals("*", entry.operator());
+            assertEquals(entry, history.read(entry.offset()));
+            history.append("-", "new", -1);
+            assertEquals(-1.0, history.recall(0));
+            assertEquals(19_999 * 0.5, history.recall(1));
+        }
+    }
+
+    @Test
+    @DisplayName("a record written after the last header update is ignored on reopen")
+    void tornAppend() throws IOException {
+        Path file = dir.resolve("h.log");
+        long committedEnd;
+        try (CalculationHistory history = new CalculationHistory(file, 8)) {
+            history.append("+", "a", 1);
+            committedEnd = history.end();
+            history.append("+", "b", 2);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(committedEnd).putLong(1).flip();
+            channel.write(header, 16);
+        }
+        try (CalculationHistory history = new CalculationHistory(file, 8)) {
+            assertEquals(1, history.size());
+            assertEquals(1.0, history.recall(0));
+            assertEquals(1, history.recentCount());
+        }
+    }
+
+    @Test
+    @DisplayName("a file that is not a history is refused")
+    void badFile() throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> new CalculationHistory(file, 8));
+    }
+
+    @Test
+    @DisplayName("in-memory history remembers the ring only")
+    void inMemory() throws IOException {
+        CalculationHistory history = new CalculationHistory(2);
+        assertEquals(-1, history.append("+", "1+1", 2));
+        history.append("+", "1+2", 3);
+        history.append("+", "1+3", 4);
+        assertEquals(3, history.size());
+        assertEquals(2, history.recentCount());
+        assertEquals(4.0, history.recall(0));
+    }
+}
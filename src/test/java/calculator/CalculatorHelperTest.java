@@ -226,4 +226,58 @@ class CalculatorHelperTest {
         Image img = helper.loadImage("/Picture/cuberoot.png");
         assertNotNull(img, "cuberoot.png should be found in resources");
     }
+
+    /* -------------------------------------------------
+     * Deferred mode components
+     * ------------------------------------------------- */
+    @Test
+    @DisplayName("mode components are built the first time a mode needs them, and only once")
+    void advancedComponents_builtOnFirstUse() {
+        CalculatorHelper lazy = new CalculatorHelper(
+                format, calc, numwrapper, holder,
+                null, null, null, null, null,
+                lognumx_button, logsubtwoX_button, set_button,
+                cuberoot_button, numroot_button,
+                null, DEL_button, equals_button, AC_button
+        );
+        int[] builds = {0};
+        lazy.setAdvancedFactory(() -> {
+            builds[0]++;
+            lazy.attachAdvanced(zValue, yValue, xValue, imageHolder, variableHolder, equationHolder);
+        });
+
+        lazy.resetAll();
+        lazy.setXYZInactive();
+        assertFalse(lazy.isAdvancedBuilt());
+        assertEquals(0, builds[0]);
+        assertEquals(691, numwrapper.getWidth());
+
+        lazy.setSummationActive();
+        lazy.setXYActive();
+        lazy.setXYActive();
+        assertTrue(lazy.isAdvancedBuilt());
+        assertEquals(1, builds[0]);
+        assertEquals(161, xValue.getWidth());
+        assertEquals(1, xValue.getKeyListeners().length, "focus listeners are added once");
+    }
+
+    @Test
+    @DisplayName("mode pictures load off the event thread and the latest mode's picture wins")
+    void imageHolder_swappedInAsync() throws Exception {
+        helper.setSummationActive();
+        helper.setNotationActive();
+        ImageIcon notation = ImageCache.shared().icon("/Picture/notation_hold.png");
+        ImageCache.shared().icon("/Picture/summation_hold.png");
+        // The swap is posted to the event queue once the decode completes; give it a moment.
+        for (int i = 0; i < 200 && imageHolder.getIcon() != notation; i++) {
+            EventQueue.invokeAndWait(() -> { });
+            Thread.sleep(5);
+        }
+        EventQueue.invokeAndWait(() -> { });
+        assertSame(notation, imageHolder.getIcon());
+
+        helper.setSummationActive();
+        assertSame(ImageCache.shared().cachedIcon("/Picture/summation_hold.png"), imageHolder.getIcon(),
+                "a cached picture shows at once");
+    }
 }
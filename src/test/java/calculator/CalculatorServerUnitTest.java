@@ -0,0 +1,156 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class CalculatorServerUnitTest {
+
+    private CalculatorServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new CalculatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Evaluator.FUNCTIONS);
+        server.start();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private String post(String path, String body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return response.body();
+    }
+
+    @Test
+    @DisplayName("range endpoints evaluate every JSON line in a batch")
+    void rangeEndpoints() throws Exception {
+        assertEquals("{\"result\":12}\n{\"result\":14}\n",
+                post("/summation", "{\"equation\":\"Cx\",\"start\":1,\"end\":3,\"constant\":2}\n"
+                        + "{\"equation\":\"x^C\",\"start\":1,\"end\":3,\"constant\":2}\n"));
+        assertEquals("{\"result\":65536}\n", post("/product", "{\"start\":5,\"end\":8,\"constant\":16}"));
+        assertEquals("{\"result\":18}\n",
+                post("/double-summation", "{\"n\":1,\"equation\":\"xy\",\"start\":1,\"end\":2,\"jStart\":1,\"jEnd\":3}"));
+    }
+
+    @Test
+    @DisplayName("basic chain, factorial and log endpoints")
+    void otherEndpoints() throws Exception {
+        assertEquals("{\"result\":20}\n", post("/basic", "{\"numbers\":[2,3,4],\"operators\":[\"+\",\"*\"]}"));
+        assertEquals("{\"result\":120}\n", post("/factorial", "{\"value\":5}"));
+        assertEquals("{\"result\":3}\n", post("/log", "{\"value\":8,\"base\":2}"));
+        assertEquals("{\"result\":0.5}\n", post("/basic", "{\"numbers\":[1,2],\"operators\":[\"÷\"]}"));
+    }
+
+    @Test
+    @DisplayName("bad lines report errors without failing the rest of the batch")
+    void errors() throws Exception {
+        assertEquals("{\"error\":\"Math Error\"}\n{\"error\":\"Syntax Error\"}\n{\"result\":1}\n",
+                post("/factorial", "{\"value\":-4}\n{\"value\":\n{\"value\":0}\n"));
+        assertEquals("{\"error\":\"Math Error\"}\n", post("/basic", "{\"numbers\":[1,0],\"operators\":[\"÷\"]}"));
+    }
+
+    @Test
+    @DisplayName("string escapes decode as JSON's, and a cut-off \\u escape is a syntax error")
+    void stringEscapes() throws Exception {
+        Map<String, Object> request = JsonLines.parse("{\"s\":\"a\\r\\b\\f\\n\\t\\\"\\\\\\/\\u00e9\"}");
+        assertEquals("a\r\b\f\n\t\"\\/\u00e9", request.get("s"));
+
+        for (String bad : List.of("{\"s\":\"\\u12\"}", "{\"s\":\"\\u00\"", "{\"s\":\"\\u+123\"}")) {
+            assertThrows(IllegalStateException.class, () -> JsonLines.parse(bad), bad);
+        }
+        assertEquals("{\"error\":\"Syntax Error\"}\n{\"result\":6}\n",
+                post("/factorial", "{\"value\":\"\\u1\n{\"value\":3}\n"));
+    }
+
+    @Test
+    @DisplayName("/stats reports request counts and latency percentiles")
+    void stats() throws Exception {
+        post("/factorial", "{\"value\":3}");
+        post("/factorial", "{\"value\":4}");
+        String stats = client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/stats")).build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        assertTrue(stats.contains("{\"endpoint\":\"/factorial\",\"count\":2,"), stats);
+        assertTrue(server.latency("/factorial").percentile(99) > 0);
+    }
+
+    @Test
+    @DisplayName("a range that outlives the time budget is stopped with a partial result")
+    void timeout() throws Exception {
+        CalculatorServer limited = new CalculatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), Evaluator.FUNCTIONS, 50);
+        limited.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + limited.port() + "/summation"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"start\":1,\"end\":9.2e18}")).build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            assertTrue(body.startsWith("{\"error\":\"Timeout\",\"partial\":"), body);
+            assertTrue(body.contains("\"progress\":"), body);
+        } finally {
+            limited.stop();
+        }
+    }
+
+    /**
+     * Loopback throughput check. Run with -Dcalculator.loadtest=true; the target rate can be
+     * changed with -Dcalculator.loadtest.rps (default 50000 evaluations per second).
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: sustained evaluations per second over keep-alive connections")
+    void loadTest() throws Exception {
+        int connections = 32;
+        int linesPerRequest = 64;
+        long durationNanos = 5_000_000_000L;
+        double target = Double.parseDouble(System.getProperty("calculator.loadtest.rps", "50000"));
+        String body = "{\"equation\":\"Cx\",\"start\":1,\"end\":100,\"constant\":3}\n".repeat(linesPerRequest);
+        AtomicLong evaluations = new AtomicLong();
+
+        ExecutorService workers = Executors.newFixedThreadPool(connections);
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            futures.add(workers.submit(() -> {
+                HttpClient own = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+                HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/summation"))
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                while (System.nanoTime() - start < durationNanos) {
+                    own.send(request, HttpResponse.BodyHandlers.discarding());
+                    evaluations.addAndGet(linesPerRequest);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        workers.shutdown();
+
+        double rate = evaluations.get() / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("HTTP load: %.0f evaluations/s, %s%n", rate, server.latency("/summation").summary());
+        assertTrue(rate >= target, "throughput " + rate + " below " + target);
+    }
+}
@@ -0,0 +1,198 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CalculatorStateUnitTest {
+
+    private static CalculatorState press(CalculatorState state, String... keys) {
+        for (String key : keys) {
+            state = CalculatorState.settle(CalculatorState.reduce(state, key));
+        }
+        return state;
+    }
+
+    private static CalculatorState press(String... keys) {
+        return press(CalculatorState.INITIAL, keys);
+    }
+
+    /* ---- basic input ---- */
+
+    @Test
+    @DisplayName("digits build the number on both the working and the shown text")
+    void digits() {
+        CalculatorState state = press("ON", "TWO", "PRD", "FV", "ZRO");
+        assertEquals("12.50", state.calcText());
+        assertEquals("12.50", state.displayText());
+        assertTrue(state.allowed());
+        assertEquals("0", press("ZRO").displayText(), "a leading zero is ignored");
+    }
+
+    @Test
+    @DisplayName("a basic chain evaluates left to right and leaves the expression in the holder")
+    void basicChain() {
+        CalculatorState state = press("TWO", "PLUS", "THR", "MUL", "FR", "EQU");
+        assertEquals(20.0, state.ans());
+        assertEquals("20", state.displayText());
+        assertTrue(state.holderText().endsWith("4"));
+        assertTrue(state.numbers().isEmpty());
+        assertTrue(state.reset());
+        assertEquals(1, state.answerCount());
+
+        CalculatorState next = press(state, "SVN");
+        assertEquals("7", next.displayText(), "typing after an answer starts afresh");
+        assertEquals("", next.holderText());
+    }
+
+    @Test
+    @DisplayName("DEL, +/- and AC")
+    void editing() {
+        assertEquals("12", press("ON", "TWO", "THR", "DL").displayText());
+        assertEquals("-5", press("FV", "PM").displayText());
+        assertEquals("5", press("FV", "PM", "PM").displayText());
+
+        CalculatorState cleared = press("DSUM", "ON", "A", "AC");
+        assertNull(cleared.operator());
+        assertNull(cleared.A());
+        assertEquals("--", cleared.equation());
+        assertEquals(CalculatorState.Layout.NONE, cleared.layout());
+        assertEquals("0", cleared.displayText());
+    }
+
+    @Test
+    @DisplayName("unary and binary function buttons")
+    void functions() {
+        assertEquals("3", press("NN", "SQRT").displayText());
+        assertEquals("3", press("THR", "PRD", "SVN", "FLR").displayText());
+        assertEquals("4", press("THR", "PRD", "ON", "CEL").displayText());
+        assertEquals(120.0, press("FV", "FAC", "EQU").ans());
+        assertEquals(2.0, press("SVN", "MOD", "FV", "EQU").ans());
+        assertEquals(3.0, press("SVN", "INTD", "TWO", "EQU").ans());
+        assertEquals(3.0, press("EHT", "LG2", "EQU").ans(), 1e-12);
+        assertEquals("Undefined", press("NN", "PM", "FAC", "EQU").holderText());
+    }
+
+    /* ---- range operators ---- */
+
+    @Test
+    @DisplayName("∑ leaves its evaluation pending until it is run")
+    void summation_pending() {
+        CalculatorState waiting = CalculatorState.INITIAL;
+        for (String key : List.of("SUM", "CEX", "ON", "A", "THR", "B", "TWO", "C", "EQU")) {
+            waiting = CalculatorState.reduce(waiting, key);
+        }
+        assertEquals(new CalculatorState.RangeRequest("∑", "Cx", 0, 1, 3, 2, 0), waiting.pending());
+        assertEquals(waiting, CalculatorState.reduce(waiting, "EQU"), "a second = while pending does nothing");
+
+        CalculatorState done = CalculatorState.complete(waiting, 12);
+        assertNull(done.pending());
+        assertEquals(12.0, done.ans());
+        assertEquals("12", done.displayText());
+        assertEquals(CalculatorState.Layout.NONE, done.layout());
+
+        assertEquals("Undefined", CalculatorState.fail(waiting).holderText());
+        assertNull(CalculatorState.reduce(waiting, "AC").pending());
+    }
+
+    @Test
+    @DisplayName("∑∑ takes N from the x field and the ranges from A..D")
+    void doubleSummation() {
+        CalculatorState setup = press("DSUM", "XEY", "ON", "A", "TWO", "B", "ON", "C", "THR", "D");
+        assertEquals(CalculatorState.Layout.DOUBLE_SUMMATION, setup.layout());
+        assertEquals("N =", setup.variableText());
+        assertEquals("Equation: xy", setup.equationText());
+
+        CalculatorState answered = press(setup.withFields("1", "0", "0"), "EQU");
+        assertEquals(18.0, answered.ans());
+        assertEquals(1, answered.nValue());
+    }
+
+    @Test
+    @DisplayName("the layout buttons toggle their fields on and off")
+    void layouts() {
+        CalculatorState xy = press("XY");
+        assertEquals(CalculatorState.Layout.XY, xy.layout());
+        assertTrue(xy.layout().hidesDisplay());
+        assertEquals(CalculatorState.Layout.NONE, press(xy, "XY").layout());
+        assertEquals(CalculatorState.Layout.LOG_N, press("LGN").layout());
+        assertEquals("x =", press("NMROOT").variableText());
+        assertTrue(press("ST").advanced());
+        assertFalse(press("ST", "ST").advanced());
+
+        CalculatorState power = press(press("XYZ").withFields("2", "3", "2"), "EQU");
+        assertEquals(512.0, power.ans());
+    }
+
+    @Test
+    @DisplayName("the format toggle groups thousands and back")
+    void format() {
+        CalculatorState grouped = press("ON", "TWO", "THR", "FR", "FV", "FRM");
+        assertEquals("12,345", grouped.displayText());
+        assertTrue(grouped.formatted());
+        assertEquals("12345", press(grouped, "FRM").displayText());
+    }
+
+    @Test
+    @DisplayName("ANS inserts the last answer, and withAns replaces it")
+    void ans() {
+        CalculatorState state = press("SX", "MUL", "SVN", "EQU", "PLUS", "ANS", "EQU");
+        assertEquals(84.0, state.ans());
+        assertEquals("2.5", press(CalculatorState.INITIAL.withAns(2.5), "ANS").calcText());
+    }
+
+    /* ---- purity ---- */
+
+    @Test
+    @DisplayName("reduce never changes the state it is given, and unknown keys are ignored")
+    void reduce_isPure() {
+        CalculatorState before = press("TWO", "PLUS", "THR");
+        CalculatorState copy = press("TWO", "PLUS", "THR");
+        press(before, "MUL", "FR", "EQU", "AC");
+        assertEquals(copy, before);
+        assertEquals(List.of(2.0), before.numbers());
+        assertEquals(before, CalculatorState.reduce(before, "nope"));
+    }
+
+    @Test
+    @DisplayName("reduceAll ends where reducing one key at a time does")
+    void reduceAll_matchesReduce() {
+        List<String> keys = List.of("ON", "ZRO", "PRD", "FV", "DL", "TWO", "PLUS", "THR", "FAC", "FLR", "A",
+                "MUL", "ANS", "SQRT", "FRM", "EQU", "SVN", "PM", "nope", "DIV", "ZRO", "EQU", "NN");
+        CalculatorState oneByOne = CalculatorState.INITIAL;
+        for (String key : keys) oneByOne = CalculatorState.reduce(oneByOne, key);
+        assertEquals(oneByOne, CalculatorState.reduceAll(CalculatorState.INITIAL, keys));
+    }
+
+    @Test
+    @DisplayName("a long run of digits is built in one batch")
+    void reduceAll_longNumber() {
+        List<String> digits = new ArrayList<>();
+        digits.add("ON");
+        for (int i = 0; i < 200_000; i++) digits.add(i % 2 == 0 ? "ZRO" : "SVN");
+        CalculatorState state = CalculatorState.reduceAll(CalculatorState.INITIAL, digits);
+        assertEquals(200_001, state.calcText().length());
+        assertEquals(state.calcText(), state.displayText());
+        assertTrue(state.calcText().endsWith("0707"));
+
+        CalculatorState more = CalculatorState.reduceAll(state, List.of("PRD", "FV"));
+        assertTrue(more.calcText().endsWith("07.5"));
+        assertEquals(200_001, state.calcText().length(), "the earlier state is untouched");
+    }
+
+    @Test
+    @DisplayName("sessions replayed in parallel give the same answers as one after another")
+    void parallelReplay() {
+        String[] session = {"NN", "MUL", "NN", "EQU", "PLUS", "ON", "EQU", "SUM", "ON", "A", "ON", "ZRO", "ZRO", "B", "EQU"};
+        CalculatorState expected = press(session);
+        assertEquals(5050.0, expected.ans());
+        assertTrue(IntStream.range(0, 1000).parallel()
+                .mapToObj(i -> press(session))
+                .allMatch(expected::equals));
+    }
+}
@@ -0,0 +1,75 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CancellationTokenUnitTest {
+
+    @Test
+    @DisplayName("an untouched token lets the kernel complete")
+    void completes() {
+        CancellationToken.Result result = new CancellationToken().evaluate(Evaluator.FUNCTIONS, "∑", "--", 0, 1, 100_000, 0, 0);
+        assertEquals(CancellationToken.Status.COMPLETED, result.status());
+        assertFalse(result.isPartial());
+        assertEquals(5_000_050_000.0, result.value());
+        assertEquals(1.0, result.fraction());
+    }
+
+    @Test
+    @DisplayName("a cancelled token stops at the first checkpoint with a partial result")
+    void cancelled() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        CancellationToken.Result result = token.evaluate(Evaluator.FUNCTIONS, "∑", "--", 0, 1, Long.MAX_VALUE, 0, 0);
+        long n = Functions.CHECK_INTERVAL;
+        assertEquals(CancellationToken.Status.CANCELLED, result.status());
+        assertEquals(n * (n + 1) / 2, result.value());
+        assertTrue(result.fraction() > 0 && result.fraction() < 1e-6);
+    }
+
+    @Test
+    @DisplayName("a deadline stops 1..Long.MAX_VALUE promptly")
+    void timedOut() {
+        long start = System.nanoTime();
+        CancellationToken token = CancellationToken.withTimeout(50, TimeUnit.MILLISECONDS);
+        CancellationToken.Result result = token.evaluate(Evaluator.FUNCTIONS, "ΠΠ", "x+y", 1, 1, Long.MAX_VALUE, 1, Long.MAX_VALUE);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(CancellationToken.Status.TIMED_OUT, result.status());
+        assertTrue(result.isPartial());
+        assertTrue(elapsedMillis < 2_000, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("an empty inner range over a huge outer range ends at once under a deadline")
+    void timedOut_emptyInnerRange() {
+        CancellationToken.Result sum = assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+                CancellationToken.withTimeout(50, TimeUnit.MILLISECONDS)
+                        .evaluate(Evaluator.FUNCTIONS, "∑∑", "xy", 1, 1, Long.MAX_VALUE, 5, 1));
+        assertEquals(CancellationToken.Status.COMPLETED, sum.status());
+        assertEquals(0.0, sum.value());
+
+        CancellationToken.Result product = assertTimeoutPreemptively(Duration.ofSeconds(2), () ->
+                CancellationToken.withTimeout(50, TimeUnit.MILLISECONDS)
+                        .evaluate(Evaluator.FUNCTIONS, "ΠΠ", "x+y", 1, 1, Long.MAX_VALUE, 5, 1));
+        assertEquals(CancellationToken.Status.COMPLETED, product.status());
+        assertEquals(1.0, product.value());
+    }
+
+    @Test
+    @DisplayName("an interrupted thread counts as cancelled")
+    void interrupted() {
+        CancellationToken token = new CancellationToken();
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals(CancellationToken.Status.CANCELLED,
+                    token.evaluate(Evaluator.FUNCTIONS, "Π", "--", 0, 1, Long.MAX_VALUE, 0, 0).status());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package calculator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
 import java.util.ArrayList;
 
 import org.junit.jupiter.api.DisplayName;
@@ -29,6 +30,16 @@ class FunctionsUnitTest {
         assertEquals(120, Functions.factorial(5));   // 5! = 120
     }
 
+    @Test
+    @DisplayName("factorial of a huge input ends once the wrapped product is 0")
+    void factorial_huge() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertEquals(0, Functions.factorial(3e9));
+            assertEquals(0, Functions.factorial(1e300));
+            assertEquals(0, Functions.factorial(Integer.MAX_VALUE));
+        });
+    }
+
     @Test
     @DisplayName("factorial should throw exception for negative input")
     void factorial_negative() {
@@ -185,6 +196,64 @@ class FunctionsUnitTest {
         assertEquals(20.0, Functions.calculateResult(nums, ops));  // LTR evaluation
     }
 
+    /* -----------------------------------------------
+     * evaluate()
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("evaluate dispatches range operators like the = button")
+    void evaluate_rangeOperators() {
+        assertEquals(12.0, Functions.evaluate("∑", "Cx", 0, 1, 3, 2, 0));
+        assertEquals(18.0, Functions.evaluate("∑∑", "xy", 1, 1, 2, 1, 3));
+        assertEquals(65536.0, Functions.evaluate("Π", "--", 0, 5, 8, 16, 0));
+    }
+
+    @Test
+    @DisplayName("evaluate covers factorial, log and basic operators")
+    void evaluate_otherOperators() {
+        assertEquals(120.0, Functions.evaluate("N!", "--", 0, 5, 0, 0, 0));
+        assertEquals(3.0, Functions.evaluate("log(2)(", "--", 0, 8, 0, 0, 0), 1e-12);
+        assertEquals(2.0, Functions.evaluate("log(n)x(", "--", 0, 10, 100, 0, 0), 1e-12);
+        assertEquals(15.0, Functions.evaluate("+", "--", 0, 7, 8, 0, 0));
+        assertEquals(3.0, Functions.evaluate("//", "--", 0, 7, 2, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Functions.evaluate("??", "--", 0, 1, 2, 0, 0));
+    }
+
+    /* -----------------------------------------------
+     * ProgressMonitor overloads
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("monitor: reports increasing progress and keeps the result")
+    void monitor_reportsProgress() {
+        ArrayList<Double> fractions = new ArrayList<>();
+        long sum = Functions.summation("--", 1, 100_000, 0, fraction -> fractions.add(fraction));
+        assertEquals(5_000_050_000L, sum);
+        assertEquals(100_000 / Functions.CHECK_INTERVAL, fractions.size());
+        for (int i = 1; i < fractions.size(); i++) {
+            assertTrue(fractions.get(i) > fractions.get(i - 1));
+        }
+        assertTrue(fractions.get(fractions.size() - 1) <= 1.0);
+    }
+
+    @Test
+    @DisplayName("monitor: returning false stops the kernel at the checkpoint")
+    void monitor_stopsEarly() {
+        long partial = Functions.summation("--", 1, 1_000_000_000, 0, fraction -> false);
+        long n = Functions.CHECK_INTERVAL;
+        assertEquals(n * (n + 1) / 2, partial);
+        assertEquals(n * (n + 1) / 2, Functions.doubleSummation(0, "--", 1, 1_000_000, 1, 1_000_000, fraction -> false));
+    }
+
+    @Test
+    @DisplayName("monitor: double kernels check inside short inner ranges")
+    void monitor_doubleKernels() {
+        int[] calls = new int[1];
+        long product = Functions.doubleProdNot(1, "xy", 1, 100_000, 1, 1, fraction -> ++calls[0] < 3);
+        assertEquals(3, calls[0]);
+        assertEquals(Functions.doubleProdNot(1, "xy", 1, 3L * Functions.CHECK_INTERVAL, 1, 1), product);
+    }
+
     /* -----------------------------------------------
      * formatString()
      * ----------------------------------------------- */
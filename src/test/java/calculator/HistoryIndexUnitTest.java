@@ -0,0 +1,156 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HistoryIndexUnitTest {
+
+    private static final String[] OPERATORS = {"+", "∑", "N!", "÷"};
+
+    @TempDir
+    Path dir;
+
+    private CalculationHistory history;
+    private HistoryIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        history = new CalculationHistory(dir.resolve("h.log"), 4);
+        index = new HistoryIndex(history);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        history.close();
+    }
+
+    /** Appends entries with random results and returns their offsets in log order. */
+    private long[] fill(int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+            offsets[i] = history.append(operator, operator + "-" + random.nextInt(100), random.nextInt(2_000) - 1_000 + random.nextDouble());
+        }
+        return offsets;
+    }
+
+    @Test
+    @DisplayName("byValue matches a linear scan across run and tail, in value order")
+    void byValue() throws IOException {
+        fill(3 * HistoryIndex.TAIL_LIMIT + 17, 1);
+        long[] found = index.byValue(-100.5, 250);
+        double previous = Double.NEGATIVE_INFINITY;
+        for (long offset : found) {
+            double result = history.read(offset).result();
+            assertTrue(result >= -100.5 && result <= 250);
+            assertTrue(result >= previous);
+            previous = result;
+        }
+        int expected = 0;
+        long[] all = index.byTime(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (long offset : all) {
+            double result = history.read(offset).result();
+            if (result >= -100.5 && result <= 250) expected++;
+        }
+        assertEquals(expected, found.length);
+        assertEquals(history.size(), all.length);
+    }
+
+    @Test
+    @DisplayName("byOperator returns that operator's entries oldest first")
+    void byOperator() throws IOException {
+        long[] offsets = fill(1_000, 2);
+        long[] sums = index.byOperator("∑");
+        long[] expected = Arrays.stream(offsets).filter(offset -> "∑".equals(history.read(offset).operator())).toArray();
+        assertArrayEquals(expected, sums);
+        assertEquals(0, index.byOperator("∑", Long.MIN_VALUE, 0).length);
+    }
+
+    @Test
+    @DisplayName("byTime selects a window")
+    void byTime() throws IOException {
+        fill(10, 3);
+        long now = System.currentTimeMillis();
+        assertEquals(10, index.byTime(now - 60_000, now + 60_000).length);
+        assertEquals(0, index.byTime(now + 60_000, now + 120_000).length);
+        assertEquals(0, index.byTime(5, 4).length);
+    }
+
+    @Test
+    @DisplayName("byExpressionPrefix finds every expression with the prefix")
+    void byPrefix() throws IOException {
+        fill(2 * HistoryIndex.TAIL_LIMIT + 3, 4);
+        for (long offset : index.byExpressionPrefix("N!-1")) {
+            assertTrue(history.read(offset).expression().startsWith("N!-1"));
+        }
+        long expected = Arrays.stream(index.byTime(Long.MIN_VALUE, Long.MAX_VALUE))
+                .filter(offset -> history.read(offset).expression().startsWith("N!-1")).count();
+        assertEquals(expected, index.byExpressionPrefix("N!-1").length);
+        assertEquals(0, index.byExpressionPrefix("zzz").length);
+    }
+
+    @Test
+    @DisplayName("entries appended after the first query are picked up incrementally")
+    void incremental() throws IOException {
+        fill(5, 5);
+        assertEquals(5, index.size());
+        long offset = history.append("x^y", "2^10", 1024);
+        assertEquals(6, index.size());
+        assertArrayEquals(new long[] {offset}, index.byValue(1024, 1024));
+        assertArrayEquals(new long[] {offset}, index.byOperator("x^y"));
+    }
+
+    @Test
+    @DisplayName("many runs of different sizes answer in key order, equal keys oldest first")
+    void manyRuns() throws IOException {
+        long[] offsets = fill(11 * HistoryIndex.TAIL_LIMIT + 100, 6);
+        assertArrayEquals(offsets, index.byTime(Long.MIN_VALUE, Long.MAX_VALUE));
+        for (String operator : OPERATORS) {
+            long[] expected = Arrays.stream(offsets).filter(offset -> operator.equals(history.read(offset).operator())).toArray();
+            assertArrayEquals(expected, index.byOperator(operator));
+        }
+
+        long[] byValue = index.byValue(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        Long[] sorted = Arrays.stream(offsets).boxed().toArray(Long[]::new);
+        Arrays.sort(sorted, (x, y) -> Double.compare(history.read(x).result(), history.read(y).result()));
+        assertArrayEquals(Arrays.stream(sorted).mapToLong(Long::longValue).toArray(), byValue);
+
+        long[] prefixed = index.byExpressionPrefix("+-4");
+        Long[] expected = Arrays.stream(offsets).filter(offset -> history.read(offset).expression().startsWith("+-4"))
+                .boxed().toArray(Long[]::new);
+        Arrays.sort(expected, (x, y) -> history.read(x).expression().compareTo(history.read(y).expression()));
+        assertArrayEquals(Arrays.stream(expected).mapToLong(Long::longValue).toArray(), prefixed,
+                "expression order, and log order among equal expressions");
+    }
+
+    @Test
+    @DisplayName("-0.0 and 0.0 are the same value")
+    void byValue_signedZero() throws IOException {
+        long negative = history.append("*", "-1*0", -0.0);
+        long positive = history.append("*", "1*0", 0.0);
+        assertArrayEquals(new long[] {negative, positive}, index.byValue(0.0, 0.0));
+        assertArrayEquals(new long[] {negative, positive}, index.byValue(-0.0, -0.0));
+        assertArrayEquals(new long[] {negative, positive}, index.byValue(-0.0, 1e-300));
+    }
+
+    @Test
+    @DisplayName("sortableBits orders negatives, zero and positives like doubles")
+    void sortableBits() {
+        double[] values = {Double.NEGATIVE_INFINITY, -1e300, -2.5, -1e-300, 0.0, 1e-300, 3, Double.POSITIVE_INFINITY};
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(HistoryIndex.sortableBits(values[i - 1]) < HistoryIndex.sortableBits(values[i]));
+        }
+        assertEquals(HistoryIndex.sortableBits(0.0), HistoryIndex.sortableBits(-0.0));
+    }
+}
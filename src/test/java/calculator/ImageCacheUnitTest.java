@@ -0,0 +1,102 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import javax.swing.ImageIcon;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ImageCacheUnitTest {
+
+    @Test
+    @DisplayName("every picture the calculator uses is preloaded and decodes")
+    void preloadAll_decodesEveryPicture() {
+        ImageCache cache = new ImageCache();
+        cache.preloadAll();
+        for (String path : ImageCache.PICTURES) {
+            BufferedImage image = cache.image(path);
+            assertNotNull(image, path);
+            assertTrue(image.getWidth() > 0, path);
+        }
+    }
+
+    @Test
+    @DisplayName("a picture is decoded once and its icon is shared")
+    void icon_isShared() {
+        ImageCache cache = new ImageCache();
+        ImageIcon icon = cache.icon("/Picture/summation_hold.png");
+        assertSame(icon, cache.icon("/Picture/summation_hold.png"));
+        assertSame(cache.image("/Picture/summation_hold.png"), icon.getImage());
+    }
+
+    @Test
+    @DisplayName("concurrent first lookups all get the same image")
+    void image_concurrentLookups() {
+        ImageCache cache = new ImageCache();
+        List<BufferedImage> images = IntStream.range(0, 64).parallel()
+                .mapToObj(i -> cache.image("/Picture/xy-black.png"))
+                .toList();
+        assertTrue(images.stream().allMatch(image -> image == images.get(0)));
+    }
+
+    @Test
+    @DisplayName("a missing picture gives null rather than an exception")
+    void missingPicture() {
+        ImageCache cache = new ImageCache();
+        assertNull(cache.image("/Picture/nope.png"));
+        assertNull(cache.icon("/Picture/nope.png"));
+        assertNull(cache.iconAsync("/Picture/nope.png").join());
+        assertNull(cache.cachedIcon("/Picture/nope.png"));
+        assertEquals(1, cache.size(), "the miss is remembered");
+    }
+
+    /* ---- non-blocking lookups ---- */
+
+    @Test
+    @DisplayName("a picture whose decoder throws counts as missing and is not retried")
+    void decodeFailure_cachedAsMissing() {
+        AtomicInteger decodes = new AtomicInteger();
+        ImageCache cache = new ImageCache(ImageCache.CAPACITY, path -> {
+            decodes.incrementAndGet();
+            throw new IllegalArgumentException("malformed PNG");
+        });
+        assertNull(cache.icon("/Picture/broken.png"));
+        assertNull(cache.icon("/Picture/broken.png"));
+        assertNull(cache.iconAsync("/Picture/broken.png").join());
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    @DisplayName("cachedIcon never waits; iconAsync finishes with the shared icon")
+    void iconAsync_sharesDecode() {
+        ImageCache cache = new ImageCache();
+        assertNull(cache.cachedIcon("/Picture/notation_hold.png"), "nothing is decoded yet");
+        CompletableFuture<ImageIcon> first = cache.iconAsync("/Picture/notation_hold.png");
+        CompletableFuture<ImageIcon> second = cache.iconAsync("/Picture/notation_hold.png");
+        ImageIcon icon = first.join();
+        assertNotNull(icon);
+        assertSame(icon, second.join());
+        assertSame(icon, cache.cachedIcon("/Picture/notation_hold.png"));
+        assertTrue(cache.iconAsync("/Picture/notation_hold.png").isDone(), "a cached icon completes at once");
+    }
+
+    @Test
+    @DisplayName("the cache holds at most its capacity, dropping the least recently used")
+    void capacity_evictsLeastRecentlyUsed() {
+        ImageCache cache = new ImageCache(3);
+        for (int i = 0; i < 3; i++) cache.icon(ImageCache.PICTURES[i]);
+        cache.icon(ImageCache.PICTURES[0]);
+        cache.icon(ImageCache.PICTURES[3]);
+        assertEquals(3, cache.size());
+        assertNull(cache.cachedIcon(ImageCache.PICTURES[1]), "least recently used");
+        assertNotNull(cache.cachedIcon(ImageCache.PICTURES[0]));
+        assertNotNull(cache.icon(ImageCache.PICTURES[1]), "an evicted picture is decoded again");
+    }
+}
@@ -0,0 +1,99 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class NumberParserUnitTest {
+
+    private static void assertSameAsJdk(String text) {
+        double expected = Double.parseDouble(text);
+        long expectedBits = Double.doubleToRawLongBits(expected);
+
+        String padded = "[" + text + "]";
+        char[] chars = padded.toCharArray();
+        byte[] bytes = padded.getBytes(StandardCharsets.ISO_8859_1);
+        int to = padded.length() - 1;
+
+        assertEquals(expectedBits, Double.doubleToRawLongBits(NumberParser.parseDouble(text)), text);
+        assertEquals(expectedBits, Double.doubleToRawLongBits(NumberParser.parseDouble(padded, 1, to)), text);
+        assertEquals(expectedBits, Double.doubleToRawLongBits(NumberParser.parseDouble(chars, 1, to)), text);
+        assertEquals(expectedBits, Double.doubleToRawLongBits(NumberParser.parseDouble(bytes, 1, to)), text);
+    }
+
+    /* -----------------------------------------------
+     * parseDouble()
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("parseDouble: typical calculator inputs")
+    void parseDouble_simple() {
+        String[] inputs = {"0", "-0", "7", "15", "-3.5", ".5", "5.", "0.1", "123456.789", "1e22", "1e23",
+                "9007199254740993", "18446744073709551615", "1.7976931348623157e308", "2.2250738585072014E-308",
+                "4.9e-324", "1e-400", "1e400", "-1e400", "0.30000000000000004", "+42", "1E+2"};
+        for (String input : inputs) {
+            assertSameAsJdk(input);
+        }
+    }
+
+    @Test
+    @DisplayName("parseDouble: differential fuzz against Double.parseDouble")
+    void parseDouble_fuzz() {
+        Random random = new Random(5210);
+        for (int i = 0; i < 200_000; i++) {
+            switch (i % 4) {
+                case 0 -> assertSameAsJdk(Double.toString(Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE)));
+                case 1 -> {
+                    StringBuilder text = new StringBuilder();
+                    if (random.nextBoolean()) text.append('-');
+                    int length = 1 + random.nextInt(19);
+                    for (int d = 0; d < length; d++) text.append((char) ('0' + random.nextInt(10)));
+                    if (random.nextBoolean()) text.insert(text.length() - random.nextInt(length), '.');
+                    text.append('e').append(random.nextInt(700) - 350);
+                    assertSameAsJdk(text.toString());
+                }
+                case 2 -> {
+                    // Exact midpoints between neighbouring doubles exercise round-half-even.
+                    double value = Double.longBitsToDouble(random.nextLong() & 0x7FEFFFFFFFFFFFFFL);
+                    BigDecimal low = new BigDecimal(value);
+                    BigDecimal high = new BigDecimal(Math.nextUp(value));
+                    assertSameAsJdk(low.add(high).divide(BigDecimal.valueOf(2)).toString());
+                }
+                default -> assertSameAsJdk(Long.toString(random.nextLong() >>> random.nextInt(64)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("parseDouble: rejects what the JDK rejects")
+    void parseDouble_invalid() {
+        for (String input : new String[]{"", "-", ".", "e5", "1e", "1x", "1..2", "--1"}) {
+            assertThrows(NumberFormatException.class, () -> NumberParser.parseDouble(input), input);
+        }
+    }
+
+    /* -----------------------------------------------
+     * parseLong()
+     * ----------------------------------------------- */
+
+    @Test
+    @DisplayName("parseLong: matches Long.parseLong including overflow errors")
+    void parseLong_matchesJdk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            String text = Long.toString(random.nextLong() >> random.nextInt(64));
+            byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            assertEquals(Long.parseLong(text), NumberParser.parseLong(text), text);
+            assertEquals(Long.parseLong(text), NumberParser.parseLong(text.toCharArray(), 0, text.length()), text);
+            assertEquals(Long.parseLong(text), NumberParser.parseLong(bytes, 0, bytes.length), text);
+        }
+        assertEquals(Long.MIN_VALUE, NumberParser.parseLong("-9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("9223372036854775808"));
+        assertThrows(NumberFormatException.class, () -> NumberParser.parseLong("1.5"));
+    }
+}
@@ -0,0 +1,148 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PersistentResultCacheUnitTest {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Evaluator counting = (operator, equation, nValue, first, second, third, fourth, monitor) -> {
+        calls.incrementAndGet();
+        return Functions.evaluate(operator, equation, nValue, first, second, third, fourth, monitor);
+    };
+
+    @Test
+    @DisplayName("results survive closing and reopening the file")
+    void survivesRestart() throws IOException {
+        Path file = dir.resolve("results.cache");
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 20, counting, 1)) {
+            assertEquals(0, cache.loadedEntries());
+            assertEquals(18.0, cache.evaluate("∑∑", "xy", 1, 1, 2, 1, 3));
+            assertEquals(5050.0, cache.evaluate("∑", "--", 0, 1, 100, 0, 0));
+        }
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 20, counting, 1)) {
+            assertEquals(2, cache.loadedEntries());
+            assertEquals(18.0, cache.evaluate("∑∑", "xy", 1, 1, 2, 1, 3));
+            assertEquals(5050.0, cache.evaluate("∑", "--", 0, 1, 100, 0, 0));
+            assertEquals(2, cache.hitCount());
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("cheap requests are passed through and not stored")
+    void minIterations() throws IOException {
+        try (PersistentResultCache cache = new PersistentResultCache(dir.resolve("c"), 1 << 20, counting, 1_000)) {
+            cache.evaluate("∑", "--", 0, 1, 10, 0, 0);
+            cache.evaluate("∑", "--", 0, 1, 10, 0, 0);
+            assertEquals(2, calls.get());
+            assertEquals(0, cache.hitCount() + cache.missCount());
+        }
+    }
+
+    @Test
+    @DisplayName("a torn slot fails its checksum and reads as a miss")
+    void tornWrite() throws IOException {
+        Path file = dir.resolve("torn.cache");
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 16, counting, 10)) {
+            cache.evaluate("∑", "--", 0, 1, 100, 0, 0);
+        }
+        corruptValidSlots(file);
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 16, counting, 10)) {
+            assertEquals(0, cache.loadedEntries());
+            assertEquals(5050.0, cache.evaluate("∑", "--", 0, 1, 100, 0, 0));
+            assertEquals(1, cache.missCount());
+        }
+    }
+
+    @Test
+    @DisplayName("the file stays at its initial size and full buckets evict the oldest slot")
+    void bounded() throws IOException {
+        Path file = dir.resolve("small.cache");
+        try (PersistentResultCache cache = new PersistentResultCache(file, 4096, counting, 10)) {
+            long size = Files.size(file);
+            for (int i = 0; i < 1_000; i++) {
+                cache.evaluate("∑", "--", 0, 1, 100 + i, 0, 0);
+            }
+            assertEquals(size, Files.size(file));
+            assertTrue(size <= 4096);
+            assertTrue(cache.evictionCount() >= 1_000 - cache.capacity());
+            // The newest entries are still there.
+            int before = calls.get();
+            assertEquals(Functions.summation("--", 1, 1_099, 0), cache.evaluate("∑", "--", 0, 1, 1_099, 0, 0));
+            assertEquals(before, calls.get());
+        }
+        try (PersistentResultCache cache = new PersistentResultCache(file, 4096, counting, 10)) {
+            assertTrue(cache.loadedEntries() > 0 && cache.loadedEntries() <= cache.capacity());
+        }
+    }
+
+    @Test
+    @DisplayName("a file with a different layout is replaced")
+    void layoutMismatch() throws IOException {
+        Path file = dir.resolve("resized.cache");
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 16, counting, 10)) {
+            cache.evaluate("∑", "--", 0, 1, 100, 0, 0);
+        }
+        try (PersistentResultCache cache = new PersistentResultCache(file, 1 << 18, counting, 10)) {
+            assertEquals(0, cache.loadedEntries());
+        }
+    }
+
+    /** Flips a value byte in every slot that has a checksum, as a crash mid-write would leave it. */
+    private static void corruptValidSlots(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer slot = ByteBuffer.allocate(PersistentResultCache.SLOT_BYTES);
+            for (long offset = PersistentResultCache.HEADER_BYTES; offset < channel.size(); offset += PersistentResultCache.SLOT_BYTES) {
+                slot.clear();
+                channel.read(slot, offset);
+                if (slot.getLong(56) != 0) {
+                    slot.put(40, (byte) (slot.get(40) ^ 0x55));
+                    slot.rewind();
+                    channel.write(slot, offset);
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a DOWNGRADE estimate never reaches the file; a later exact run gets the exact value")
+    void configured_downgradeNotPersisted() throws IOException {
+        Path file = dir.resolve("configured.cache");
+        double exact = Functions.summation("x^C", 1, 200_000, 2);
+        System.setProperty("calculator.cache.file", file.toString());
+        try {
+            System.setProperty("calculator.admission.policy", "downgrade");
+            System.setProperty("calculator.admission.budget", "1000");
+            double estimate = Evaluator.configured(true).evaluate("∑", "x^C", 0, 1, 200_000, 2, 0);
+            assertNotEquals(exact, estimate, "the estimate is not the exact sum");
+
+            System.setProperty("calculator.admission.policy", "queue");
+            System.clearProperty("calculator.admission.budget");
+            assertEquals(exact, Evaluator.configured(true).evaluate("∑", "x^C", 0, 1, 200_000, 2, 0));
+        } finally {
+            System.clearProperty("calculator.cache.file");
+            System.clearProperty("calculator.admission.policy");
+            System.clearProperty("calculator.admission.budget");
+        }
+        try (PersistentResultCache cache = new PersistentResultCache(file, Evaluator.DEFAULT_PERSISTENT_CACHE_BYTES, counting)) {
+            assertEquals(1, cache.loadedEntries(), "only the exact run was stored");
+            assertEquals(exact, cache.evaluate("∑", "x^C", 0, 1, 200_000, 2, 0));
+            assertEquals(0, calls.get());
+        }
+    }
+}
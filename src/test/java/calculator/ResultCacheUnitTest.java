@@ -0,0 +1,142 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+class ResultCacheUnitTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Evaluator counting = (operator, equation, nValue, first, second, third, fourth, monitor) -> {
+        calls.incrementAndGet();
+        return Functions.evaluate(operator, equation, nValue, first, second, third, fourth, monitor);
+    };
+
+    @Test
+    @DisplayName("repeated requests are served from the cache")
+    void hit() {
+        ResultCache cache = new ResultCache(counting, 64);
+        assertEquals(12.0, cache.evaluate("∑", "Cx", 0, 1, 3, 2, 0));
+        assertEquals(12.0, cache.evaluate("∑", "Cx", 0, 1, 3, 2, 0));
+        assertEquals(120.0, cache.evaluate("N!", "--", 0, 5, 0, 0, 0));
+        assertEquals(120.0, cache.evaluate("N!", "--", 0, 5, 0, 0, 0));
+        assertEquals(2, calls.get());
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    @DisplayName("every part of the tuple is part of the key")
+    void keyFields() {
+        ResultCache cache = new ResultCache(counting, 64);
+        cache.evaluate("∑∑", "xy", 1, 1, 2, 1, 3);
+        cache.evaluate("∑∑", "xy", 2, 1, 2, 1, 3);
+        cache.evaluate("∑∑", "x+y", 1, 1, 2, 1, 3);
+        cache.evaluate("ΠΠ", "xy", 1, 1, 2, 1, 3);
+        cache.evaluate("∑∑", "xy", 1, 1, 2, 1, 4);
+        assertEquals(5, cache.missCount());
+        assertEquals(0, cache.hitCount());
+    }
+
+    @Test
+    @DisplayName("disabled operators bypass the cache; cheap arithmetic is off by default")
+    void enableFlags() {
+        ResultCache cache = new ResultCache(counting, 64);
+        assertFalse(cache.isEnabled("+"));
+        cache.evaluate("+", "--", 0, 1, 2, 0, 0);
+        cache.evaluate("+", "--", 0, 1, 2, 0, 0);
+        cache.setEnabled("∑", false);
+        cache.evaluate("∑", "--", 0, 1, 5, 0, 0);
+        cache.evaluate("∑", "--", 0, 1, 5, 0, 0);
+        assertEquals(4, calls.get());
+        assertEquals(0, cache.hitCount() + cache.missCount());
+    }
+
+    @Test
+    @DisplayName("a full set evicts with CLOCK, sparing recently hit entries")
+    void clockEviction() {
+        ResultCache cache = new ResultCache(counting, ResultCache.WAYS);
+        assertEquals(ResultCache.WAYS, cache.capacity());
+        for (int i = 1; i <= ResultCache.WAYS; i++) {
+            cache.evaluate("N!", "--", 0, i, 0, 0, 0);
+        }
+        cache.evaluate("N!", "--", 0, 1, 0, 0, 0);
+        cache.evaluate("N!", "--", 0, 100, 0, 0, 0);
+        assertEquals(1, cache.evictionCount());
+
+        int before = calls.get();
+        cache.evaluate("N!", "--", 0, 1, 0, 0, 0);
+        assertEquals(before, calls.get(), "referenced entry should survive the sweep");
+        cache.evaluate("N!", "--", 0, 2, 0, 0, 0);
+        assertEquals(before + 1, calls.get(), "first unreferenced entry should have been evicted");
+    }
+
+    @Test
+    @DisplayName("partial results from a stopped kernel are not stored")
+    void partialNotCached() {
+        ResultCache cache = new ResultCache(counting, 64);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        cache.evaluate("∑", "--", 0, 1, 1e9, 0, 0, token);
+        assertEquals(5050.0, cache.evaluate("∑", "--", 0, 1, 100, 0, 0, new CancellationToken()));
+        assertEquals(5050.0, cache.evaluate("∑", "--", 0, 1, 100, 0, 0));
+        assertEquals(1, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(500000000500000000.0, cache.evaluate("∑", "--", 0, 1, 1e9, 0, 0, new CancellationToken()));
+    }
+
+    @Test
+    @DisplayName("many threads sharing a small cache always see correct values")
+    void concurrent() throws Exception {
+        ResultCache cache = new ResultCache(Evaluator.FUNCTIONS, 256);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long seed = t;
+            futures.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 50_000; i++) {
+                    int start = random.nextInt(40), end = start + random.nextInt(40), constant = random.nextInt(5);
+                    assertEquals(Functions.summation("Cx", start, end, constant), cache.evaluate("∑", "Cx", 0, start, end, constant, 0));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) future.get();
+        pool.shutdown();
+        assertEquals(400_000, cache.hitCount() + cache.missCount());
+        assertTrue(cache.evictionCount() > 0);
+    }
+
+    /**
+     * Miss overhead against the bare engine. Run with -Dcalculator.loadtest=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: lookup cost on a miss")
+    void missOverhead() {
+        ResultCache cache = new ResultCache(Evaluator.FUNCTIONS, 1 << 12);
+        int rounds = 20_000_000;
+        double sink = 0;
+        for (int warm = 0; warm < 3; warm++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) sink += Evaluator.FUNCTIONS.evaluate("N!", "--", 0, i & 7, 0, 0, 0);
+            long bare = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) sink += cache.evaluate("N!", "--", 0, i & 7, i, 0, 0);
+            long cached = System.nanoTime() - start;
+            System.out.printf("ResultCache miss overhead: %.1f ns%n", (cached - bare) / (double) rounds);
+        }
+        assertTrue(sink != 0);
+    }
+}
@@ -0,0 +1,143 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import javax.swing.SwingConstants;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RoundJTextFieldUnitTest {
+
+    @Test
+    @DisplayName("contains() agrees with RoundRectangle2D at every point")
+    void contains_matchesShape() {
+        RoundJTextField field = new RoundJTextField(10);
+        for (int[] size : new int[][] {{133, 41}, {691, 72}, {10, 6}, {1, 1}}) {
+            field.setBounds(40, 70, size[0], size[1]);
+            RoundRectangle2D shape = new RoundRectangle2D.Float(0, 0, size[0], size[1], 15, 15);
+            for (int x = -2; x <= size[0] + 2; x++) {
+                for (int y = -2; y <= size[1] + 2; y++) {
+                    assertEquals(shape.contains(x, y), field.contains(x, y), x + "," + y + " in " + size[0] + "x" + size[1]);
+                }
+            }
+        }
+        field.setBounds(0, 0, 0, 0);
+        assertFalse(field.contains(0, 0));
+    }
+
+    @Test
+    @DisplayName("hit-testing allocates nothing")
+    void contains_allocatesNothing() {
+        RoundJTextField field = new RoundJTextField(10);
+        field.setBounds(0, 0, 133, 41);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int hits = 0;
+        for (int i = 0; i < 100_000; i++) if (field.contains(i % 140, i % 45)) hits++;
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 1_000_000; i++) if (field.contains(i % 140, i % 45)) hits++;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(hits > 0);
+        assertTrue(allocated < 64 * 1024, allocated + " bytes allocated");
+    }
+
+    @Test
+    @DisplayName("the rounded background follows colour and size changes")
+    void paint_background() {
+        RoundJTextField field = new RoundJTextField(10);
+        field.setBounds(0, 0, 100, 30);
+        assertEquals(new Color(213, 178, 224).getRGB(), paint(field).getRGB(50, 15));
+        assertEquals(0, paint(field).getRGB(0, 0), "corners stay clear");
+
+        field.setBackground(Color.BLUE);
+        assertEquals(Color.BLUE.getRGB(), paint(field).getRGB(50, 15));
+        field.setBounds(0, 0, 200, 30);
+        assertEquals(Color.BLUE.getRGB(), paint(field).getRGB(190, 15));
+    }
+
+    /* ---- dirty regions ---- */
+
+    @Test
+    @DisplayName("a text change repaints only from where the text changed, not the whole field")
+    void replaceText_dirtyRegion() {
+        RoundJTextField display = field(SwingConstants.TRAILING, 691, 72);
+        display.setText("12");
+        Rectangle dirty = display.replaceText("123");
+        assertEquals(691, dirty.x + dirty.width, "right-aligned text grows leftwards");
+        assertTrue(dirty.width < 150, dirty.toString());
+
+        RoundJTextField holder = field(SwingConstants.LEFT, 210, 41);
+        holder.setText("2 + 3");
+        Rectangle appended = holder.replaceText("2 + 3 *");
+        assertTrue(appended.x > 20 && appended.width < 60, appended.toString());
+
+        assertTrue(holder.replaceText("2 + 3 *").isEmpty(), "the same text changes nothing");
+        assertNull(new RoundJTextField(10).replaceText("1"), "an unsized field cannot tell");
+        assertNull(display.replaceText("1".repeat(200)), "text wider than the field");
+        assertEquals("1".repeat(200), display.getText());
+    }
+
+    @Test
+    @DisplayName("repainting just the dirty region leaves the same pixels as a full repaint")
+    void replaceText_repaintsEveryChangedPixel() {
+        String[][] edits = {{"0", "7"}, {"7", "78"}, {"78", "7"}, {"12,345", "123,456"}, {"5", "-5"},
+                {"2 + 3", "2 + 3 *"}, {"2 + 3 *", "20"}, {"Undefined", ""}, {"∑ 40%", "∑ 41%"}};
+        for (int alignment : new int[] {SwingConstants.TRAILING, SwingConstants.LEFT, SwingConstants.CENTER}) {
+            for (String[] edit : edits) {
+                RoundJTextField field = field(alignment, 300, 60);
+                field.setText(edit[0]);
+                BufferedImage canvas = paint(field);
+                Rectangle dirty = field.replaceText(edit[1]);
+                assertNotNull(dirty);
+
+                Graphics2D g = canvas.createGraphics();
+                try {
+                    g.setClip(dirty);
+                    g.setComposite(AlphaComposite.Clear);
+                    g.fill(dirty);
+                    g.setComposite(AlphaComposite.SrcOver);
+                    field.paint(g);
+                } finally {
+                    g.dispose();
+                }
+                BufferedImage fresh = paint(field);
+                for (int x = 0; x < fresh.getWidth(); x++) {
+                    for (int y = 0; y < fresh.getHeight(); y++) {
+                        assertEquals(fresh.getRGB(x, y), canvas.getRGB(x, y),
+                                edit[0] + " -> " + edit[1] + " at " + x + "," + y + ", dirty " + dirty);
+                    }
+                }
+            }
+        }
+    }
+
+    private static RoundJTextField field(int alignment, int width, int height) {
+        RoundJTextField field = new RoundJTextField(10);
+        field.setFont(Theme.font("Franklin Gothic Demi", Font.BOLD, 35));
+        field.setHorizontalAlignment(alignment);
+        field.setEditable(false);
+        field.setBounds(0, 0, width, height);
+        return field;
+    }
+
+    private static BufferedImage paint(RoundJTextField field) {
+        BufferedImage canvas = new BufferedImage(field.getWidth(), field.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        try {
+            field.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return canvas;
+    }
+}
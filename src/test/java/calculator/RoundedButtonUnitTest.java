@@ -0,0 +1,64 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RoundedButtonUnitTest {
+
+    private static BufferedImage paint(RoundedButton button) {
+        BufferedImage canvas = new BufferedImage(button.getWidth(), button.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        try {
+            button.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return canvas;
+    }
+
+    private static int centreLeft(BufferedImage canvas) {
+        return canvas.getRGB(2, canvas.getHeight() / 2);
+    }
+
+    @Test
+    @DisplayName("the face keeps the button's colour and repaints the same pixels")
+    void paint_isStable() {
+        RoundedButton button = new RoundedButton("7", 30, "SVN");
+        button.setBounds(0, 0, 80, 50);
+        BufferedImage first = paint(button);
+        assertEquals(new Color(133, 110, 167).getRGB(), centreLeft(first));
+
+        BufferedImage second = paint(button);
+        for (int x = 0; x < first.getWidth(); x++) {
+            for (int y = 0; y < first.getHeight(); y++) {
+                assertEquals(first.getRGB(x, y), second.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("pressing, recolouring and resizing repaint the face")
+    void paint_followsChanges() {
+        RoundedButton button = new RoundedButton("+", 30, "PLUS");
+        button.setBounds(0, 0, 80, 50);
+        paint(button);
+
+        button.getModel().setArmed(true);
+        button.getModel().setPressed(true);
+        assertEquals(new Color(241, 133, 141).darker().getRGB(), centreLeft(paint(button)));
+        button.getModel().setPressed(false);
+
+        button.setBackground(Color.GREEN);
+        assertEquals(Color.GREEN.getRGB(), centreLeft(paint(button)));
+
+        button.setBounds(0, 0, 120, 40);
+        BufferedImage resized = paint(button);
+        assertEquals(Color.GREEN.getRGB(), resized.getRGB(110, 20), "the face covers the new width");
+    }
+}
@@ -0,0 +1,61 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RoundedPanelUnitTest {
+
+    @Test
+    @DisplayName("the cached background is the same antialiased shape the panel always drew")
+    void paint_matchesShape() {
+        RoundedPanel panel = new RoundedPanel(50);
+        panel.setBounds(0, 0, 718, 152);
+        BufferedImage expected = new BufferedImage(718, 152, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = expected.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Theme.FIELD);
+        g.fill(new RoundRectangle2D.Double(0, 0, 718, 152, 50, 50));
+        g.dispose();
+
+        BufferedImage first = paint(panel);
+        BufferedImage second = paint(panel);
+        for (int x = 0; x < 718; x++) {
+            for (int y = 0; y < 152; y++) {
+                assertEquals(expected.getRGB(x, y), first.getRGB(x, y), x + "," + y);
+                assertEquals(first.getRGB(x, y), second.getRGB(x, y), x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("recolouring or resizing the panel redraws its background")
+    void paint_followsChanges() {
+        RoundedPanel panel = new RoundedPanel(50);
+        panel.setBounds(0, 0, 200, 100);
+        paint(panel);
+        panel.setBackground(Color.RED);
+        assertEquals(Color.RED.getRGB(), paint(panel).getRGB(100, 50));
+        panel.setBounds(0, 0, 400, 100);
+        assertEquals(Color.RED.getRGB(), paint(panel).getRGB(350, 50));
+        assertEquals(0, paint(panel).getRGB(0, 0), "corners stay clear");
+    }
+
+    private static BufferedImage paint(RoundedPanel panel) {
+        BufferedImage canvas = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        try {
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return canvas;
+    }
+}
@@ -0,0 +1,148 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class RpcServerUnitTest {
+
+    @TempDir
+    Path dir;
+
+    private RpcServer server;
+    private RpcClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new RpcServer(dir.resolve("calc.sock"), Evaluator.FUNCTIONS, 2);
+        server.start();
+        client = RpcClient.connect(server.socketPath());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("calls return the same values as Functions")
+    void call_matchesFunctions() throws Exception {
+        assertEquals(15.0, client.call("+", "--", 0, 7, 8, 0, 0).get(5, TimeUnit.SECONDS));
+        assertEquals(12.0, client.call("∑", "Cx", 0, 1, 3, 2, 0).get(5, TimeUnit.SECONDS));
+        assertEquals(65536.0, client.call("Π", "--", 0, 5, 8, 16, 0).get(5, TimeUnit.SECONDS));
+        assertEquals(18.0, client.call("∑∑", "xy", 1, 1, 2, 1, 3).get(5, TimeUnit.SECONDS));
+        assertEquals(120.0, client.call("N!", "--", 0, 5, 0, 0, 0).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("math errors complete the future exceptionally")
+    void call_mathError() {
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> client.call("N!", "--", 0, -3, 0, 0, 0).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ArithmeticException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("a slow range request does not block cheap requests pipelined behind it")
+    void pipelining_outOfOrder() throws Exception {
+        CompletableFuture<Double> slow = client.submit("∑", "--", 0, 1, 300_000_000, 0, 0);
+        List<CompletableFuture<Double>> fast = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            fast.add(client.submit("*", "--", 0, i, 2, 0, 0));
+        }
+        client.flush();
+
+        for (int i = 0; i < fast.size(); i++) {
+            assertEquals(i * 2.0, fast.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertFalse(slow.isDone(), "cheap requests should be answered before the long summation");
+        assertEquals(45000000150000000.0, slow.get(60, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("a range request over the time budget completes with TimeoutException")
+    void timeout() throws Exception {
+        try (RpcServer limited = new RpcServer(dir.resolve("limited.sock"), Evaluator.FUNCTIONS, 1, 50)) {
+            limited.start();
+            try (RpcClient own = RpcClient.connect(limited.socketPath())) {
+                ExecutionException error = assertThrows(ExecutionException.class,
+                        () -> own.call("∑", "--", 0, 1, Long.MAX_VALUE, 0, 0).get(5, TimeUnit.SECONDS));
+                assertInstanceOf(TimeoutException.class, error.getCause());
+                assertTrue(error.getCause().getMessage().contains("partial result"));
+                assertEquals(3.0, own.call("+", "--", 0, 1, 2, 0, 0).get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("a slow factorial does not hold up another connection")
+    void factorial_offSelector() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Evaluator slow = (operator, equation, nValue, first, second, third, fourth, monitor) -> {
+            if (operator.contains("!")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Functions.evaluate(operator, equation, nValue, first, second, third, fourth, monitor);
+        };
+        try (RpcServer blocking = new RpcServer(dir.resolve("slow.sock"), slow, 2)) {
+            blocking.start();
+            try (RpcClient first = RpcClient.connect(blocking.socketPath());
+                 RpcClient second = RpcClient.connect(blocking.socketPath())) {
+                CompletableFuture<Double> running = first.call("N!", "--", 0, 20, 0, 0, 0);
+                CompletableFuture<Double> sum = first.call("a! + b!", "--", 0, 15, 3, 0, 0);
+
+                assertEquals(3.0, second.call("+", "--", 0, 1, 2, 0, 0).get(5, TimeUnit.SECONDS));
+                assertFalse(running.isDone());
+
+                release.countDown();
+                assertEquals(2432902008176640000.0, running.get(5, TimeUnit.SECONDS));
+                assertEquals(1307674368006.0, sum.get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    /**
+     * Pipelined throughput check. Run with -Dcalculator.loadtest=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: pipelined calls per second over one connection")
+    void loadTest() throws Exception {
+        int total = 2_000_000;
+        int window = 4096;
+        long start = System.nanoTime();
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[window];
+        for (int i = 0; i < total; i++) {
+            int slot = i % window;
+            if (inFlight[slot] != null) inFlight[slot].get();
+            inFlight[slot] = client.submit("+", "--", 0, i, 1, 0, 0);
+            if (slot == window - 1) client.flush();
+        }
+        client.flush();
+        for (CompletableFuture<?> future : inFlight) {
+            if (future != null) future.get();
+        }
+        double rate = total / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("RPC load: %.0f calls/s%n", rate);
+    }
+}
@@ -0,0 +1,202 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionReplayerUnitTest {
+
+    @TempDir
+    Path dir;
+
+    /** Drives a recorder the way Main does, keeping the live state alongside. */
+    private static final class Session {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final SessionRecorder recorder;
+        CalculatorState state;
+
+        Session(CalculatorState start) throws IOException {
+            recorder = new SessionRecorder(bytes);
+            state = start;
+            recorder.start(start);
+        }
+
+        Session press(String... keys) {
+            for (String key : keys) {
+                recorder.key(key);
+                state = CalculatorState.reduce(state, key);
+                if (state.pending() != null) {
+                    recorder.settled();
+                    state = CalculatorState.settle(state);
+                }
+            }
+            return this;
+        }
+
+        Session fields(String x, String y, String z) {
+            state = state.withFields(x, y, z);
+            recorder.fields(x, y, z);
+            return this;
+        }
+
+        Session recall(double value) {
+            recorder.recall(value);
+            state = state.withAns(value);
+            return press("ANS");
+        }
+
+        SessionReplayer.Recording recording() throws IOException {
+            recorder.flush();
+            return SessionReplayer.Recording.parse(bytes.toByteArray());
+        }
+    }
+
+    /* ---- replay ---- */
+
+    @Test
+    @DisplayName("a replayed session ends where the live one did, with the same answers")
+    void replay_matchesLive() throws IOException {
+        Session live = new Session(CalculatorState.INITIAL)
+                .press("TWO", "PLUS", "THR", "MUL", "FR", "EQU")
+                .press("SUM", "CEX", "ON", "A", "THR", "B", "TWO", "C", "EQU")
+                .press("DSUM", "XEY", "ON", "A", "TWO", "B", "ON", "C", "THR", "D")
+                .fields("1", "0", "0")
+                .press("EQU", "AC")
+                .recall(2.5)
+                .press("MUL", "FR", "EQU", "FRM");
+
+        SessionReplayer.Recording recording = live.recording();
+        SessionReplayer.Result result = new SessionReplayer().replay(recording);
+        assertEquals(live.state, result.finalState());
+        assertArrayEquals(new double[] {20, 12, 18, 10}, result.answers());
+        assertEquals(recording.size(), result.events());
+    }
+
+    @Test
+    @DisplayName("a session that starts from a restored state replays from that state")
+    void replay_fromSnapshot() throws IOException {
+        CalculatorState restored = CalculatorState.settle(CalculatorState.reduce(
+                CalculatorState.reduce(CalculatorState.reduce(CalculatorState.INITIAL, "SVN"), "MUL"), "SX"));
+        Session live = new Session(restored).press("EQU", "PLUS", "ANS", "EQU");
+        SessionReplayer.Result result = new SessionReplayer().replay(live.recording());
+        assertEquals(live.state, result.finalState());
+        assertArrayEquals(new double[] {42, 84}, result.answers());
+    }
+
+    @Test
+    @DisplayName("per-key latencies are counted, and only when timed")
+    void replay_latencies() throws IOException {
+        SessionReplayer.Recording recording = new Session(CalculatorState.INITIAL)
+                .press("SUM", "ON", "A", "FV", "B", "EQU", "PLUS", "ON", "EQU").recording();
+        SessionReplayer timed = new SessionReplayer();
+        timed.replay(recording);
+        assertEquals(2, timed.latency("EQU").count());
+        assertEquals(1, timed.latency("SETTLE").count());
+        assertEquals(recording.size() - 1, timed.overall().count(), "START is not timed");
+        assertTrue(timed.summary().contains("EQU: "));
+        assertThrows(IllegalArgumentException.class, () -> timed.latency("nope"));
+
+        SessionReplayer untimed = new SessionReplayer(false);
+        assertEquals(16.0, untimed.replay(recording).finalState().ans());
+        assertEquals(0, untimed.overall().count());
+    }
+
+    @Test
+    @DisplayName("parallel replays agree with each other and keep their order")
+    void replayAll_parallel() throws IOException {
+        SessionReplayer.Recording hundred = new Session(CalculatorState.INITIAL)
+                .press("SUM", "ON", "A", "ON", "ZRO", "ZRO", "B", "EQU").recording();
+        SessionReplayer.Recording six = new Session(CalculatorState.INITIAL).press("TWO", "MUL", "THR", "EQU").recording();
+        List<SessionReplayer.Recording> work = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            work.add(hundred);
+            work.add(six);
+        }
+
+        SessionReplayer replayer = new SessionReplayer();
+        List<SessionReplayer.Result> serial = replayer.replayAll(work, false);
+        List<SessionReplayer.Result> parallel = replayer.replayAll(work, true);
+        for (int i = 0; i < work.size(); i++) {
+            assertTrue(serial.get(i).matches(parallel.get(i)));
+            assertEquals(i % 2 == 0 ? 5050.0 : 6.0, parallel.get(i).finalState().ans());
+        }
+        assertEquals(1000, replayer.latency("SETTLE").count());
+    }
+
+    /* ---- log format ---- */
+
+    @Test
+    @DisplayName("logs appended across runs replay as one, and a cut-off tail is dropped")
+    void parse_appendedAndTruncated() throws IOException {
+        Path file = dir.resolve("session.rec");
+        String previous = System.setProperty("calculator.record", file.toString());
+        try {
+            for (String key : new String[] {"FV", "SX"}) {
+                SessionRecorder recorder = SessionRecorder.openDefault();
+                recorder.start(CalculatorState.INITIAL);
+                recorder.key(key);
+                recorder.key("not a button");
+                recorder.close();
+            }
+        } finally {
+            if (previous == null) System.clearProperty("calculator.record");
+            else System.setProperty("calculator.record", previous);
+        }
+
+        byte[] log = Files.readAllBytes(file);
+        SessionReplayer.Recording both = SessionReplayer.Recording.parse(log);
+        assertEquals(4, both.size());
+        assertEquals("6", new SessionReplayer().replay(both).finalState().displayText(), "the second run starts afresh");
+
+        byte[] cut = Arrays.copyOf(log, log.length - 3);
+        assertEquals(2, SessionReplayer.Recording.parse(cut).size());
+    }
+
+    @Test
+    @DisplayName("foreign files and unknown events are rejected")
+    void parse_rejects() {
+        assertThrows(IOException.class, () -> SessionReplayer.Recording.parse("CALCSES1........".getBytes()));
+        byte[] unknown = Arrays.copyOf(SessionRecorder.MAGIC, SessionRecorder.MAGIC.length + 5);
+        unknown[SessionRecorder.MAGIC.length + 3] = SessionRecorder.VERSION;
+        unknown[SessionRecorder.MAGIC.length + 4] = 120;
+        assertThrows(IOException.class, () -> SessionReplayer.Recording.parse(unknown));
+    }
+
+    /**
+     * Replay throughput. Run with -Dcalculator.loadtest=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: replay runs at over a million events per second")
+    void loadTest() throws IOException {
+        Session session = new Session(CalculatorState.INITIAL);
+        for (int i = 0; i < 10_000; i++) {
+            session.press("ON", "TWO", "PLUS", "THR", "PRD", "FV", "MUL", "FR", "EQU", "DL", "AC");
+        }
+        List<SessionReplayer.Recording> work = Collections.nCopies(64, session.recording());
+
+        SessionReplayer untimed = new SessionReplayer(false);
+        untimed.replayAll(work, true);
+        long start = System.nanoTime();
+        long events = 0;
+        for (SessionReplayer.Result result : untimed.replayAll(work, true)) events += result.events();
+        double perSecond = events * 1e9 / (System.nanoTime() - start);
+
+        SessionReplayer timed = new SessionReplayer();
+        timed.replayAll(work, true);
+        System.out.printf("Replay: %.0f events/s untimed%n%s", perSecond, timed.summary());
+        assertTrue(perSecond > 1_000_000, "replayed " + perSecond + " events/s");
+    }
+}
@@ -0,0 +1,176 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class SessionSnapshotUnitTest {
+
+    @TempDir
+    Path dir;
+
+    private static CalculatorState press(CalculatorState state, String... keys) {
+        for (String key : keys) {
+            state = CalculatorState.reduce(state, key);
+        }
+        return state;
+    }
+
+    /** A ∑∑ set up with A=1, B=10, C=2 and N typed as n, waiting for D. */
+    private static CalculatorState doubleSummation(String n) {
+        CalculatorState state = press(CalculatorState.INITIAL, "DSUM", "x+y", "ON", "A", "ON", "ZRO", "B", "TWO", "C");
+        return state.withFields(n, "0", "0");
+    }
+
+    /* ---- encoding ---- */
+
+    @Test
+    @DisplayName("a state survives encode and decode unchanged")
+    void roundTrip() throws IOException {
+        CalculatorState setup = doubleSummation("3");
+        assertEquals(setup, SessionSnapshot.decode(SessionSnapshot.encode(setup)));
+
+        CalculatorState chain = press(CalculatorState.INITIAL, "TWO", "PLUS", "THR", "PRD", "FV", "DIV", "SX", "ST", "FRM");
+        assertEquals(chain, SessionSnapshot.decode(SessionSnapshot.encode(chain)));
+
+        CalculatorState answered = press(CalculatorState.INITIAL, "FR", "MUL", "FV", "EQU");
+        assertEquals(answered, SessionSnapshot.decode(SessionSnapshot.encode(answered)));
+        assertEquals(CalculatorState.INITIAL, SessionSnapshot.decode(SessionSnapshot.encode(CalculatorState.INITIAL)));
+    }
+
+    @Test
+    @DisplayName("a pending range evaluation is not saved")
+    void roundTrip_dropsPending() throws IOException {
+        CalculatorState waiting = press(CalculatorState.INITIAL, "SUM", "ON", "A", "FV", "B", "EQU");
+        assertNotNull(waiting.pending());
+        CalculatorState restored = SessionSnapshot.decode(SessionSnapshot.encode(waiting));
+        assertNull(restored.pending());
+        assertEquals(waiting.displayText(), restored.displayText());
+        assertEquals(15.0, CalculatorState.settle(CalculatorState.reduce(restored, "EQU")).ans());
+    }
+
+    @Test
+    @DisplayName("version 1 snapshots are still read, with their layout worked out from the operator")
+    void decode_version1() throws IOException {
+        byte[] v1 = HexFormat.of().parseHex("43414c4353455331000000010c020500000007000000040000000040454000000000000007"
+                + "000131000231300001320000000000000007314131304232430000000133000130000130c51260b9");
+        CalculatorState state = SessionSnapshot.decode(v1);
+        assertEquals("∑∑", state.operator());
+        assertEquals("x+y", state.equation());
+        assertEquals("2", state.C());
+        assertEquals(42.5, state.ans());
+        assertEquals("3", state.xText());
+        assertEquals(CalculatorState.Layout.DOUBLE_SUMMATION, state.layout());
+        assertEquals("N =", state.variableText());
+        assertEquals("Equation: x+y", state.equationText());
+    }
+
+    @Test
+    @DisplayName("corrupt, truncated and newer snapshots are rejected")
+    void decode_rejects() {
+        byte[] encoded = SessionSnapshot.encode(doubleSummation("3"));
+
+        byte[] flipped = encoded.clone();
+        flipped[20] ^= 1;
+        assertThrows(IOException.class, () -> SessionSnapshot.decode(flipped));
+
+        assertThrows(IOException.class, () -> SessionSnapshot.decode(new byte[5]));
+
+        // Rewrite the version and fix up the checksum so only the version is wrong.
+        byte[] newer = encoded.clone();
+        ByteBuffer.wrap(newer).putInt(SessionSnapshot.MAGIC.length, SessionSnapshot.VERSION + 1);
+        CRC32 crc = new CRC32();
+        crc.update(newer, 0, newer.length - 4);
+        ByteBuffer.wrap(newer).putInt(newer.length - 4, (int) crc.getValue());
+        IOException error = assertThrows(IOException.class, () -> SessionSnapshot.decode(newer));
+        assertTrue(error.getMessage().contains("version"));
+    }
+
+    /* ---- store ---- */
+
+    @Test
+    @DisplayName("saved states are written in the background and the newest one wins")
+    void store_saveAndLoad() {
+        Path file = dir.resolve("session.bin");
+        SessionStore store = new SessionStore(file);
+        assertNull(store.load());
+
+        for (int n = 0; n < 100; n++) {
+            store.save(doubleSummation(String.valueOf(n)));
+        }
+        store.flush();
+        assertEquals("99", store.load().xText());
+        assertFalse(Files.exists(dir.resolve("session.bin.tmp")));
+
+        store.close();
+        assertEquals(doubleSummation("99"), new SessionStore(file).load());
+    }
+
+    @Test
+    @DisplayName("close writes the newest snapshot itself and later saves are dropped")
+    void store_closeWritesLatest() {
+        Path file = dir.resolve("session.bin");
+        SessionStore store = new SessionStore(file);
+        for (int n = 0; n < 1_000; n++) {
+            store.save(doubleSummation(String.valueOf(n)));
+        }
+        store.close();
+        assertEquals(doubleSummation("999"), new SessionStore(file).load());
+
+        store.save(doubleSummation("7"));
+        store.flush();
+        assertEquals(doubleSummation("999"), new SessionStore(file).load());
+    }
+
+    @Test
+    @DisplayName("an unreadable file restores nothing")
+    void store_corruptFile() throws IOException {
+        Path file = dir.resolve("session.bin");
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertNull(new SessionStore(file).load());
+    }
+
+    @Test
+    @DisplayName("a disabled store drops saves")
+    void store_disabled() {
+        SessionStore store = new SessionStore();
+        store.save(doubleSummation("3"));
+        store.flush();
+        assertNull(store.load());
+        store.close();
+    }
+
+    /**
+     * Startup restore cost. Run with -Dcalculator.loadtest=true.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: reading a snapshot back takes well under 5ms")
+    void loadTest() {
+        SessionStore store = new SessionStore(dir.resolve("session.bin"));
+        store.save(doubleSummation("3"));
+        store.flush();
+
+        long start = System.nanoTime();
+        CalculatorState restored = store.load();
+        double coldMillis = (System.nanoTime() - start) / 1e6;
+        for (int i = 0; i < 10_000; i++) store.load();
+        start = System.nanoTime();
+        store.load();
+        double warmMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("Session restore: cold %.3f ms, warm %.3f ms%n", coldMillis, warmMillis);
+        assertNotNull(restored);
+        assertTrue(coldMillis < 5, "cold restore took " + coldMillis + " ms");
+    }
+}
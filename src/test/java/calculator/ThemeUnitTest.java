@@ -0,0 +1,40 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Color;
+import java.awt.Font;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ThemeUnitTest {
+
+    @Test
+    @DisplayName("a font is created once and matches the one it replaces")
+    void font_isShared() {
+        Font font = Theme.font("Malgun Gothic", Font.BOLD, 38);
+        assertSame(font, Theme.font("Malgun Gothic", Font.BOLD, 38));
+        assertEquals(new Font("Malgun Gothic", Font.BOLD, 38), font);
+        assertEquals(new Font("Tahoma", Font.BOLD, 17), Theme.BUTTON_FONT);
+        assertNotSame(font, Theme.font("Malgun Gothic", Font.PLAIN, 38));
+    }
+
+    @Test
+    @DisplayName("a colour is created once")
+    void color_isShared() {
+        assertSame(Theme.color(0, 128, 0), Theme.color(0, 128, 0));
+        assertEquals(new Color(213, 178, 224), Theme.FIELD);
+        assertSame(Theme.WHITE, Theme.color(255, 255, 255));
+    }
+
+    @Test
+    @DisplayName("mode switches reuse the same fonts and colours")
+    void components_shareTheme() {
+        RoundedButton seven = new RoundedButton("7", 30, "SVN");
+        RoundedButton eight = new RoundedButton("8", 30, "EHT");
+        assertSame(seven.getFont(), eight.getFont());
+        assertSame(seven.getBackground(), eight.getBackground());
+        assertSame(new RoundJTextField(10).getBackground(), new RoundedPanel(15).getBackground());
+    }
+}
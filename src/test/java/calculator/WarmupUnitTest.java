@@ -0,0 +1,90 @@
+package calculator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+class WarmupUnitTest {
+
+    /* ---- the scripted run ---- */
+
+    @Test
+    @DisplayName("the warm-up sessions press every button and get their known answers")
+    void model_answers() throws Exception {
+        Set<String> pressed = new HashSet<>();
+        Warmup.SESSIONS.forEach(pressed::addAll);
+        for (ButtonRegistry.Spec spec : ButtonRegistry.SPECS) {
+            if (spec.recall() < 0) {
+                assertTrue(pressed.contains(spec.identifier()), spec.identifier());
+            }
+        }
+
+        double[] answers = Warmup.model();
+        assertArrayEquals(new double[]{124, 3, 1.5, 1.0680430702925796, 110, 72, 720, 128, 30, 512}, answers, 1e-9);
+        assertArrayEquals(answers, Warmup.model(), "the run is repeatable");
+    }
+
+    @Test
+    @DisplayName("the offscreen keypad paints without a screen")
+    void paintKeypad_headless() {
+        BufferedImage keypad = Warmup.paintKeypad();
+        assertEquals(790, keypad.getWidth());
+        Set<Integer> colours = new HashSet<>();
+        for (int y = 200; y < keypad.getHeight(); y += 7) {
+            for (int x = 0; x < keypad.getWidth(); x += 7) colours.add(keypad.getRGB(x, y));
+        }
+        assertTrue(colours.size() > 3, "buttons were drawn");
+    }
+
+    @Test
+    @DisplayName("without CRaC, checkpointRestore leaves startup to carry on cold")
+    void checkpoint_unavailable() {
+        if (CheckpointSupport.available()) return;
+        assertFalse(CheckpointSupport.checkpointRestore());
+    }
+
+    /* ---- launch timing ---- */
+
+    @Test
+    @DisplayName("a packed jar holds every class and picture")
+    void pack_copiesClasses(@TempDir Path dir) throws Exception {
+        Path classes = Path.of(Warmup.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path jar = StartupBenchmark.pack(classes, dir.resolve("startup/calculator.jar"));
+        try (JarFile file = new JarFile(jar.toFile())) {
+            assertNotNull(file.getEntry("calculator/Warmup.class"));
+            assertNotNull(file.getEntry("Picture/teamba.png"));
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "calculator.loadtest", matches = "true")
+    @DisplayName("load: headless launches with a trained archive are timed")
+    void benchmark_trainsAndTimes(@TempDir Path dir) throws Exception {
+        Path classes = Path.of(Warmup.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path jar = StartupBenchmark.pack(classes, dir.resolve("calculator.jar"));
+        Path archive = dir.resolve("calculator.jsa");
+        StartupBenchmark benchmark = new StartupBenchmark(jar.toString(), true);
+        benchmark.train(archive);
+        assertTrue(Files.size(archive) > 0);
+
+        List<StartupBenchmark.Timings> timings = benchmark.compare(List.of(
+                new StartupBenchmark.Mode("jdk archive", List.of()),
+                new StartupBenchmark.Mode("app archive", List.of("-XX:SharedArchiveFile=" + archive))), 3);
+        for (StartupBenchmark.Timings t : timings) {
+            assertEquals(3, t.nanos().length);
+            assertTrue(t.min() > 0 && t.min() <= t.median());
+            System.out.printf("%s: median %.1f ms%n", t.mode().name(), t.median() / 1e6);
+        }
+    }
+}